@@ -0,0 +1,23 @@
+package com.nium.cardplatform.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class AsyncConfig {
+
+    // Bounded pool + bounded queue: once both are full, submissions are rejected
+    // (TaskRejectedException) instead of piling up behind the database.
+    @Bean
+    public ThreadPoolTaskExecutor cardMutationExecutor(AsyncProperties props) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("card-mutation-");
+        executor.setCorePoolSize(props.corePoolSize());
+        executor.setMaxPoolSize(props.maxPoolSize());
+        executor.setQueueCapacity(props.queueCapacity());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,16 @@
+package com.nium.cardplatform.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+// Sizing of the dedicated executor behind the async spend/top-up endpoints
+@ConfigurationProperties(prefix = "cardplatform.async")
+public record AsyncProperties(
+        @DefaultValue("8") int corePoolSize,
+        @DefaultValue("32") int maxPoolSize,
+        @DefaultValue("200") int queueCapacity,
+        @DefaultValue("5s") Duration timeout
+) {
+}
@@ -0,0 +1,14 @@
+package com.nium.cardplatform.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+// Live card event streams (GET /cards/{id}/events)
+@ConfigurationProperties(prefix = "cardplatform.events")
+public record CardEventStreamProperties(
+        @DefaultValue("64") int bufferSize,  // events queued per subscriber before it is dropped as too slow
+        @DefaultValue("30m") Duration timeout // subscribers reconnect after this
+) {
+}
@@ -0,0 +1,20 @@
+package com.nium.cardplatform.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+// Adaptive (AIMD) concurrency limit in front of the card endpoints
+@ConfigurationProperties(prefix = "cardplatform.concurrency-limit")
+public record ConcurrencyLimitProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("20") int initialLimit,
+        @DefaultValue("10") int minLimit,
+        @DefaultValue("200") int maxLimit,
+        @DefaultValue("250ms") Duration latencyTarget, // slower responses (and 5xx) shrink the limit
+        @DefaultValue("0.9") double backoffRatio,      // multiplicative decrease
+        @DefaultValue("0.8") double readShare,         // share of the limit non-critical requests may use; the rest is kept for spends/top-ups
+        @DefaultValue("1s") Duration retryAfter
+) {
+}
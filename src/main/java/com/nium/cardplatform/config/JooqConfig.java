@@ -5,14 +5,17 @@ import org.jooq.SQLDialect;
 import org.jooq.impl.DSL;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.TransactionAwareDataSourceProxy;
 
 import javax.sql.DataSource;
 
 @Configuration
 public class JooqConfig {
 
+    // The proxy hands jOOQ the connection bound to the current Spring transaction,
+    // so all statements of a @Transactional method commit or roll back together
     @Bean
     public DSLContext dslContext(DataSource dataSource) {
-        return DSL.using(dataSource, SQLDialect.H2);
+        return DSL.using(new TransactionAwareDataSourceProxy(dataSource), SQLDialect.H2);
     }
 }
@@ -0,0 +1,26 @@
+package com.nium.cardplatform.config;
+
+import com.nium.cardplatform.controller.LoadSheddingInterceptor;
+import com.nium.cardplatform.service.AdaptiveConcurrencyLimiter;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class LoadSheddingConfig implements WebMvcConfigurer {
+
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    public LoadSheddingConfig(AdaptiveConcurrencyLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    // SSE streams are long-lived by design and would pin permits, so they stay outside the limit
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (!limiter.isEnabled()) return;
+        registry.addInterceptor(new LoadSheddingInterceptor(limiter))
+                .addPathPatterns("/cards", "/cards/**")
+                .excludePathPatterns("/cards/*/events");
+    }
+}
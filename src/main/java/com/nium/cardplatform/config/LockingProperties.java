@@ -0,0 +1,23 @@
+package com.nium.cardplatform.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.Set;
+import java.util.UUID;
+
+// How spend/top-up serialize writers of the same card
+@ConfigurationProperties(prefix = "cardplatform.locking")
+public record LockingProperties(
+        @DefaultValue("OPTIMISTIC") Mode mode,
+        @DefaultValue Set<UUID> pessimisticCards // hot cards locked pessimistically whatever the mode
+) {
+    public enum Mode {
+        OPTIMISTIC,  // plain read + version-checked update, conflicts surface as 409
+        PESSIMISTIC  // SELECT ... FOR UPDATE, writers queue on the row lock instead of failing
+    }
+
+    public boolean pessimistic(UUID cardId) {
+        return mode == Mode.PESSIMISTIC || pessimisticCards.contains(cardId);
+    }
+}
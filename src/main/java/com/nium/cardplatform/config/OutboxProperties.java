@@ -0,0 +1,24 @@
+package com.nium.cardplatform.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+
+// Outbox relay: where events go and how fast the table is drained
+@ConfigurationProperties(prefix = "cardplatform.outbox")
+public record OutboxProperties(
+        @DefaultValue("FILE") Sink sink,
+        @DefaultValue("500ms") Duration pollInterval,
+        @DefaultValue("500") int batchSize,
+        @DefaultValue("20") int maxBatchesPerRun,
+        @DefaultValue("data/outbox/card-events.jsonl") Path file,
+        URI httpUrl
+) {
+    public enum Sink {
+        FILE, // append JSON lines to a local file
+        HTTP  // POST each batch as a JSON array
+    }
+}
@@ -0,0 +1,23 @@
+package com.nium.cardplatform.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+// Per-card spend limits: count limit algorithm plus velocity rules, e.g. "at most 1000.00 spent per 1m"
+@ConfigurationProperties(prefix = "cardplatform.rate-limit")
+public record RateLimitProperties(
+        @DefaultValue("SLIDING_LOG") Strategy strategy,
+        @DefaultValue List<VelocityRule> velocityRules
+) {
+    public enum Strategy {
+        SLIDING_LOG, // exact, remembers the last N spend timestamps per card
+        GCRA         // token bucket, a single long per card updated with one CAS
+    }
+
+    public record VelocityRule(Duration window, BigDecimal maxAmount) {
+    }
+}
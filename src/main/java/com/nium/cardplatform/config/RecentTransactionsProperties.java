@@ -0,0 +1,12 @@
+package com.nium.cardplatform.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+// In-memory ring of each card's latest transactions, serving first-page listings
+@ConfigurationProperties(prefix = "cardplatform.recent-transactions")
+public record RecentTransactionsProperties(
+        @DefaultValue("10") int ringSize,             // transactions kept per card (0 disables the cache)
+        @DefaultValue("100000") int maxTransactions   // global budget across all rings; least recently used cards are evicted
+) {
+}
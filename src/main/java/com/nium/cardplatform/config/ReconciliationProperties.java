@@ -0,0 +1,16 @@
+package com.nium.cardplatform.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+// Ledger reconciliation (card.balance vs. net of its transactions)
+@ConfigurationProperties(prefix = "cardplatform.reconciliation")
+public record ReconciliationProperties(
+        @DefaultValue("-") String cron,              // "-" disables the scheduled run
+        @DefaultValue("2000") int chunkSize,         // cards read per keyset page
+        @DefaultValue("500") int splitThreshold,     // cards verified by one fork/join leaf (one sums query)
+        @DefaultValue("2") int parallelism,          // worker threads, i.e. connections the job may hold at once
+        @DefaultValue("4") int maxInFlightChunks,    // pages read ahead of verification
+        @DefaultValue("100") int maxReportedMismatches
+) {
+}
@@ -0,0 +1,16 @@
+package com.nium.cardplatform.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+// Snapshots of the in-memory ledger and outbox tables, written periodically and on shutdown and restored at startup
+@ConfigurationProperties(prefix = "cardplatform.snapshot")
+public record SnapshotProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("data/snapshots") Path directory,
+        @DefaultValue("5m") Duration interval
+) {
+}
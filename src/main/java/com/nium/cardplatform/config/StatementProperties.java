@@ -0,0 +1,18 @@
+package com.nium.cardplatform.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+
+// Per-card statements: one gzip-compressed CSV per card and period, written under directory/<from>_<to>/
+@ConfigurationProperties(prefix = "cardplatform.statements")
+public record StatementProperties(
+        @DefaultValue("-") String cron,                  // "-" disables the scheduled run (previous calendar month)
+        @DefaultValue("data/statements") Path directory,
+        @DefaultValue("2000") int chunkSize,             // cards read per keyset page
+        @DefaultValue("2") int parallelism,              // worker threads, i.e. connections (open cursors) the job may hold at once
+        @DefaultValue("500") int fetchSize,              // transaction rows fetched per round trip while streaming a card
+        @DefaultValue("65536") int bufferSize            // bytes buffered per open file before the compressor and the channel
+) {
+}
@@ -0,0 +1,20 @@
+package com.nium.cardplatform.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+// Write-ahead log of committed ledger changes, replayed at startup on top of the latest snapshot. Snapshots trim
+// the log; with snapshots off it is compacted instead once it grows past compactAbove (checked every
+// compactionInterval).
+@ConfigurationProperties(prefix = "cardplatform.wal")
+public record WalProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("data/wal") Path directory,
+        @DefaultValue("64MB") DataSize compactAbove,
+        @DefaultValue("1m") Duration compactionInterval
+) {
+}
@@ -0,0 +1,124 @@
+package com.nium.cardplatform.controller;
+
+import com.nium.cardplatform.dto.ApiErrorResponse;
+import com.nium.cardplatform.dto.CardResponse;
+import com.nium.cardplatform.dto.ReconciliationReport;
+import com.nium.cardplatform.dto.StatementRunReport;
+import com.nium.cardplatform.service.CardService;
+import com.nium.cardplatform.service.ReconciliationService;
+import com.nium.cardplatform.service.StatementService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+@Tag(
+        name = "Admin",
+        description = "Operational jobs (ledger reconciliation, card statements, sharding of hot card balances)."
+)
+@RestController
+@RequestMapping("/admin")
+public class AdminController {
+
+    private final ReconciliationService reconciliationService;
+    private final StatementService statementService;
+    private final CardService cardService;
+
+    public AdminController(ReconciliationService reconciliationService, StatementService statementService, CardService cardService) {
+        this.reconciliationService = reconciliationService;
+        this.statementService = statementService;
+        this.cardService = cardService;
+    }
+
+    @Operation(
+            summary = "Run ledger reconciliation",
+            description = "Verifies every card's balance against the net of its transactions (TOPUP and TRANSFER_IN add, SPEND and TRANSFER_OUT subtract) and reports mismatches and throughput. "
+                    + "Waits for a scheduled run that is already in progress."
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Reconciliation finished",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ReconciliationReport.class))
+            )
+    })
+    @PostMapping("/reconciliation")
+    public ResponseEntity<ReconciliationReport> reconcile() {
+        return ResponseEntity.ok(reconciliationService.reconcile());
+    }
+
+    @Operation(
+            summary = "Generate card statements",
+            description = "Writes one gzip-compressed CSV statement per card for the given days (opening balance, each transaction with "
+                    + "the running balance, closing balance) under cardplatform.statements.directory. Transactions are streamed per card, "
+                    + "several cards at a time. Rerunning a period overwrites its statements; waits for a run that is already in progress."
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Statements written",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = StatementRunReport.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "from is after to",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiErrorResponse.class))
+            )
+    })
+    @PostMapping("/statements")
+    public ResponseEntity<StatementRunReport> generateStatements(
+            @Parameter(description = "First day of the period (ISO-8601)", required = true, example = "2025-07-01")
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last day of the period, inclusive (ISO-8601)", required = true, example = "2025-07-31")
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        return ResponseEntity.ok(statementService.generate(from, to));
+    }
+
+    @Operation(
+            summary = "Shard a card's balance",
+            description = "Splits the card's balance evenly into the given number of sub-balance slots that concurrent spends and top-ups "
+                    + "write independently, for cards too hot for a single balance row. Slots are rebalanced when a spend no single slot covers; "
+                    + "the card's reported balance is their sum. 0 moves the balance back onto the card."
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Balance resharded",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = CardResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Slot count out of range",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiErrorResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Card not found",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiErrorResponse.class))
+            )
+    })
+    @PutMapping("/cards/{id}/balance-slots")
+    public ResponseEntity<CardResponse> setBalanceSlots(
+            @Parameter(description = "UUID of the card", required = true, example = "d290f1ee-6c54-4b01-90e6-d701748f0851")
+            @PathVariable("id") UUID cardId,
+            @Parameter(description = "Number of sub-balance slots (0-64)", required = true, example = "8")
+            @RequestParam("slots") int slots
+    ) {
+        return ResponseEntity.ok(cardService.setBalanceSlots(cardId, slots));
+    }
+}
@@ -1,19 +1,26 @@
 package com.nium.cardplatform.controller;
 
 import com.nium.cardplatform.dto.*;
+import com.nium.cardplatform.service.AsyncCardService;
+import com.nium.cardplatform.service.BulkStatusService;
 import com.nium.cardplatform.service.CardService;
+import com.nium.cardplatform.service.TransactionPage;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.headers.Header;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import io.swagger.v3.oas.annotations.responses.*;
 import io.swagger.v3.oas.annotations.media.*;
 
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @Tag(
         name = "Cards",
@@ -23,10 +30,17 @@ import java.util.UUID;
 @RequestMapping("/cards")
 public class CardController {
 
+    static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    static final String LAST_TRANSACTION_AT_HEADER = "X-Last-Transaction-At";
+
     private final CardService service;
+    private final AsyncCardService asyncService;
+    private final BulkStatusService bulkStatusService;
 
-    public CardController(CardService service) {
+    public CardController(CardService service, AsyncCardService asyncService, BulkStatusService bulkStatusService) {
         this.service = service;
+        this.asyncService = asyncService;
+        this.bulkStatusService = bulkStatusService;
     }
 
     @Operation(
@@ -106,6 +120,15 @@ public class CardController {
                                     value = "{ \"timestamp\": \"2025-07-24T17:45:31.123\", \"status\": 429, \"error\": \"Too Many Requests\", \"message\": \"Max 5 spends per minute exceeded for card: d290f1ee-6c54-4b01-90e6-d701748f0851\" }"
                             )
                     )
+            ),
+            @ApiResponse(
+                    responseCode = "503",
+                    description = "Load shed by the adaptive concurrency limit (see Retry-After)",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiErrorResponse.class),
+                            examples = @ExampleObject(
+                                    value = "{ \"timestamp\": \"2025-07-24T17:45:31.123\", \"status\": 503, \"error\": \"Service Unavailable\", \"message\": \"Server is overloaded, try again later.\" }"
+                            )
+                    )
             )
     })
     @PostMapping("/{id}/spend")
@@ -158,6 +181,15 @@ public class CardController {
                                     value = "{ \"timestamp\": \"2025-07-24T17:45:31.123\", \"status\": 409, \"error\": \"Conflict\", \"message\": \"Concurrent modification detected, try again.\" }"
                             )
                     )
+            ),
+            @ApiResponse(
+                    responseCode = "503",
+                    description = "Load shed by the adaptive concurrency limit (see Retry-After)",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiErrorResponse.class),
+                            examples = @ExampleObject(
+                                    value = "{ \"timestamp\": \"2025-07-24T17:45:31.123\", \"status\": 503, \"error\": \"Service Unavailable\", \"message\": \"Server is overloaded, try again later.\" }"
+                            )
+                    )
             )
     })
     @PostMapping("/{id}/topup")
@@ -178,15 +210,188 @@ public class CardController {
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
+    @Operation(
+            summary = "Transfer to another card",
+            description = "Moves an amount from the card to another card in one transaction: the card is debited (TRANSFER_OUT) and the target credited (TRANSFER_IN), "
+                    + "or neither. Both cards must be active; the debit counts against the card's spend limits."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "204", description = "Transfer successful"),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid amount or target, or business rule error",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiErrorResponse.class),
+                            examples = @ExampleObject(
+                                    value = "{ \"timestamp\": \"2025-07-24T17:45:31.123\", \"status\": 400, \"error\": \"Bad Request\", \"message\": \"Cannot transfer to the same card.\" }"
+                            )
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Card or target card not found",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiErrorResponse.class),
+                            examples = @ExampleObject(
+                                    value = "{ \"timestamp\": \"2025-07-24T17:45:31.123\", \"status\": 404, \"error\": \"Not Found\", \"message\": \"Card not found: d290f1ee-6c54-4b01-90e6-d701748f0851\" }"
+                            )
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "409",
+                    description = "Timed out waiting for one of the cards",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiErrorResponse.class),
+                            examples = @ExampleObject(
+                                    value = "{ \"timestamp\": \"2025-07-24T17:45:31.123\", \"status\": 409, \"error\": \"Conflict\", \"message\": \"Card is busy, try again.\" }"
+                            )
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "429",
+                    description = "Rate limit of the card exceeded",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiErrorResponse.class),
+                            examples = @ExampleObject(
+                                    value = "{ \"timestamp\": \"2025-07-24T17:45:31.123\", \"status\": 429, \"error\": \"Too Many Requests\", \"message\": \"Max 5 spends per minute exceeded for card: d290f1ee-6c54-4b01-90e6-d701748f0851\" }"
+                            )
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "503",
+                    description = "Load shed by the adaptive concurrency limit (see Retry-After)",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiErrorResponse.class),
+                            examples = @ExampleObject(
+                                    value = "{ \"timestamp\": \"2025-07-24T17:45:31.123\", \"status\": 503, \"error\": \"Service Unavailable\", \"message\": \"Server is overloaded, try again later.\" }"
+                            )
+                    )
+            )
+    })
+    @PostMapping("/{id}/transfer")
+    public ResponseEntity<Void> transfer(
+            @Parameter(description = "UUID of the card to debit", required = true, example = "d290f1ee-6c54-4b01-90e6-d701748f0851")
+            @PathVariable("id") UUID cardId,
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    description = "Target card and amount to transfer (must be > 0)",
+                    required = true,
+                    content = @Content(
+                            schema = @Schema(implementation = TransferRequest.class),
+                            examples = @ExampleObject(value = "{ \"toCardId\": \"7c9e6679-7425-40de-944b-e07fc1f90ae7\", \"amount\": 30.0 }")
+                    )
+            )
+            @RequestBody TransferRequest req
+    ) {
+        service.transfer(cardId, req);
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+
+    @Operation(
+            summary = "Spend from card (async)",
+            description = "Same rules as the spend endpoint, but executed on a dedicated bounded executor so the request thread is released while the database works."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "204", description = "Spend successful"),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid amount or business rule error",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiErrorResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Card not found",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiErrorResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "409",
+                    description = "Optimistic concurrency conflict",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiErrorResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "429",
+                    description = "Rate limit exceeded",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiErrorResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "503",
+                    description = "Executor saturated or operation timed out",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiErrorResponse.class),
+                            examples = @ExampleObject(
+                                    value = "{ \"timestamp\": \"2025-07-24T17:45:31.123\", \"status\": 503, \"error\": \"Service Unavailable\", \"message\": \"Server is busy, try again later.\" }"
+                            )
+                    )
+            )
+    })
+    @PostMapping("/{id}/spend/async")
+    public CompletableFuture<ResponseEntity<Void>> spendAsync(
+            @Parameter(description = "UUID of the card", required = true, example = "d290f1ee-6c54-4b01-90e6-d701748f0851")
+            @PathVariable("id") UUID cardId,
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    description = "Amount to spend (must be > 0)",
+                    required = true,
+                    content = @Content(
+                            schema = @Schema(implementation = SpendRequest.class),
+                            examples = @ExampleObject(value = "{ \"amount\": 30.0 }")
+                    )
+            )
+            @RequestBody SpendRequest req
+    ) {
+        return asyncService.spend(cardId, req)
+                .thenApply(v -> new ResponseEntity<>(HttpStatus.NO_CONTENT));
+    }
+
+    @Operation(
+            summary = "Top up card (async)",
+            description = "Same rules as the top-up endpoint, but executed on a dedicated bounded executor so the request thread is released while the database works."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "204", description = "Top-up successful"),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid amount",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiErrorResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Card not found",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiErrorResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "409",
+                    description = "Optimistic concurrency conflict",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiErrorResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "503",
+                    description = "Executor saturated or operation timed out",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiErrorResponse.class))
+            )
+    })
+    @PostMapping("/{id}/topup/async")
+    public CompletableFuture<ResponseEntity<Void>> topupAsync(
+            @Parameter(description = "UUID of the card", required = true, example = "d290f1ee-6c54-4b01-90e6-d701748f0851")
+            @PathVariable("id") UUID cardId,
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    description = "Amount to top up (must be > 0)",
+                    required = true,
+                    content = @Content(
+                            schema = @Schema(implementation = TopupRequest.class),
+                            examples = @ExampleObject(value = "{ \"amount\": 50.0 }")
+                    )
+            )
+            @RequestBody TopupRequest req
+    ) {
+        return asyncService.topup(cardId, req)
+                .thenApply(v -> new ResponseEntity<>(HttpStatus.NO_CONTENT));
+    }
+
     @Operation(
             summary = "Get card details",
-            description = "Retrieves information about the card, including balance, status, and creation date."
+            description = "Retrieves information about the card, including balance, status, and creation date. Send Accept: application/cbor for a compact binary encoding."
     )
     @ApiResponses({
             @ApiResponse(
                     responseCode = "200",
                     description = "Card found",
-                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = CardResponse.class))
+                    content = {
+                            @Content(mediaType = "application/json", schema = @Schema(implementation = CardResponse.class)),
+                            @Content(mediaType = "application/cbor", schema = @Schema(implementation = CardResponse.class))
+                    }
             ),
             @ApiResponse(
                     responseCode = "404",
@@ -207,15 +412,70 @@ public class CardController {
         return ResponseEntity.ok(resp);
     }
 
+    @Operation(
+            summary = "Search cards",
+            description = "Lists cards newest first, optionally filtered by status, cardholder name prefix and creation time range "
+                    + "(createdFrom inclusive, createdTo exclusive). Follow nextCursor to fetch the next page."
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Page of cards returned",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = CardPageResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid filter, limit or cursor",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiErrorResponse.class),
+                            examples = @ExampleObject(
+                                    value = "{ \"timestamp\": \"2025-07-24T17:45:31.123\", \"status\": 400, \"error\": \"Bad Request\", \"message\": \"Invalid cursor.\" }"
+                            )
+                    )
+            )
+    })
+    @GetMapping
+    public ResponseEntity<CardPageResponse> searchCards(
+            @Parameter(description = "Card status (ACTIVE or BLOCKED)", example = "ACTIVE")
+            @RequestParam(name = "status", required = false) String status,
+            @Parameter(description = "Cardholder name prefix (case-sensitive)", example = "Ali")
+            @RequestParam(name = "namePrefix", required = false) String namePrefix,
+            @Parameter(description = "Created at or after (ISO-8601)", example = "2025-07-01T00:00:00")
+            @RequestParam(name = "createdFrom", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+            @Parameter(description = "Created before (ISO-8601)", example = "2025-08-01T00:00:00")
+            @RequestParam(name = "createdTo", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo,
+            @Parameter(description = "Page size (1-200)", example = "50")
+            @RequestParam(name = "limit", defaultValue = "50") int limit,
+            @Parameter(description = "nextCursor from the previous page")
+            @RequestParam(name = "cursor", required = false) String cursor
+    ) {
+        return ResponseEntity.ok(service.searchCards(status, namePrefix, createdFrom, createdTo, limit, cursor));
+    }
+
     @Operation(
             summary = "List card transactions",
-            description = "Returns a paginated list of transactions for the specified card."
+            description = "Returns a paginated list of transactions for the specified card. Send Accept: application/cbor for a compact binary encoding."
     )
     @ApiResponses({
             @ApiResponse(
                     responseCode = "200",
                     description = "Transaction list returned",
-                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = TransactionResponse.class)))
+                    headers = {
+                            @Header(name = TOTAL_COUNT_HEADER, description = "Total number of transactions of the card", schema = @Schema(type = "integer")),
+                            @Header(name = LAST_TRANSACTION_AT_HEADER, description = "Timestamp of the card's latest transaction (absent when there is none)", schema = @Schema(type = "string"))
+                    },
+                    content = {
+                            @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = TransactionResponse.class))),
+                            @Content(mediaType = "application/cbor", array = @ArraySchema(schema = @Schema(implementation = TransactionResponse.class)))
+                    }
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid limit or offset",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiErrorResponse.class),
+                            examples = @ExampleObject(
+                                    value = "{ \"timestamp\": \"2025-07-24T17:45:31.123\", \"status\": 400, \"error\": \"Bad Request\", \"message\": \"Limit must be between 1 and 200.\" }"
+                            )
+                    )
             ),
             @ApiResponse(
                     responseCode = "404",
@@ -231,13 +491,18 @@ public class CardController {
     public ResponseEntity<List<TransactionResponse>> getTransactions(
             @Parameter(description = "UUID of the card", required = true, example = "d290f1ee-6c54-4b01-90e6-d701748f0851")
             @PathVariable("id") UUID cardId,
-            @Parameter(description = "Page limit", example = "10")
+            @Parameter(description = "Page limit (1-200)", example = "10")
             @RequestParam(name = "limit", defaultValue = "10") int limit,
-            @Parameter(description = "Offset for pagination", example = "0")
+            @Parameter(description = "Offset for pagination (0 or more)", example = "0")
             @RequestParam(name = "offset", defaultValue = "0") int offset
     ) {
-        List<TransactionResponse> txs = service.getTransactions(cardId, limit, offset);
-        return ResponseEntity.ok(txs);
+        TransactionPage page = service.getTransactionPage(cardId, limit, offset);
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok()
+                .header(TOTAL_COUNT_HEADER, String.valueOf(page.totalCount()));
+        if (page.lastTransactionAt() != null) {
+            ok.header(LAST_TRANSACTION_AT_HEADER, page.lastTransactionAt().toString());
+        }
+        return ok.body(page.items());
     }
 
     @Operation(
@@ -289,4 +554,40 @@ public class CardController {
         service.unblockCard(cardId);
         return ResponseEntity.noContent().build();
     }
+
+    @Operation(
+            summary = "Block or unblock many cards",
+            description = "Sets the status of the cards given by id, or of all cards matching the filter, in chunks of set-based updates. "
+                    + "Cards already in the target status are skipped, so the call can be safely repeated."
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Status applied",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = BulkStatusResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid status, or neither/both of ids and filter given",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiErrorResponse.class),
+                            examples = @ExampleObject(
+                                    value = "{ \"timestamp\": \"2025-07-24T17:45:31.123\", \"status\": 400, \"error\": \"Bad Request\", \"message\": \"Status must be ACTIVE or BLOCKED.\" }"
+                            )
+                    )
+            )
+    })
+    @PostMapping("/status")
+    public ResponseEntity<BulkStatusResponse> changeStatus(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    description = "Target status and the cards to apply it to",
+                    required = true,
+                    content = @Content(
+                            schema = @Schema(implementation = BulkStatusRequest.class),
+                            examples = @ExampleObject(value = "{ \"status\": \"BLOCKED\", \"cardIds\": [\"d290f1ee-6c54-4b01-90e6-d701748f0851\"] }")
+                    )
+            )
+            @RequestBody BulkStatusRequest req
+    ) {
+        return ResponseEntity.ok(bulkStatusService.changeStatus(req));
+    }
 }
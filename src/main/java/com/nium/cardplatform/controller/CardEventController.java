@@ -0,0 +1,69 @@
+package com.nium.cardplatform.controller;
+
+import com.nium.cardplatform.dto.ApiErrorResponse;
+import com.nium.cardplatform.dto.CardEvent;
+import com.nium.cardplatform.service.CardEventBroadcaster;
+import com.nium.cardplatform.service.CardService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.UUID;
+
+@Tag(
+        name = "Cards",
+        description = "APIs for creating, managing, blocking, and transacting with virtual cards."
+)
+@RestController
+@RequestMapping("/cards")
+public class CardEventController {
+
+    private final CardService service;
+    private final CardEventBroadcaster broadcaster;
+
+    public CardEventController(CardService service, CardEventBroadcaster broadcaster) {
+        this.service = service;
+        this.broadcaster = broadcaster;
+    }
+
+    @Operation(
+            summary = "Stream card changes",
+            description = "Server-Sent Events stream of every event for the card (CARD_CREATED, SPEND, TOPUP, TRANSFER_OUT, "
+                    + "TRANSFER_IN, CARD_BLOCKED and CARD_UNBLOCKED), each carrying the balance and status after the change. "
+                    + "Slow consumers are disconnected and should reconnect."
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Event stream opened",
+                    content = @Content(mediaType = "text/event-stream", schema = @Schema(implementation = CardEvent.class))
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Card not found",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiErrorResponse.class),
+                            examples = @ExampleObject(
+                                    value = "{ \"timestamp\": \"2025-07-24T17:45:31.123\", \"status\": 404, \"error\": \"Not Found\", \"message\": \"Card not found: d290f1ee-6c54-4b01-90e6-d701748f0851\" }"
+                            )
+                    )
+            )
+    })
+    @GetMapping("/{id}/events")
+    public SseEmitter streamEvents(
+            @Parameter(description = "UUID of the card", required = true, example = "d290f1ee-6c54-4b01-90e6-d701748f0851")
+            @PathVariable("id") UUID cardId
+    ) {
+        service.getCard(cardId); // 404 for unknown cards
+        return broadcaster.subscribe(cardId);
+    }
+}
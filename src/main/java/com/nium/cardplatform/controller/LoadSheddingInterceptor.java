@@ -0,0 +1,55 @@
+package com.nium.cardplatform.controller;
+
+import com.nium.cardplatform.exception.ServiceOverloadedException;
+import com.nium.cardplatform.service.AdaptiveConcurrencyLimiter;
+import com.nium.cardplatform.service.AdaptiveConcurrencyLimiter.Permit;
+import com.nium.cardplatform.service.AdaptiveConcurrencyLimiter.Priority;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.util.regex.Pattern;
+
+// Admits card requests through the adaptive concurrency limit; shed requests become
+// 503 + Retry-After via GlobalExceptionHandler before any body is read or connection taken
+public class LoadSheddingInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String PERMIT_ATTRIBUTE = LoadSheddingInterceptor.class.getName() + ".permit";
+    private static final Pattern MONEY_MOVEMENT = Pattern.compile("/cards/[^/]+/(spend|topup|transfer)(/async)?");
+
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    public LoadSheddingInterceptor(AdaptiveConcurrencyLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // Async endpoints are dispatched twice; the permit taken on the first dispatch is still held
+        if (request.getAttribute(PERMIT_ATTRIBUTE) != null) return true;
+
+        Permit permit = limiter.tryAcquire(priorityOf(request));
+        if (permit == null) {
+            long retryAfter = Math.max(1, limiter.getRetryAfter().toSeconds());
+            throw new ServiceOverloadedException("Server is overloaded, try again later.", retryAfter);
+        }
+        request.setAttribute(PERMIT_ATTRIBUTE, permit);
+        return true;
+    }
+
+    // Not called while an async request is still running, only after its final dispatch
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Permit permit = (Permit) request.getAttribute(PERMIT_ATTRIBUTE);
+        if (permit == null) return;
+        request.removeAttribute(PERMIT_ATTRIBUTE);
+        permit.release(ex != null || response.getStatus() >= 500);
+    }
+
+    static Priority priorityOf(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return "POST".equals(request.getMethod()) && MONEY_MOVEMENT.matcher(path).matches()
+                ? Priority.CRITICAL
+                : Priority.STANDARD;
+    }
+}
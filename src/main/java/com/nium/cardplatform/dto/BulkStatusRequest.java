@@ -0,0 +1,86 @@
+package com.nium.cardplatform.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Schema(description = "Status change for many cards, selected either by id or by filter (not both)")
+public class BulkStatusRequest {
+    @Schema(
+            description = "Target status: BLOCKED or ACTIVE",
+            example = "BLOCKED"
+    )
+    private String status;
+
+    @Schema(description = "Cards to change (up to 100000)")
+    private List<UUID> cardIds;
+
+    @Schema(
+            description = "Filter: cardholder name prefix (case-sensitive)",
+            example = "Ali"
+    )
+    private String namePrefix;
+
+    @Schema(
+            description = "Filter: created at or after (ISO-8601)",
+            example = "2025-07-01T00:00:00"
+    )
+    private LocalDateTime createdFrom;
+
+    @Schema(
+            description = "Filter: created before (ISO-8601)",
+            example = "2025-08-01T00:00:00"
+    )
+    private LocalDateTime createdTo;
+
+    public BulkStatusRequest() {} // Default constructor for deserialization
+
+    public BulkStatusRequest(String status, List<UUID> cardIds) {
+        this.status = status;
+        this.cardIds = cardIds;
+    }
+
+    // Getters and setters
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public List<UUID> getCardIds() {
+        return cardIds;
+    }
+
+    public void setCardIds(List<UUID> cardIds) {
+        this.cardIds = cardIds;
+    }
+
+    public String getNamePrefix() {
+        return namePrefix;
+    }
+
+    public void setNamePrefix(String namePrefix) {
+        this.namePrefix = namePrefix;
+    }
+
+    public LocalDateTime getCreatedFrom() {
+        return createdFrom;
+    }
+
+    public void setCreatedFrom(LocalDateTime createdFrom) {
+        this.createdFrom = createdFrom;
+    }
+
+    public LocalDateTime getCreatedTo() {
+        return createdTo;
+    }
+
+    public void setCreatedTo(LocalDateTime createdTo) {
+        this.createdTo = createdTo;
+    }
+}
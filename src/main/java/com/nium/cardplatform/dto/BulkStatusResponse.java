@@ -0,0 +1,70 @@
+package com.nium.cardplatform.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+import java.util.UUID;
+
+@Schema(description = "Outcome of a bulk status change")
+public class BulkStatusResponse {
+    @Schema(
+            description = "Status that was applied",
+            example = "BLOCKED"
+    )
+    private String status;
+
+    @Schema(
+            description = "Number of cards whose status changed",
+            example = "2"
+    )
+    private int changedCount;
+
+    @Schema(description = "Cards whose status changed (cards already in the target status are not listed)")
+    private List<UUID> changed;
+
+    @Schema(description = "Requested ids that do not exist (always empty for filter requests)")
+    private List<UUID> notFound;
+
+    public BulkStatusResponse() {} // Default constructor for deserialization
+
+    public BulkStatusResponse(String status, List<UUID> changed, List<UUID> notFound) {
+        this.status = status;
+        this.changedCount = changed.size();
+        this.changed = changed;
+        this.notFound = notFound;
+    }
+
+    // Getters and setters
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public int getChangedCount() {
+        return changedCount;
+    }
+
+    public void setChangedCount(int changedCount) {
+        this.changedCount = changedCount;
+    }
+
+    public List<UUID> getChanged() {
+        return changed;
+    }
+
+    public void setChanged(List<UUID> changed) {
+        this.changed = changed;
+    }
+
+    public List<UUID> getNotFound() {
+        return notFound;
+    }
+
+    public void setNotFound(List<UUID> notFound) {
+        this.notFound = notFound;
+    }
+}
@@ -0,0 +1,107 @@
+package com.nium.cardplatform.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Schema(description = "Change to a card (creation, spend, top-up, transfer, block or unblock)")
+public class CardEvent {
+    @Schema(
+            description = "Event type: CARD_CREATED, SPEND, TOPUP, TRANSFER_OUT, TRANSFER_IN, CARD_BLOCKED or CARD_UNBLOCKED",
+            example = "SPEND"
+    )
+    private String type;
+
+    @Schema(
+            description = "Card the event belongs to",
+            example = "d290f1ee-6c54-4b01-90e6-d701748f0851"
+    )
+    private UUID cardId;
+
+    @Schema(
+            description = "Transaction amount (only for SPEND, TOPUP, TRANSFER_OUT, TRANSFER_IN and CARD_CREATED)",
+            example = "20.00"
+    )
+    private BigDecimal amount;
+
+    @Schema(
+            description = "Card balance after the change",
+            example = "100.50"
+    )
+    private BigDecimal balance;
+
+    @Schema(
+            description = "Card status after the change",
+            example = "ACTIVE"
+    )
+    private String status;
+
+    @Schema(
+            description = "When the change happened (ISO-8601)",
+            example = "2025-07-24T16:39:17.425"
+    )
+    private LocalDateTime occurredAt;
+
+    public CardEvent() {} // Default constructor for deserialization
+
+    public CardEvent(String type, UUID cardId, BigDecimal amount, BigDecimal balance, String status, LocalDateTime occurredAt) {
+        this.type = type;
+        this.cardId = cardId;
+        this.amount = amount;
+        this.balance = balance;
+        this.status = status;
+        this.occurredAt = occurredAt;
+    }
+
+    // Getters and setters
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public UUID getCardId() {
+        return cardId;
+    }
+
+    public void setCardId(UUID cardId) {
+        this.cardId = cardId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    public void setBalance(BigDecimal balance) {
+        this.balance = balance;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public LocalDateTime getOccurredAt() {
+        return occurredAt;
+    }
+
+    public void setOccurredAt(LocalDateTime occurredAt) {
+        this.occurredAt = occurredAt;
+    }
+}
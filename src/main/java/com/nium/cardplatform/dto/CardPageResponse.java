@@ -0,0 +1,42 @@
+package com.nium.cardplatform.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "One page of card search results, newest first")
+public class CardPageResponse {
+    @Schema(description = "Cards on this page")
+    private List<CardResponse> items;
+
+    @Schema(
+            description = "Opaque cursor for the next page (pass as ?cursor=), null on the last page",
+            example = "MjAyNS0wNy0yNFQxNjozNDowOS4xODd8ZDI5MGYxZWUtNmM1NC00YjAxLTkwZTYtZDcwMTc0OGYwODUx"
+    )
+    private String nextCursor;
+
+    public CardPageResponse() {} // Default constructor for deserialization
+
+    public CardPageResponse(List<CardResponse> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters and setters
+
+    public List<CardResponse> getItems() {
+        return items;
+    }
+
+    public void setItems(List<CardResponse> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
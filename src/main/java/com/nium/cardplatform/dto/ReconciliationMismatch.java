@@ -0,0 +1,52 @@
+package com.nium.cardplatform.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Schema(description = "Card whose balance differs from the net of its transactions")
+public class ReconciliationMismatch {
+    @Schema(description = "Card id", example = "d290f1ee-6c54-4b01-90e6-d701748f0851")
+    private UUID cardId;
+
+    @Schema(description = "Balance stored on the card", example = "100.50")
+    private BigDecimal balance;
+
+    @Schema(description = "Sum of TOPUP minus sum of SPEND transactions", example = "90.50")
+    private BigDecimal ledgerNet;
+
+    public ReconciliationMismatch() {} // Default constructor for deserialization
+
+    public ReconciliationMismatch(UUID cardId, BigDecimal balance, BigDecimal ledgerNet) {
+        this.cardId = cardId;
+        this.balance = balance;
+        this.ledgerNet = ledgerNet;
+    }
+
+    // Getters and setters
+
+    public UUID getCardId() {
+        return cardId;
+    }
+
+    public void setCardId(UUID cardId) {
+        this.cardId = cardId;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    public void setBalance(BigDecimal balance) {
+        this.balance = balance;
+    }
+
+    public BigDecimal getLedgerNet() {
+        return ledgerNet;
+    }
+
+    public void setLedgerNet(BigDecimal ledgerNet) {
+        this.ledgerNet = ledgerNet;
+    }
+}
@@ -0,0 +1,89 @@
+package com.nium.cardplatform.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Schema(description = "Outcome of a ledger reconciliation run")
+public class ReconciliationReport {
+    @Schema(description = "When the run started (ISO-8601)", example = "2025-07-24T03:00:00.000")
+    private LocalDateTime startedAt;
+
+    @Schema(description = "Cards verified", example = "1000000")
+    private long cardsChecked;
+
+    @Schema(description = "Cards whose balance did not match their transactions (after a consistent re-check)", example = "0")
+    private long mismatchCount;
+
+    @Schema(description = "Mismatching cards, capped at cardplatform.reconciliation.max-reported-mismatches")
+    private List<ReconciliationMismatch> mismatches;
+
+    @Schema(description = "Wall-clock duration of the run in milliseconds", example = "95000")
+    private long durationMillis;
+
+    @Schema(description = "Cards verified per second", example = "10526.3")
+    private double cardsPerSecond;
+
+    public ReconciliationReport() {} // Default constructor for deserialization
+
+    public ReconciliationReport(LocalDateTime startedAt, long cardsChecked, long mismatchCount,
+                                List<ReconciliationMismatch> mismatches, long durationMillis) {
+        this.startedAt = startedAt;
+        this.cardsChecked = cardsChecked;
+        this.mismatchCount = mismatchCount;
+        this.mismatches = mismatches;
+        this.durationMillis = durationMillis;
+        this.cardsPerSecond = durationMillis == 0 ? cardsChecked : cardsChecked * 1000.0 / durationMillis;
+    }
+
+    // Getters and setters
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public long getCardsChecked() {
+        return cardsChecked;
+    }
+
+    public void setCardsChecked(long cardsChecked) {
+        this.cardsChecked = cardsChecked;
+    }
+
+    public long getMismatchCount() {
+        return mismatchCount;
+    }
+
+    public void setMismatchCount(long mismatchCount) {
+        this.mismatchCount = mismatchCount;
+    }
+
+    public List<ReconciliationMismatch> getMismatches() {
+        return mismatches;
+    }
+
+    public void setMismatches(List<ReconciliationMismatch> mismatches) {
+        this.mismatches = mismatches;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public void setDurationMillis(long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+
+    public double getCardsPerSecond() {
+        return cardsPerSecond;
+    }
+
+    public void setCardsPerSecond(double cardsPerSecond) {
+        this.cardsPerSecond = cardsPerSecond;
+    }
+}
@@ -0,0 +1,112 @@
+package com.nium.cardplatform.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalDate;
+
+@Schema(description = "Outcome of a statement run")
+public class StatementRunReport {
+    @Schema(description = "First day of the statement period", example = "2025-07-01")
+    private LocalDate from;
+
+    @Schema(description = "Last day of the statement period (inclusive)", example = "2025-07-31")
+    private LocalDate to;
+
+    @Schema(description = "Directory holding one <cardId>.csv.gz per card", example = "data/statements/2025-07-01_2025-07-31")
+    private String directory;
+
+    @Schema(description = "Statements written, one per card existing at the end of the period", example = "1000000")
+    private long cardsWritten;
+
+    @Schema(description = "Transactions written across all statements", example = "25000000")
+    private long transactionsWritten;
+
+    @Schema(description = "Compressed bytes written", example = "734003200")
+    private long bytesWritten;
+
+    @Schema(description = "Wall-clock duration of the run in milliseconds", example = "1800000")
+    private long durationMillis;
+
+    @Schema(description = "Statements written per second", example = "555.6")
+    private double cardsPerSecond;
+
+    public StatementRunReport() {} // Default constructor for deserialization
+
+    public StatementRunReport(LocalDate from, LocalDate to, String directory, long cardsWritten, long transactionsWritten,
+                              long bytesWritten, long durationMillis) {
+        this.from = from;
+        this.to = to;
+        this.directory = directory;
+        this.cardsWritten = cardsWritten;
+        this.transactionsWritten = transactionsWritten;
+        this.bytesWritten = bytesWritten;
+        this.durationMillis = durationMillis;
+        this.cardsPerSecond = durationMillis == 0 ? cardsWritten : cardsWritten * 1000.0 / durationMillis;
+    }
+
+    // Getters and setters
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDate from) {
+        this.from = from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDate to) {
+        this.to = to;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public long getCardsWritten() {
+        return cardsWritten;
+    }
+
+    public void setCardsWritten(long cardsWritten) {
+        this.cardsWritten = cardsWritten;
+    }
+
+    public long getTransactionsWritten() {
+        return transactionsWritten;
+    }
+
+    public void setTransactionsWritten(long transactionsWritten) {
+        this.transactionsWritten = transactionsWritten;
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    public void setBytesWritten(long bytesWritten) {
+        this.bytesWritten = bytesWritten;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public void setDurationMillis(long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+
+    public double getCardsPerSecond() {
+        return cardsPerSecond;
+    }
+
+    public void setCardsPerSecond(double cardsPerSecond) {
+        this.cardsPerSecond = cardsPerSecond;
+    }
+}
@@ -21,7 +21,7 @@ public class TransactionResponse {
     private UUID cardId;
 
     @Schema(
-            description = "Transaction type: TOPUP or SPEND",
+            description = "Transaction type: TOPUP, SPEND, TRANSFER_IN or TRANSFER_OUT",
             example = "SPEND"
     )
     private String type;
@@ -0,0 +1,47 @@
+package com.nium.cardplatform.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Schema(description = "Request to move funds from the card to another card")
+public class TransferRequest {
+    @Schema(
+            description = "Card receiving the funds",
+            example = "7c9e6679-7425-40de-944b-e07fc1f90ae7"
+    )
+    private UUID toCardId;
+
+    @Schema(
+            description = "Amount to transfer. Must be greater than zero.",
+            example = "30.00",
+            minimum = "0.01"
+    )
+    private BigDecimal amount;
+
+    public TransferRequest() {} // Default constructor for deserialization
+
+    public TransferRequest(UUID toCardId, BigDecimal amount) {
+        this.toCardId = toCardId;
+        this.amount = amount;
+    }
+
+    // Getters and setters
+
+    public UUID getToCardId() {
+        return toCardId;
+    }
+
+    public void setToCardId(UUID toCardId) {
+        this.toCardId = toCardId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+}
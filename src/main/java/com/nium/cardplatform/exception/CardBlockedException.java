@@ -1,6 +1,6 @@
 package com.nium.cardplatform.exception;
 
-public class CardBlockedException extends RuntimeException {
+public class CardBlockedException extends DomainRejectionException {
     public CardBlockedException(String message) {
         super(message);
     }
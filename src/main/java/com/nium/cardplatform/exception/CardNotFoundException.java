@@ -1,6 +1,6 @@
 package com.nium.cardplatform.exception;
 
-public class CardNotFoundException extends RuntimeException {
+public class CardNotFoundException extends DomainRejectionException {
     public CardNotFoundException(String message) {
         super(message);
     }
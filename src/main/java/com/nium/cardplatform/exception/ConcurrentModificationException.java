@@ -1,6 +1,6 @@
 package com.nium.cardplatform.exception;
 
-public class ConcurrentModificationException extends RuntimeException {
+public class ConcurrentModificationException extends DomainRejectionException {
     public ConcurrentModificationException(String message) {
         super(message);
     }
@@ -0,0 +1,10 @@
+package com.nium.cardplatform.exception;
+
+// Base for expected business outcomes (declines, not found, invalid input). They are always handled by
+// GlobalExceptionHandler and never logged with a trace, so no stack trace is captured: throwing one costs
+// about as much as allocating it, which matters because declines are a large share of spend traffic.
+public abstract class DomainRejectionException extends RuntimeException {
+    protected DomainRejectionException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -1,6 +1,8 @@
 package com.nium.cardplatform.exception;
 
 import com.nium.cardplatform.dto.ApiErrorResponse;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -10,6 +12,7 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 import java.time.LocalDateTime;
+import java.util.concurrent.TimeoutException;
 
 @ControllerAdvice
 public class GlobalExceptionHandler {
@@ -39,11 +42,51 @@ public class GlobalExceptionHandler {
         return buildResponse(HttpStatus.BAD_REQUEST, ex.getMessage());
     }
 
+    @ExceptionHandler(InvalidSearchRequestException.class)
+    public ResponseEntity<Object> handleInvalidSearch(InvalidSearchRequestException ex) {
+        return buildResponse(HttpStatus.BAD_REQUEST, ex.getMessage());
+    }
+
+    @ExceptionHandler(InvalidBulkRequestException.class)
+    public ResponseEntity<Object> handleInvalidBulk(InvalidBulkRequestException ex) {
+        return buildResponse(HttpStatus.BAD_REQUEST, ex.getMessage());
+    }
+
+    @ExceptionHandler(InvalidTransferException.class)
+    public ResponseEntity<Object> handleInvalidTransfer(InvalidTransferException ex) {
+        return buildResponse(HttpStatus.BAD_REQUEST, ex.getMessage());
+    }
+
+    @ExceptionHandler(InvalidBalanceSlotsException.class)
+    public ResponseEntity<Object> handleInvalidBalanceSlots(InvalidBalanceSlotsException ex) {
+        return buildResponse(HttpStatus.BAD_REQUEST, ex.getMessage());
+    }
+
+    @ExceptionHandler(InvalidStatementPeriodException.class)
+    public ResponseEntity<Object> handleInvalidStatementPeriod(InvalidStatementPeriodException ex) {
+        return buildResponse(HttpStatus.BAD_REQUEST, ex.getMessage());
+    }
+
     @ExceptionHandler(ConcurrentModificationException.class)
     public ResponseEntity<Object> handleConcurrentModification(ConcurrentModificationException ex) {
         return buildResponse(HttpStatus.CONFLICT, ex.getMessage());
     }
 
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<Object> handleOverloaded(ServiceOverloadedException ex) {
+        return buildRetryLaterResponse(ex.getMessage(), ex.getRetryAfterSeconds());
+    }
+
+    @ExceptionHandler(TaskRejectedException.class)
+    public ResponseEntity<Object> handleTaskRejected(TaskRejectedException ex) {
+        return buildRetryLaterResponse("Server is busy, try again later.");
+    }
+
+    @ExceptionHandler(TimeoutException.class)
+    public ResponseEntity<Object> handleTimeout(TimeoutException ex) {
+        return buildRetryLaterResponse("Card operation timed out, its outcome is unknown.");
+    }
+
     @ExceptionHandler(MethodArgumentTypeMismatchException.class)
     public ResponseEntity<Object> handleTypeMismatch(MethodArgumentTypeMismatchException ex) {
         String message = "Invalid parameter: " + ex.getValue();
@@ -76,4 +119,15 @@ public class GlobalExceptionHandler {
         error.setMessage(message);
         return new ResponseEntity<>(error, status);
     }
+
+    private ResponseEntity<Object> buildRetryLaterResponse(String message) {
+        return buildRetryLaterResponse(message, 1);
+    }
+
+    private ResponseEntity<Object> buildRetryLaterResponse(String message, long retryAfterSeconds) {
+        ResponseEntity<Object> resp = buildResponse(HttpStatus.SERVICE_UNAVAILABLE, message);
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        return new ResponseEntity<>(resp.getBody(), headers, resp.getStatusCode());
+    }
 }
@@ -1,6 +1,6 @@
 package com.nium.cardplatform.exception;
 
-public class InsufficientBalanceException extends RuntimeException {
+public class InsufficientBalanceException extends DomainRejectionException {
     public InsufficientBalanceException(String message) {
         super(message);
     }
@@ -0,0 +1,7 @@
+package com.nium.cardplatform.exception;
+
+public class InvalidBalanceSlotsException extends DomainRejectionException {
+    public InvalidBalanceSlotsException(String message) {
+        super(message);
+    }
+}
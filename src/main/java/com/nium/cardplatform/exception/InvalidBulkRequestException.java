@@ -0,0 +1,7 @@
+package com.nium.cardplatform.exception;
+
+public class InvalidBulkRequestException extends DomainRejectionException {
+    public InvalidBulkRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.nium.cardplatform.exception;
+
+public class InvalidSearchRequestException extends DomainRejectionException {
+    public InvalidSearchRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.nium.cardplatform.exception;
+
+public class InvalidStatementPeriodException extends DomainRejectionException {
+    public InvalidStatementPeriodException(String message) {
+        super(message);
+    }
+}
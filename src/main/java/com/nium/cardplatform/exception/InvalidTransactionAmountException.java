@@ -1,6 +1,6 @@
 package com.nium.cardplatform.exception;
 
-public class InvalidTransactionAmountException extends RuntimeException {
+public class InvalidTransactionAmountException extends DomainRejectionException {
     public InvalidTransactionAmountException(String message) {
       super(message);
     }
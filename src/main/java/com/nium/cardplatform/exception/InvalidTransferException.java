@@ -0,0 +1,7 @@
+package com.nium.cardplatform.exception;
+
+public class InvalidTransferException extends DomainRejectionException {
+    public InvalidTransferException(String message) {
+        super(message);
+    }
+}
@@ -1,6 +1,6 @@
 package com.nium.cardplatform.exception;
 
-public class RateLimitExceededException extends RuntimeException {
+public class RateLimitExceededException extends DomainRejectionException {
     public RateLimitExceededException(String message) {
         super(message);
     }
@@ -0,0 +1,14 @@
+package com.nium.cardplatform.exception;
+
+public class ServiceOverloadedException extends DomainRejectionException {
+    private final long retryAfterSeconds;
+
+    public ServiceOverloadedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,122 @@
+package com.nium.cardplatform.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+import java.util.UUID;
+
+// One spend/top-up/transfer, from the start of CardService's method to the end of its transaction, with the time
+// split per phase. Only operations slower than the threshold are recorded by default; lower it per recording
+// (e.g. -XX:StartFlightRecording:com.nium.cardplatform.CardOperation#threshold=0ms) to see every call.
+// When no recording is running, isEnabled() is false and lap() does not even read the clock.
+@Name("com.nium.cardplatform.CardOperation")
+@Label("Card Operation")
+@Category({"Card Platform", "Operations"})
+@Description("Spend, top-up or transfer with per-phase durations")
+@StackTrace(false)
+@Threshold("5 ms")
+public class CardOperationEvent extends Event {
+
+    public enum Phase {
+        LOAD,       // card read (findById, or the row locks of a transfer)
+        VALIDATE,   // status, amount and balance checks
+        RATE_LIMIT, // count limit and amount velocity
+        UPDATE,     // balance compare-and-swap
+        INSERT,     // transaction row(s)
+        PUBLISH,    // outbox row
+        COMMIT      // from the last completed phase until the transaction committed or rolled back
+    }
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Card Id")
+    String cardId;
+
+    @Label("Amount (minor units)")
+    long amount;
+
+    @Label("Outcome")
+    @Description("OK, or the simple name of the rejection / error")
+    String outcome;
+
+    @Label("Load")
+    @Timespan(Timespan.NANOSECONDS)
+    long loadTime;
+
+    @Label("Validate")
+    @Timespan(Timespan.NANOSECONDS)
+    long validateTime;
+
+    @Label("Rate Limit")
+    @Timespan(Timespan.NANOSECONDS)
+    long rateLimitTime;
+
+    @Label("Update")
+    @Timespan(Timespan.NANOSECONDS)
+    long updateTime;
+
+    @Label("Insert")
+    @Timespan(Timespan.NANOSECONDS)
+    long insertTime;
+
+    @Label("Publish")
+    @Timespan(Timespan.NANOSECONDS)
+    long publishTime;
+
+    @Label("Commit")
+    @Timespan(Timespan.NANOSECONDS)
+    long commitTime;
+
+    private transient long mark;
+
+    public static CardOperationEvent start(String operation, UUID cardId) {
+        CardOperationEvent event = new CardOperationEvent();
+        if (event.isEnabled()) {
+            event.operation = operation;
+            event.cardId = cardId.toString();
+            event.begin();
+            event.mark = System.nanoTime();
+        }
+        return event;
+    }
+
+    public void amount(long amount) {
+        this.amount = amount;
+    }
+
+    // Attributes the time since the previous lap (or start) to the phase
+    public void lap(Phase phase) {
+        if (!isEnabled()) return;
+        long now = System.nanoTime();
+        long elapsed = now - mark;
+        mark = now;
+        switch (phase) {
+            case LOAD -> loadTime += elapsed;
+            case VALIDATE -> validateTime += elapsed;
+            case RATE_LIMIT -> rateLimitTime += elapsed;
+            case UPDATE -> updateTime += elapsed;
+            case INSERT -> insertTime += elapsed;
+            case PUBLISH -> publishTime += elapsed;
+            case COMMIT -> commitTime += elapsed;
+        }
+    }
+
+    public void outcome(Throwable error) {
+        if (isEnabled()) outcome = error == null ? "OK" : error.getClass().getSimpleName();
+    }
+
+    // Ends the event; the time since the last lap counts as COMMIT
+    public void finish() {
+        if (!isEnabled()) return;
+        lap(Phase.COMMIT);
+        end();
+        if (shouldCommit()) commit();
+    }
+}
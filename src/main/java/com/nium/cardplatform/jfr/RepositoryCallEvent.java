@@ -0,0 +1,47 @@
+package com.nium.cardplatform.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+import java.util.UUID;
+
+// One database call on the card hot path (a phase of CardOperationEvent seen from the repository side)
+@Name("com.nium.cardplatform.RepositoryCall")
+@Label("Repository Call")
+@Category({"Card Platform", "Database"})
+@Description("Card/transaction repository call with the rows it read or changed")
+@StackTrace(false)
+@Threshold("5 ms")
+public class RepositoryCallEvent extends Event {
+
+    @Label("Call")
+    String call;
+
+    @Label("Card Id")
+    String cardId;
+
+    @Label("Rows")
+    int rows;
+
+    public static RepositoryCallEvent start(String call, UUID cardId) {
+        RepositoryCallEvent event = new RepositoryCallEvent();
+        if (event.isEnabled()) {
+            event.call = call;
+            event.cardId = cardId == null ? null : cardId.toString();
+            event.begin();
+        }
+        return event;
+    }
+
+    public void finish(int rows) {
+        if (!isEnabled()) return;
+        this.rows = rows;
+        end();
+        if (shouldCommit()) commit();
+    }
+}
@@ -0,0 +1,165 @@
+package com.nium.cardplatform.repository;
+
+import com.nium.cardplatform.jfr.RepositoryCallEvent;
+import com.nium.cardplatform.jooq.tables.records.CardBalanceSlotRecord;
+import com.nium.cardplatform.wal.LedgerJournal;
+import org.jooq.DSLContext;
+import org.jooq.Query;
+import org.jooq.Record2;
+import org.jooq.Record4;
+import org.jooq.exception.DataAccessException;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static com.nium.cardplatform.jooq.tables.Card.CARD;
+import static com.nium.cardplatform.jooq.tables.CardBalanceSlot.CARD_BALANCE_SLOT;
+import static org.jooq.impl.DSL.field;
+import static org.jooq.impl.DSL.max;
+import static org.jooq.impl.DSL.select;
+import static org.jooq.impl.DSL.sum;
+
+@Repository
+public class BalanceSlotRepository {
+    private final DSLContext dsl;
+    private final LedgerJournal journal;
+
+    public BalanceSlotRepository(DSLContext dsl, LedgerJournal journal) {
+        this.dsl = dsl;
+        this.journal = journal;
+    }
+
+    // Slots of a card in slot order (empty when the card is not sharded)
+    public List<CardBalanceSlotRecord> findByCardId(UUID cardId) {
+        RepositoryCallEvent jfr = RepositoryCallEvent.start("slot.findByCardId", cardId);
+        List<CardBalanceSlotRecord> slots = List.of();
+        try {
+            slots = dsl.selectFrom(CARD_BALANCE_SLOT)
+                    .where(CARD_BALANCE_SLOT.CARD_ID.eq(cardId))
+                    .orderBy(CARD_BALANCE_SLOT.SLOT)
+                    .fetch();
+            return slots;
+        } finally {
+            jfr.finish(slots.size());
+        }
+    }
+
+    // Balance and transaction counters summed over the slots of each given card (slot left unset), keyed by
+    // card id; one grouped query for a whole page of cards. Cards without slots are absent.
+    public Map<UUID, CardBalanceSlotRecord> findTotals(Collection<UUID> cardIds) {
+        RepositoryCallEvent jfr = RepositoryCallEvent.start("slot.findTotals", null);
+        Map<UUID, CardBalanceSlotRecord> totals = Map.of();
+        try {
+            totals = dsl.select(CARD_BALANCE_SLOT.CARD_ID, sum(CARD_BALANCE_SLOT.BALANCE), sum(CARD_BALANCE_SLOT.TX_COUNT),
+                            max(CARD_BALANCE_SLOT.LAST_TX_AT))
+                    .from(CARD_BALANCE_SLOT)
+                    .where(CARD_BALANCE_SLOT.CARD_ID.in(cardIds))
+                    .groupBy(CARD_BALANCE_SLOT.CARD_ID)
+                    .fetchMap(Record4::value1, r -> new CardBalanceSlotRecord(r.value1(), null, r.value2().longValue(),
+                            r.value3().longValue(), r.value4()));
+            return totals;
+        } finally {
+            jfr.finish(totals.size());
+        }
+    }
+
+    // The card row's balance plus all its slots, as the calling transaction sees them (its own writes included)
+    public long findTotalBalance(UUID cardId) {
+        Record2<Long, BigDecimal> balances = dsl.select(CARD.BALANCE, field(select(sum(CARD_BALANCE_SLOT.BALANCE))
+                        .from(CARD_BALANCE_SLOT)
+                        .where(CARD_BALANCE_SLOT.CARD_ID.eq(cardId))))
+                .from(CARD)
+                .where(CARD.ID.eq(cardId))
+                .fetchSingle();
+        return balances.value1() + (balances.value2() == null ? 0 : balances.value2().longValueExact());
+    }
+
+    // Locks all slots of the card, always in slot order, until the surrounding transaction ends
+    public List<CardBalanceSlotRecord> findByCardIdForUpdate(UUID cardId) {
+        try {
+            return dsl.selectFrom(CARD_BALANCE_SLOT)
+                    .where(CARD_BALANCE_SLOT.CARD_ID.eq(cardId))
+                    .orderBy(CARD_BALANCE_SLOT.SLOT)
+                    .forUpdate()
+                    .fetch();
+        } catch (DataAccessException e) {
+            throw LockTimeouts.translate(e, "balance slots of card " + cardId);
+        }
+    }
+
+    // Takes amount from one slot for one new transaction at txAt, only if the slot holds enough.
+    // Returns the slot's new balance, or null when it did not.
+    public Long debit(UUID cardId, int slot, long amount, LocalDateTime txAt) {
+        RepositoryCallEvent jfr = RepositoryCallEvent.start("slot.debit", cardId);
+        Long balance = null;
+        try {
+            balance = dsl.update(CARD_BALANCE_SLOT)
+                    .set(CARD_BALANCE_SLOT.BALANCE, CARD_BALANCE_SLOT.BALANCE.minus(amount))
+                    .set(CARD_BALANCE_SLOT.TX_COUNT, CARD_BALANCE_SLOT.TX_COUNT.plus(1))
+                    .set(CARD_BALANCE_SLOT.LAST_TX_AT, txAt)
+                    .where(CARD_BALANCE_SLOT.CARD_ID.eq(cardId)
+                            .and(CARD_BALANCE_SLOT.SLOT.eq(slot))
+                            .and(CARD_BALANCE_SLOT.BALANCE.ge(amount)))
+                    .returningResult(CARD_BALANCE_SLOT.BALANCE)
+                    .fetchOne(CARD_BALANCE_SLOT.BALANCE);
+            if (balance != null) journal.slotChanged(cardId, slot);
+            return balance;
+        } catch (DataAccessException e) {
+            throw LockTimeouts.translate(e, "balance slot " + slot + " of card " + cardId);
+        } finally {
+            jfr.finish(balance == null ? 0 : 1);
+        }
+    }
+
+    // Adds amount to one slot for one new transaction at txAt; returns the number of rows updated
+    public int credit(UUID cardId, int slot, long amount, LocalDateTime txAt) {
+        RepositoryCallEvent jfr = RepositoryCallEvent.start("slot.credit", cardId);
+        int updated = 0;
+        try {
+            updated = dsl.update(CARD_BALANCE_SLOT)
+                    .set(CARD_BALANCE_SLOT.BALANCE, CARD_BALANCE_SLOT.BALANCE.plus(amount))
+                    .set(CARD_BALANCE_SLOT.TX_COUNT, CARD_BALANCE_SLOT.TX_COUNT.plus(1))
+                    .set(CARD_BALANCE_SLOT.LAST_TX_AT, txAt)
+                    .where(CARD_BALANCE_SLOT.CARD_ID.eq(cardId).and(CARD_BALANCE_SLOT.SLOT.eq(slot)))
+                    .execute();
+            if (updated == 1) journal.slotChanged(cardId, slot);
+            return updated;
+        } catch (DataAccessException e) {
+            throw LockTimeouts.translate(e, "balance slot " + slot + " of card " + cardId);
+        } finally {
+            jfr.finish(updated);
+        }
+    }
+
+    // Overwrites slot i's balance with balances[i], keeping the counters; slots must be locked
+    public void setBalances(UUID cardId, long[] balances) {
+        List<Query> updates = new ArrayList<>(balances.length);
+        for (int slot = 0; slot < balances.length; slot++) {
+            updates.add(dsl.update(CARD_BALANCE_SLOT)
+                    .set(CARD_BALANCE_SLOT.BALANCE, balances[slot])
+                    .where(CARD_BALANCE_SLOT.CARD_ID.eq(cardId).and(CARD_BALANCE_SLOT.SLOT.eq(slot))));
+        }
+        dsl.batch(updates).execute();
+        journal.slotsReplaced(cardId);
+    }
+
+    // Replaces the card's slots with fresh ones holding balances (none when empty)
+    public void replace(UUID cardId, long[] balances) {
+        dsl.deleteFrom(CARD_BALANCE_SLOT)
+                .where(CARD_BALANCE_SLOT.CARD_ID.eq(cardId))
+                .execute();
+        journal.slotsReplaced(cardId);
+        if (balances.length == 0) return;
+        List<CardBalanceSlotRecord> slots = new ArrayList<>(balances.length);
+        for (int slot = 0; slot < balances.length; slot++) {
+            slots.add(new CardBalanceSlotRecord(cardId, slot, balances[slot], 0L, null));
+        }
+        dsl.batchInsert(slots).execute();
+    }
+}
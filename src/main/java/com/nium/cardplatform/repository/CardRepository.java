@@ -1,20 +1,35 @@
 package com.nium.cardplatform.repository;
 
+import com.nium.cardplatform.jfr.RepositoryCallEvent;
 import com.nium.cardplatform.jooq.tables.records.CardRecord;
+import com.nium.cardplatform.wal.LedgerJournal;
+import org.jooq.Condition;
 import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.SelectSeekStep2;
+import org.jooq.exception.DataAccessException;
 import org.springframework.stereotype.Repository;
 
-import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 import static com.nium.cardplatform.jooq.tables.Card.CARD;
+import static org.jooq.impl.DSL.noCondition;
+import static org.jooq.impl.DSL.select;
 
 @Repository
 public class CardRepository {
+    private static final List<Field<?>> BALANCE_FIELDS = List.of(
+            CARD.ID, CARD.STATUS, CARD.BALANCE, CARD.VERSION, CARD.TX_COUNT, CARD.BALANCE_SLOTS);
+
     private final DSLContext dsl;
+    private final LedgerJournal journal;
 
-    public CardRepository(DSLContext dsl) {
+    public CardRepository(DSLContext dsl, LedgerJournal journal) {
         this.dsl = dsl;
+        this.journal = journal;
     }
 
     // Create a new card
@@ -22,40 +37,193 @@ public class CardRepository {
         dsl.insertInto(CARD)
                 .set(card)
                 .execute();
+        journal.cardChanged(card.getId());
     }
 
     // Find card by id
     public CardRecord findById(UUID id) {
-        return dsl.selectFrom(CARD)
-                .where(CARD.ID.eq(id))
-                .fetchOne();
+        RepositoryCallEvent jfr = RepositoryCallEvent.start("card.findById", id);
+        CardRecord card = null;
+        try {
+            card = dsl.selectFrom(CARD)
+                    .where(CARD.ID.eq(id))
+                    .fetchOne();
+            return card;
+        } finally {
+            jfr.finish(card == null ? 0 : 1);
+        }
     }
 
-    // Update balance and version (optimistic locking support)
-    public int updateBalanceAndVersion(UUID id, BigDecimal newBalance, int expectedVersion) {
-        return dsl.update(CARD)
-                .set(CARD.BALANCE, newBalance)
-                .set(CARD.VERSION, expectedVersion + 1)
-                .where(CARD.ID.eq(id).and(CARD.VERSION.eq(expectedVersion)))
-                .execute();
+    // Reads the card and locks its row until the surrounding transaction ends; other lockers and
+    // writers of the row wait. A wait longer than the database lock timeout is reported as
+    // CannotAcquireLockException.
+    public CardRecord findByIdForUpdate(UUID id) {
+        RepositoryCallEvent jfr = RepositoryCallEvent.start("card.findByIdForUpdate", id);
+        CardRecord card = null;
+        try {
+            card = dsl.selectFrom(CARD)
+                    .where(CARD.ID.eq(id))
+                    .forUpdate()
+                    .fetchOne();
+            return card;
+        } catch (DataAccessException e) {
+            throw LockTimeouts.translate(e, "card " + id);
+        } finally {
+            jfr.finish(card == null ? 0 : 1);
+        }
+    }
+
+    // The columns a balance write needs (id, status, balance, version, tx_count, balance_slots); the rest of
+    // the returned record is unset
+    public CardRecord findBalanceById(UUID id) {
+        RepositoryCallEvent jfr = RepositoryCallEvent.start("card.findBalanceById", id);
+        CardRecord card = null;
+        try {
+            card = dsl.select(BALANCE_FIELDS)
+                    .from(CARD)
+                    .where(CARD.ID.eq(id))
+                    .fetchOneInto(CARD);
+            return card;
+        } finally {
+            jfr.finish(card == null ? 0 : 1);
+        }
+    }
+
+    // findBalanceById with the row locked as in findByIdForUpdate
+    public CardRecord findBalanceByIdForUpdate(UUID id) {
+        RepositoryCallEvent jfr = RepositoryCallEvent.start("card.findBalanceByIdForUpdate", id);
+        CardRecord card = null;
+        try {
+            card = dsl.select(BALANCE_FIELDS)
+                    .from(CARD)
+                    .where(CARD.ID.eq(id))
+                    .forUpdate()
+                    .fetchOneInto(CARD);
+            return card;
+        } catch (DataAccessException e) {
+            throw LockTimeouts.translate(e, "card " + id);
+        } finally {
+            jfr.finish(card == null ? 0 : 1);
+        }
     }
 
-    // Block card
-    public int blockCard(UUID id) {
-        return dsl.update(CARD)
-                .set(CARD.STATUS, "BLOCKED")
+    // Update balance and version (optimistic locking support) for one new transaction at txAt;
+    // the card's transaction counters move in the same statement
+    public int updateBalanceAndVersion(UUID id, long newBalance, int expectedVersion, LocalDateTime txAt) {
+        RepositoryCallEvent jfr = RepositoryCallEvent.start("card.updateBalanceAndVersion", id);
+        int updated = 0;
+        try {
+            updated = dsl.update(CARD)
+                    .set(CARD.BALANCE, newBalance)
+                    .set(CARD.VERSION, expectedVersion + 1)
+                    .set(CARD.TX_COUNT, CARD.TX_COUNT.plus(1))
+                    .set(CARD.LAST_TX_AT, txAt)
+                    .where(CARD.ID.eq(id).and(CARD.VERSION.eq(expectedVersion)))
+                    .execute();
+            if (updated == 1) journal.cardChanged(id);
+            return updated;
+        } finally {
+            jfr.finish(updated);
+        }
+    }
+
+    // Sets how many balance slots hold the card's money, with the balance and transaction counters
+    // left on the card row itself; the card must be locked (findByIdForUpdate)
+    public int updateBalanceSlots(UUID id, int slots, long balance, long txCount, LocalDateTime lastTxAt) {
+        int updated = dsl.update(CARD)
+                .set(CARD.BALANCE_SLOTS, slots)
+                .set(CARD.BALANCE, balance)
+                .set(CARD.TX_COUNT, txCount)
+                .set(CARD.LAST_TX_AT, lastTxAt)
+                .set(CARD.VERSION, CARD.VERSION.plus(1))
                 .where(CARD.ID.eq(id))
                 .execute();
+        if (updated == 1) journal.cardChanged(id);
+        return updated;
+    }
+
+    public boolean existsById(UUID id) {
+        return dsl.fetchExists(CARD, CARD.ID.eq(id));
+    }
+
+    // Of the given ids, those that exist
+    public List<UUID> findExistingIds(Collection<UUID> ids) {
+        return dsl.select(CARD.ID)
+                .from(CARD)
+                .where(CARD.ID.in(ids))
+                .fetch(CARD.ID);
     }
 
-    // Update card status (BLOCKED/ACTIVE)
-    public int updateStatus(UUID id, String status) {
-        return dsl.update(CARD)
+    // Set the status (BLOCKED/ACTIVE) unless the card already has it, in one statement.
+    // Returns the card after the change, or null when nothing changed (already in that status or no such card).
+    public CardRecord transitionStatus(UUID id, String status) {
+        RepositoryCallEvent jfr = RepositoryCallEvent.start("card.transitionStatus", id);
+        CardRecord card = null;
+        try {
+            card = dsl.update(CARD)
+                    .set(CARD.STATUS, status)
+                    .where(CARD.ID.eq(id).and(CARD.STATUS.ne(status)))
+                    .returning()
+                    .fetchOne();
+            if (card != null) journal.cardChanged(id);
+            return card;
+        } finally {
+            jfr.finish(card == null ? 0 : 1);
+        }
+    }
+
+    // Set-based variant for a chunk of ids; returns id, balance and balance slots of the cards that changed
+    public List<CardRecord> transitionStatus(Collection<UUID> ids, String status) {
+        List<CardRecord> changed = dsl.update(CARD)
                 .set(CARD.STATUS, status)
-                .where(CARD.ID.eq(id))
-                .execute();
+                .where(CARD.ID.in(ids).and(CARD.STATUS.ne(status)))
+                .returning(CARD.ID, CARD.BALANCE, CARD.BALANCE_SLOTS)
+                .fetch();
+        journal.cardsChanged(changed.stream().map(CardRecord::getId).toList());
+        return changed;
+    }
+
+    // Set the status on up to limit cards matching the filter that do not have it yet (lowest ids first).
+    // Callers repeat until fewer than limit cards change.
+    public List<CardRecord> transitionStatusMatching(String namePrefix, LocalDateTime createdFrom, LocalDateTime createdTo,
+                                                     String status, int limit) {
+        List<CardRecord> changed = dsl.update(CARD)
+                .set(CARD.STATUS, status)
+                .where(CARD.ID.in(select(CARD.ID)
+                        .from(CARD)
+                        .where(filter(null, namePrefix, createdFrom, createdTo).and(CARD.STATUS.ne(status)))
+                        .orderBy(CARD.ID)
+                        .limit(limit)))
+                .returning(CARD.ID, CARD.BALANCE, CARD.BALANCE_SLOTS)
+                .fetch();
+        journal.cardsChanged(changed.stream().map(CardRecord::getId).toList());
+        return changed;
+    }
+
+    // Search cards newest first; filters are optional (null = any). Paging continues after
+    // (afterCreatedAt, afterId) with a keyset seek instead of OFFSET.
+    public List<CardRecord> search(String status, String namePrefix, LocalDateTime createdFrom, LocalDateTime createdTo,
+                                   LocalDateTime afterCreatedAt, UUID afterId, int limit) {
+        SelectSeekStep2<CardRecord, LocalDateTime, UUID> ordered = dsl.selectFrom(CARD)
+                .where(filter(status, namePrefix, createdFrom, createdTo))
+                .orderBy(CARD.CREATED_AT.desc(), CARD.ID.desc());
+        return afterId == null
+                ? ordered.limit(limit).fetch()
+                : ordered.seek(afterCreatedAt, afterId).limit(limit).fetch();
     }
 
-    // List cards (for admin use)
-    // public List<CardRecord> findAll() {...}
+    // Optional card filters shared by search and bulk status changes (null = any)
+    private static Condition filter(String status, String namePrefix, LocalDateTime createdFrom, LocalDateTime createdTo) {
+        Condition where = noCondition();
+        if (status != null) where = where.and(CARD.STATUS.eq(status));
+        if (namePrefix != null) where = where.and(CARD.CARDHOLDER_NAME.like(escapeLike(namePrefix) + "%", '\\'));
+        if (createdFrom != null) where = where.and(CARD.CREATED_AT.ge(createdFrom));
+        if (createdTo != null) where = where.and(CARD.CREATED_AT.lt(createdTo));
+        return where;
+    }
+
+    // Plain prefix pattern (no concatenation in SQL) so the cardholder_name index can be range-scanned
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
 }
@@ -0,0 +1,10 @@
+package com.nium.cardplatform.repository;
+
+import com.nium.cardplatform.jooq.tables.records.TransactionRecord;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// A card's transaction totals (card row plus balance slots) and one page of its transactions, newest first
+public record CardTransactions(long txCount, LocalDateTime lastTxAt, List<TransactionRecord> page) {
+}
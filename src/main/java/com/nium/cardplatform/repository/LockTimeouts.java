@@ -0,0 +1,23 @@
+package com.nium.cardplatform.repository;
+
+import org.jooq.exception.DataAccessException;
+import org.springframework.dao.CannotAcquireLockException;
+
+import java.sql.SQLException;
+
+// The DSLContext does no Spring exception translation; row lock waits that hit the database lock
+// timeout are the one failure callers handle, so only those are mapped (to CannotAcquireLockException)
+final class LockTimeouts {
+    private static final int H2_LOCK_TIMEOUT = 50200; // org.h2.api.ErrorCode.LOCK_TIMEOUT_1
+
+    private LockTimeouts() {
+    }
+
+    static RuntimeException translate(DataAccessException e, String what) {
+        SQLException cause = e.getCause(SQLException.class);
+        if (cause != null && cause.getErrorCode() == H2_LOCK_TIMEOUT) {
+            return new CannotAcquireLockException("Timed out waiting for the lock on " + what, cause);
+        }
+        return e;
+    }
+}
@@ -0,0 +1,75 @@
+package com.nium.cardplatform.repository;
+
+import com.nium.cardplatform.jooq.tables.records.OutboxEventRecord;
+import com.nium.cardplatform.wal.LedgerJournal;
+import org.jooq.DSLContext;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static com.nium.cardplatform.jooq.tables.OutboxEvent.OUTBOX_EVENT;
+
+@Repository
+public class OutboxRepository {
+    private final DSLContext dsl;
+    private final LedgerJournal journal;
+
+    public OutboxRepository(DSLContext dsl, LedgerJournal journal) {
+        this.dsl = dsl;
+        this.journal = journal;
+    }
+
+    // Append an event (runs in the caller's transaction)
+    public void append(UUID cardId, String eventType, String payload, LocalDateTime createdAt) {
+        OutboxEventRecord event = dsl.insertInto(OUTBOX_EVENT)
+                .set(OUTBOX_EVENT.CARD_ID, cardId)
+                .set(OUTBOX_EVENT.EVENT_TYPE, eventType)
+                .set(OUTBOX_EVENT.PAYLOAD, payload)
+                .set(OUTBOX_EVENT.CREATED_AT, createdAt)
+                .returning()
+                .fetchOne();
+        journal.outboxAppended(List.of(event));
+    }
+
+    // Append many events with one multi-row INSERT (bulk status changes)
+    public void appendAll(List<OutboxEventRecord> events) {
+        if (events.isEmpty()) return;
+        var insert = dsl.insertInto(OUTBOX_EVENT,
+                OUTBOX_EVENT.CARD_ID, OUTBOX_EVENT.EVENT_TYPE, OUTBOX_EVENT.PAYLOAD, OUTBOX_EVENT.CREATED_AT);
+        for (OutboxEventRecord e : events) {
+            insert = insert.values(e.getCardId(), e.getEventType(), e.getPayload(), e.getCreatedAt());
+        }
+        journal.outboxAppended(insert.returning().fetch());
+    }
+
+    // Oldest pending events first
+    public List<OutboxEventRecord> fetchBatch(int limit) {
+        return dsl.selectFrom(OUTBOX_EVENT)
+                .orderBy(OUTBOX_EVENT.ID)
+                .limit(limit)
+                .fetch();
+    }
+
+    // Remove events once the sink acknowledged them
+    public int deleteByIds(List<Long> ids) {
+        int deleted = dsl.deleteFrom(OUTBOX_EVENT)
+                .where(OUTBOX_EVENT.ID.in(ids))
+                .execute();
+        if (deleted > 0) journal.outboxDeleted(ids);
+        return deleted;
+    }
+
+    public int countPending() {
+        return dsl.fetchCount(OUTBOX_EVENT);
+    }
+
+    public LocalDateTime oldestPendingCreatedAt() {
+        return dsl.select(OUTBOX_EVENT.CREATED_AT)
+                .from(OUTBOX_EVENT)
+                .orderBy(OUTBOX_EVENT.ID)
+                .limit(1)
+                .fetchOne(OUTBOX_EVENT.CREATED_AT);
+    }
+}
@@ -0,0 +1,67 @@
+package com.nium.cardplatform.repository;
+
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record2;
+import org.jooq.Result;
+import org.jooq.impl.SQLDataType;
+import org.springframework.stereotype.Repository;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static com.nium.cardplatform.jooq.tables.Card.CARD;
+import static com.nium.cardplatform.jooq.tables.CardBalanceSlot.CARD_BALANCE_SLOT;
+import static com.nium.cardplatform.jooq.tables.Transaction.TRANSACTION;
+import static org.jooq.impl.DSL.*;
+
+@Repository
+public class ReconciliationRepository {
+    // TOPUP and TRANSFER_IN add, SPEND and TRANSFER_OUT subtract; the sum is cast back to BIGINT (minor units)
+    static final Field<Long> SIGNED_AMOUNT =
+            when(TRANSACTION.TYPE.in("TOPUP", "TRANSFER_IN"), TRANSACTION.AMOUNT).otherwise(TRANSACTION.AMOUNT.neg());
+    private static final Field<Long> NET = sum(SIGNED_AMOUNT).cast(SQLDataType.BIGINT);
+    // A sharded card's balance is the card row's plus the sum of its balance slots
+    private static final Field<Long> BALANCE = CARD.BALANCE.plus(field(
+            select(coalesce(sum(CARD_BALANCE_SLOT.BALANCE).cast(SQLDataType.BIGINT), 0L))
+                    .from(CARD_BALANCE_SLOT)
+                    .where(CARD_BALANCE_SLOT.CARD_ID.eq(CARD.ID)))).as("balance");
+
+    private final DSLContext dsl;
+
+    public ReconciliationRepository(DSLContext dsl) {
+        this.dsl = dsl;
+    }
+
+    // Next page of cards after the given id (keyset on the primary key, null for the first page)
+    public Result<Record2<UUID, Long>> fetchBalances(UUID afterId, int limit) {
+        return dsl.select(CARD.ID, BALANCE)
+                .from(CARD)
+                .where(afterId == null ? noCondition() : CARD.ID.gt(afterId))
+                .orderBy(CARD.ID)
+                .limit(limit)
+                .fetch();
+    }
+
+    // Net of transactions per card for an id range; cards without transactions are absent
+    public Map<UUID, Long> sumNetByCardRange(UUID fromId, UUID toId) {
+        Field<Long> net = NET.as("net");
+        return dsl.select(TRANSACTION.CARD_ID, net)
+                .from(TRANSACTION)
+                .where(TRANSACTION.CARD_ID.between(fromId, toId))
+                .groupBy(TRANSACTION.CARD_ID)
+                .fetchMap(TRANSACTION.CARD_ID, net);
+    }
+
+    // Balance and net for one card read in a single statement, so both come from the same snapshot
+    public Record2<Long, Long> fetchBalanceAndNet(UUID cardId) {
+        return dsl.select(
+                        BALANCE,
+                        field(select(coalesce(NET, 0L))
+                                .from(TRANSACTION)
+                                .where(TRANSACTION.CARD_ID.eq(CARD.ID))))
+                .from(CARD)
+                .where(CARD.ID.eq(cardId))
+                .fetchOne();
+    }
+}
@@ -0,0 +1,42 @@
+package com.nium.cardplatform.repository;
+
+import org.jooq.DSLContext;
+import org.springframework.stereotype.Repository;
+
+import java.nio.file.Path;
+
+import static com.nium.cardplatform.jooq.tables.Card.CARD;
+import static com.nium.cardplatform.jooq.tables.CardBalanceSlot.CARD_BALANCE_SLOT;
+import static com.nium.cardplatform.jooq.tables.OutboxEvent.OUTBOX_EVENT;
+import static com.nium.cardplatform.jooq.tables.Transaction.TRANSACTION;
+import static org.jooq.impl.DSL.inline;
+import static org.jooq.impl.DSL.list;
+
+@Repository
+public class SnapshotRepository {
+    private final DSLContext dsl;
+
+    public SnapshotRepository(DSLContext dsl) {
+        this.dsl = dsl;
+    }
+
+    // Writes the ledger and outbox tables (definition, indexes, rows) as a gzip-compressed H2 script. SCRIPT is one
+    // statement, so all tables come from the same MVCC snapshot; it does not wait for or block writers.
+    public void writeScript(Path file) {
+        dsl.execute("SCRIPT DROP TO {0} COMPRESSION GZIP TABLE {1}",
+                inline(file.toString()), list(CARD, CARD_BALANCE_SLOT, TRANSACTION, OUTBOX_EVENT));
+    }
+
+    // Replaces the ledger and outbox tables with the ones in a script written by writeScript
+    public void runScript(Path file) {
+        dsl.execute("RUNSCRIPT FROM {0} COMPRESSION GZIP", inline(file.toString()));
+    }
+
+    public int countCards() {
+        return dsl.fetchCount(CARD);
+    }
+
+    public int countTransactions() {
+        return dsl.fetchCount(TRANSACTION);
+    }
+}
@@ -0,0 +1,59 @@
+package com.nium.cardplatform.repository;
+
+import org.jooq.Cursor;
+import org.jooq.DSLContext;
+import org.jooq.Record1;
+import org.jooq.Record4;
+import org.jooq.Result;
+import org.jooq.impl.SQLDataType;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static com.nium.cardplatform.jooq.tables.Card.CARD;
+import static com.nium.cardplatform.jooq.tables.Transaction.TRANSACTION;
+import static com.nium.cardplatform.repository.ReconciliationRepository.SIGNED_AMOUNT;
+import static org.jooq.impl.DSL.*;
+
+@Repository
+public class StatementRepository {
+    private final DSLContext dsl;
+
+    public StatementRepository(DSLContext dsl) {
+        this.dsl = dsl;
+    }
+
+    // Next page of ids of cards created before the given time (keyset on the primary key, null for the first page)
+    public Result<Record1<UUID>> fetchCardIds(UUID afterId, LocalDateTime createdBefore, int limit) {
+        return dsl.select(CARD.ID)
+                .from(CARD)
+                .where(CARD.CREATED_AT.lt(createdBefore))
+                .and(afterId == null ? noCondition() : CARD.ID.gt(afterId))
+                .orderBy(CARD.ID)
+                .limit(limit)
+                .fetch();
+    }
+
+    // Net of the card's transactions before the given time, i.e. its balance at that moment
+    public long sumNetBefore(UUID cardId, LocalDateTime before) {
+        return dsl.select(coalesce(sum(SIGNED_AMOUNT).cast(SQLDataType.BIGINT), 0L))
+                .from(TRANSACTION)
+                .where(TRANSACTION.CARD_ID.eq(cardId).and(TRANSACTION.CREATED_AT.lt(before)))
+                .fetchOne(0, Long.class);
+    }
+
+    // The card's transactions in [from, to), oldest first, fetched fetchSize rows at a time. The cursor holds
+    // its connection until closed, so callers must close it (try-with-resources).
+    public Cursor<Record4<UUID, LocalDateTime, String, Long>> streamTransactions(UUID cardId, LocalDateTime from, LocalDateTime to,
+                                                                                int fetchSize) {
+        return dsl.select(TRANSACTION.ID, TRANSACTION.CREATED_AT, TRANSACTION.TYPE, TRANSACTION.AMOUNT)
+                .from(TRANSACTION)
+                .where(TRANSACTION.CARD_ID.eq(cardId))
+                .and(TRANSACTION.CREATED_AT.ge(from))
+                .and(TRANSACTION.CREATED_AT.lt(to))
+                .orderBy(TRANSACTION.CREATED_AT, TRANSACTION.ID)
+                .fetchSize(fetchSize)
+                .fetchLazy();
+    }
+}
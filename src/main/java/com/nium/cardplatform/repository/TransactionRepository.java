@@ -1,37 +1,136 @@
 package com.nium.cardplatform.repository;
 
+import com.nium.cardplatform.jfr.RepositoryCallEvent;
 import com.nium.cardplatform.jooq.tables.records.TransactionRecord;
+import com.nium.cardplatform.wal.LedgerJournal;
 import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.Result;
+import org.jooq.SelectJoinStep;
+import org.jooq.Table;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
+import static com.nium.cardplatform.jooq.tables.Card.CARD;
+import static com.nium.cardplatform.jooq.tables.CardBalanceSlot.CARD_BALANCE_SLOT;
 import static com.nium.cardplatform.jooq.tables.Transaction.TRANSACTION;
+import static org.jooq.impl.DSL.max;
+import static org.jooq.impl.DSL.select;
+import static org.jooq.impl.DSL.selectFrom;
+import static org.jooq.impl.DSL.sum;
+import static org.jooq.impl.DSL.trueCondition;
 
 @Repository
 public class TransactionRepository {
+    private static final String SLOT_TX_COUNT = "slot_tx_count";
+    private static final String SLOT_LAST_TX_AT = "slot_last_tx_at";
+
     private final DSLContext dsl;
+    private final LedgerJournal journal;
 
-    public TransactionRepository(DSLContext dsl) {
+    public TransactionRepository(DSLContext dsl, LedgerJournal journal) {
         this.dsl = dsl;
+        this.journal = journal;
     }
 
     // Create a transaction record
     public void create(TransactionRecord transaction) {
-        dsl.insertInto(TRANSACTION)
-                .set(transaction)
-                .execute();
-    }
-
-    // Get all transactions for a card (optional: with pagination)
-    public List<TransactionRecord> findByCardId(UUID cardId, int limit, int offset) {
-        return dsl.selectFrom(TRANSACTION)
-                .where(TRANSACTION.CARD_ID.eq(cardId))
-                .orderBy(TRANSACTION.CREATED_AT.desc())
-                .limit(limit)
-                .offset(offset)
-                .fetch();
+        RepositoryCallEvent jfr = RepositoryCallEvent.start("transaction.create", transaction.getCardId());
+        int inserted = 0;
+        try {
+            inserted = dsl.insertInto(TRANSACTION)
+                    .set(transaction)
+                    .execute();
+            journal.transactionsInserted(List.of(transaction));
+        } finally {
+            jfr.finish(inserted);
+        }
+    }
+
+    // Several transaction records in one JDBC batch
+    public void createAll(List<TransactionRecord> transactions) {
+        RepositoryCallEvent jfr = RepositoryCallEvent.start("transaction.createAll", transactions.get(0).getCardId());
+        int inserted = 0;
+        try {
+            for (int rows : dsl.batchInsert(transactions).execute()) inserted += rows;
+            journal.transactionsInserted(transactions);
+        } finally {
+            jfr.finish(inserted);
+        }
+    }
+
+    // The card's totals and a page of its transactions in one statement: the card left-joined with its slot
+    // totals and the page, so a card without (further) transactions still yields one row. Null when there is no card.
+    public CardTransactions findPageWithTotals(UUID cardId, int limit, int offset) {
+        RepositoryCallEvent jfr = RepositoryCallEvent.start("transaction.findPageWithTotals", cardId);
+        CardTransactions result = null;
+        try {
+            Table<TransactionRecord> page = selectFrom(TRANSACTION)
+                    .where(TRANSACTION.CARD_ID.eq(cardId))
+                    .orderBy(TRANSACTION.CREATED_AT.desc())
+                    .limit(limit)
+                    .offset(offset)
+                    .asTable("page");
+            Field<UUID> id = page.field(TRANSACTION.ID);
+            Field<LocalDateTime> createdAt = page.field(TRANSACTION.CREATED_AT);
+            Result<Record> rows = selectTotals(cardId, page.fields())
+                    .leftJoin(page).on(trueCondition())
+                    .where(CARD.ID.eq(cardId))
+                    .orderBy(createdAt.desc())
+                    .fetch();
+            if (rows.isEmpty()) return null;
+
+            List<TransactionRecord> transactions = new ArrayList<>(rows.size());
+            for (Record row : rows) {
+                if (row.get(id) == null) continue;
+                transactions.add(new TransactionRecord(row.get(id), row.get(page.field(TRANSACTION.CARD_ID)),
+                        row.get(page.field(TRANSACTION.TYPE)), row.get(page.field(TRANSACTION.AMOUNT)), row.get(createdAt)));
+            }
+            result = totals(rows.get(0), transactions);
+            return result;
+        } finally {
+            jfr.finish(result == null ? 0 : result.page().size());
+        }
+    }
+
+    // Just the card's totals (empty page), null when there is no card
+    public CardTransactions findTotals(UUID cardId) {
+        RepositoryCallEvent jfr = RepositoryCallEvent.start("transaction.findTotals", cardId);
+        CardTransactions result = null;
+        try {
+            Record row = selectTotals(cardId).where(CARD.ID.eq(cardId)).fetchOne();
+            result = row == null ? null : totals(row, List.of());
+            return result;
+        } finally {
+            jfr.finish(result == null ? 0 : 1);
+        }
+    }
+
+    // Card row left-joined with the sums over its balance slots (one row; nulls for an unsharded card)
+    private SelectJoinStep<Record> selectTotals(UUID cardId, Field<?>... more) {
+        Table<?> slots = select(sum(CARD_BALANCE_SLOT.TX_COUNT).as(SLOT_TX_COUNT), max(CARD_BALANCE_SLOT.LAST_TX_AT).as(SLOT_LAST_TX_AT))
+                .from(CARD_BALANCE_SLOT)
+                .where(CARD_BALANCE_SLOT.CARD_ID.eq(cardId))
+                .asTable("slots");
+        List<Field<?>> fields = new ArrayList<>(List.of(CARD.TX_COUNT, CARD.LAST_TX_AT,
+                slots.field(SLOT_TX_COUNT), slots.field(SLOT_LAST_TX_AT)));
+        fields.addAll(List.of(more));
+        return dsl.select(fields).from(CARD.leftJoin(slots).on(trueCondition()));
+    }
+
+    private static CardTransactions totals(Record row, List<TransactionRecord> page) {
+        long txCount = row.get(CARD.TX_COUNT) == null ? 0 : row.get(CARD.TX_COUNT);
+        Long slotTxCount = row.get(SLOT_TX_COUNT, Long.class);
+        if (slotTxCount != null) txCount += slotTxCount;
+        LocalDateTime lastTxAt = row.get(CARD.LAST_TX_AT);
+        LocalDateTime slotLastTxAt = row.get(SLOT_LAST_TX_AT, LocalDateTime.class);
+        if (slotLastTxAt != null && (lastTxAt == null || slotLastTxAt.isAfter(lastTxAt))) lastTxAt = slotLastTxAt;
+        return new CardTransactions(txCount, lastTxAt, page);
     }
 
     // Count for pagination
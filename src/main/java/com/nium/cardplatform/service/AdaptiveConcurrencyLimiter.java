@@ -0,0 +1,119 @@
+package com.nium.cardplatform.service;
+
+import com.nium.cardplatform.config.ConcurrencyLimitProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// AIMD concurrency limit: every completed request is a sample; a slow or failed one shrinks the
+// limit multiplicatively, a fast one grows it by roughly one per limit's worth of requests.
+// Requests over the limit are shed up front instead of queueing on Tomcat and the connection pool.
+@Service
+public class AdaptiveConcurrencyLimiter {
+
+    public enum Priority {
+        CRITICAL, // spends and top-ups, may use the whole limit
+        STANDARD  // everything else, limited to readShare of it
+    }
+
+    private final ConcurrencyLimitProperties props;
+    private final long latencyTargetNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter shedCritical;
+    private final Counter shedStandard;
+
+    private double limit;           // guarded by this
+    private long lastDecreaseNanos; // guarded by this
+    private volatile int currentLimit;
+
+    public AdaptiveConcurrencyLimiter(ConcurrencyLimitProperties props, MeterRegistry meterRegistry) {
+        this.props = props;
+        this.latencyTargetNanos = props.latencyTarget().toNanos();
+        this.limit = Math.max(props.minLimit(), Math.min(props.maxLimit(), props.initialLimit()));
+        this.currentLimit = (int) limit;
+        this.lastDecreaseNanos = System.nanoTime();
+        this.shedCritical = Counter.builder("concurrency.requests.shed")
+                .tag("priority", "critical")
+                .description("Requests rejected with 503 by the adaptive concurrency limit")
+                .register(meterRegistry);
+        this.shedStandard = Counter.builder("concurrency.requests.shed")
+                .tag("priority", "standard")
+                .description("Requests rejected with 503 by the adaptive concurrency limit")
+                .register(meterRegistry);
+        Gauge.builder("concurrency.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive concurrency limit")
+                .register(meterRegistry);
+        Gauge.builder("concurrency.requests.in.flight", inFlight, AtomicInteger::get)
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return props.enabled();
+    }
+
+    public Duration getRetryAfter() {
+        return props.retryAfter();
+    }
+
+    public int getLimit() {
+        return currentLimit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    // Returns null when the request should be shed
+    public Permit tryAcquire(Priority priority) {
+        int cap = priority == Priority.CRITICAL
+                ? currentLimit
+                : Math.max(1, (int) (currentLimit * props.readShare()));
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= cap) {
+                (priority == Priority.CRITICAL ? shedCritical : shedStandard).increment();
+                return null;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return new Permit(System.nanoTime(), current + 1);
+    }
+
+    private synchronized void onSample(long startNanos, long endNanos, int inFlightAtStart, boolean failed) {
+        if (failed || endNanos - startNanos > latencyTargetNanos) {
+            // At most one decrease per round trip: requests that started before the last
+            // decrease were admitted under the old limit and say nothing about the new one
+            if (startNanos - lastDecreaseNanos > 0) {
+                limit = Math.max(props.minLimit(), limit * props.backoffRatio());
+                lastDecreaseNanos = endNanos;
+            }
+        } else if (inFlightAtStart * 2 >= limit) {
+            // Only grow while the limit is actually in use
+            limit = Math.min(props.maxLimit(), limit + 1.0 / limit);
+        }
+        currentLimit = (int) limit;
+    }
+
+    public final class Permit {
+        private final long startNanos;
+        private final int inFlightAtStart;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(long startNanos, int inFlightAtStart) {
+            this.startNanos = startNanos;
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        // Idempotent; failed = the request errored (5xx) and should count as an overload signal
+        public void release(boolean failed) {
+            if (!released.compareAndSet(false, true)) return;
+            inFlight.decrementAndGet();
+            onSample(startNanos, System.nanoTime(), inFlightAtStart, failed);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.nium.cardplatform.service;
+
+import com.nium.cardplatform.config.AsyncProperties;
+import com.nium.cardplatform.dto.SpendRequest;
+import com.nium.cardplatform.dto.TopupRequest;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// Runs card mutations on the dedicated executor so servlet threads are released while the DB works
+@Service
+public class AsyncCardService {
+
+    private final CardService cardService;
+    private final ThreadPoolTaskExecutor executor;
+    private final long timeoutMillis;
+
+    public AsyncCardService(CardService cardService,
+                            @Qualifier("cardMutationExecutor") ThreadPoolTaskExecutor executor,
+                            AsyncProperties props) {
+        this.cardService = cardService;
+        this.executor = executor;
+        this.timeoutMillis = props.timeout().toMillis();
+    }
+
+    // Throws TaskRejectedException straight away when the executor queue is full.
+    // A timed out future does not cancel the DB work, so the mutation may still be applied.
+    public CompletableFuture<Void> spend(UUID cardId, SpendRequest req) {
+        return CompletableFuture.runAsync(() -> cardService.spend(cardId, req), executor)
+                .orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public CompletableFuture<Void> topup(UUID cardId, TopupRequest req) {
+        return CompletableFuture.runAsync(() -> cardService.topup(cardId, req), executor)
+                .orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+}
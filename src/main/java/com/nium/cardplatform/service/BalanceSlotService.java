@@ -0,0 +1,204 @@
+package com.nium.cardplatform.service;
+
+import com.nium.cardplatform.exception.CardNotFoundException;
+import com.nium.cardplatform.exception.ConcurrentModificationException;
+import com.nium.cardplatform.exception.InsufficientBalanceException;
+import com.nium.cardplatform.jooq.tables.records.CardBalanceSlotRecord;
+import com.nium.cardplatform.jooq.tables.records.CardRecord;
+import com.nium.cardplatform.repository.BalanceSlotRepository;
+import com.nium.cardplatform.repository.CardRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+// Sub-balances of sharded hot cards. A sharded card's money sits in N card_balance_slot rows; spends debit
+// one slot that covers the amount and top-ups credit the poorest one, so concurrent writers of the card
+// only meet when they pick the same slot and never write the card row. A spend no single slot covers locks
+// the card and all its slots, takes the amount from the pooled balance and spreads the rest evenly again.
+// Callers run inside the spend/top-up transaction. Lock order is card, then slots in slot order; a slot writer
+// holds at most its one slot and never waits for the card, so rebalancing cannot deadlock with it.
+@Service
+public class BalanceSlotService {
+
+    public static final int MAX_SLOTS = 64;
+
+    private final BalanceSlotRepository slotRepo;
+    private final CardRepository cardRepo;
+    private final TransactionTemplate slotAttempt;
+
+    private final Counter slotDebits;
+    private final Counter rebalances;
+
+    public BalanceSlotService(BalanceSlotRepository slotRepo, CardRepository cardRepo, PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry) {
+        this.slotRepo = slotRepo;
+        this.cardRepo = cardRepo;
+        // A savepoint inside the spend transaction
+        this.slotAttempt = new TransactionTemplate(transactionManager);
+        this.slotAttempt.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+        this.slotDebits = Counter.builder("card.slots.debits")
+                .description("Spends on sharded cards served by a single balance slot")
+                .register(meterRegistry);
+        this.rebalances = Counter.builder("card.slots.rebalances")
+                .description("Spends on sharded cards that no single slot covered, served by pooling and re-spreading the slots")
+                .register(meterRegistry);
+    }
+
+    public static boolean isSharded(CardRecord card) {
+        return card != null && card.getBalanceSlots() != null && card.getBalanceSlots() > 0;
+    }
+
+    // Reads the slots of a sharded card and adds their balance and transaction counters to the card record,
+    // so it shows the card's totals; returns the slots as read (null for a card that is not sharded)
+    public List<CardBalanceSlotRecord> addSlotTotals(CardRecord card) {
+        if (!isSharded(card)) return null;
+        List<CardBalanceSlotRecord> slots = slotRepo.findByCardId(card.getId());
+        long balance = card.getBalance();
+        long txCount = card.getTxCount() == null ? 0 : card.getTxCount();
+        LocalDateTime lastTxAt = card.getLastTxAt();
+        for (CardBalanceSlotRecord slot : slots) {
+            balance += slot.getBalance();
+            txCount += slot.getTxCount();
+            lastTxAt = latest(lastTxAt, slot.getLastTxAt());
+        }
+        card.setBalance(balance);
+        card.setTxCount(txCount);
+        card.setLastTxAt(lastTxAt);
+        return slots;
+    }
+
+    // addSlotTotals for a page of cards, with one grouped query over the slots of the sharded ones
+    public void addPageSlotTotals(List<CardRecord> cards) {
+        List<UUID> sharded = cards.stream().filter(BalanceSlotService::isSharded).map(CardRecord::getId).toList();
+        if (sharded.isEmpty()) return;
+        Map<UUID, CardBalanceSlotRecord> totals = slotRepo.findTotals(sharded);
+        for (CardRecord card : cards) {
+            CardBalanceSlotRecord slots = totals.get(card.getId());
+            if (slots == null) continue;
+            card.setBalance(card.getBalance() + slots.getBalance());
+            card.setTxCount((card.getTxCount() == null ? 0 : card.getTxCount()) + slots.getTxCount());
+            card.setLastTxAt(latest(card.getLastTxAt(), slots.getLastTxAt()));
+        }
+    }
+
+    // The card's balance right after this transaction's slot write. The totals read before the write are off by
+    // whatever concurrent slot writers committed meanwhile, so events must not derive the new balance from them.
+    public long balanceAfterWrite(UUID cardId) {
+        return slotRepo.findTotalBalance(cardId);
+    }
+
+    // Takes amount from the card, slots as read by addSlotTotals guiding the choice. Starts at a random slot
+    // so concurrent spends spread over the slots; a slot that ran low since it was read just fails its
+    // conditional update. Throws InsufficientBalanceException when even the pooled balance does not cover it.
+    public void debit(CardRecord card, List<CardBalanceSlotRecord> slots, long amount, LocalDateTime at) {
+        UUID cardId = card.getId();
+        int n = slots.size();
+        int start = n == 0 ? 0 : ThreadLocalRandom.current().nextInt(n);
+        for (int i = 0; i < n; i++) {
+            CardBalanceSlotRecord slot = slots.get((start + i) % n);
+            if (slot.getBalance() >= amount && locked(() -> tryDebit(cardId, slot.getSlot(), amount, at)) != null) {
+                slotDebits.increment();
+                return;
+            }
+        }
+        rebalances.increment();
+        locked(() -> {
+            CardRecord lockedCard = cardRepo.findByIdForUpdate(cardId);
+            if (lockedCard == null) throw new CardNotFoundException("Card not found: " + cardId);
+            List<CardBalanceSlotRecord> lockedSlots = slotRepo.findByCardIdForUpdate(cardId);
+            if (lockedSlots.isEmpty()) throw new ConcurrentModificationException("Concurrent modification detected, try again.");
+            long total = lockedCard.getBalance();
+            for (CardBalanceSlotRecord slot : lockedSlots) total += slot.getBalance();
+            if (total < amount) throw new InsufficientBalanceException("Insufficient balance for card: " + cardId);
+
+            // Slot 0 gets the amount on top of its even share, then pays it like any other slot debit
+            long[] balances = spread(total - amount, lockedSlots.size());
+            balances[0] += amount;
+            slotRepo.setBalances(cardId, balances);
+            slotRepo.debit(cardId, 0, amount, at);
+            if (lockedCard.getBalance() != 0) {
+                cardRepo.updateBalanceSlots(cardId, lockedSlots.size(), 0, lockedCard.getTxCount(), lockedCard.getLastTxAt());
+            }
+            return null;
+        });
+    }
+
+    // A conditional update that waited for another writer of the slot and then found it short still holds the
+    // row lock (H2); rolling back to the savepoint releases it, so a spend moving on holds no stray slot lock
+    private Long tryDebit(UUID cardId, int slot, long amount, LocalDateTime at) {
+        return slotAttempt.execute(status -> {
+            Long balance = slotRepo.debit(cardId, slot, amount, at);
+            if (balance == null) status.setRollbackOnly();
+            return balance;
+        });
+    }
+
+    // Adds amount to the slot that held the least when read, which refills slots drained by spends
+    public void credit(CardRecord card, List<CardBalanceSlotRecord> slots, long amount, LocalDateTime at) {
+        // Unsharded since the card was read
+        if (slots.isEmpty()) throw new ConcurrentModificationException("Concurrent modification detected, try again.");
+        CardBalanceSlotRecord poorest = slots.get(0);
+        for (CardBalanceSlotRecord slot : slots) {
+            if (slot.getBalance() < poorest.getBalance()) poorest = slot;
+        }
+        int slot = poorest.getSlot();
+        int updated = locked(() -> slotRepo.credit(card.getId(), slot, amount, at));
+        if (updated != 1) throw new ConcurrentModificationException("Concurrent modification detected, try again.");
+    }
+
+    // Moves the card's whole balance into the given number of evenly filled slots (0 = back onto the card row).
+    // Slot transaction counters are folded into the card's, so its totals do not change.
+    public void reshard(UUID cardId, int slotCount) {
+        locked(() -> {
+            CardRecord card = cardRepo.findByIdForUpdate(cardId);
+            if (card == null) throw new CardNotFoundException("Card not found: " + cardId);
+            List<CardBalanceSlotRecord> slots = slotRepo.findByCardIdForUpdate(cardId);
+            long total = card.getBalance();
+            long txCount = card.getTxCount() == null ? 0 : card.getTxCount();
+            LocalDateTime lastTxAt = card.getLastTxAt();
+            for (CardBalanceSlotRecord slot : slots) {
+                total += slot.getBalance();
+                txCount += slot.getTxCount();
+                lastTxAt = latest(lastTxAt, slot.getLastTxAt());
+            }
+            slotRepo.replace(cardId, spread(total, slotCount));
+            cardRepo.updateBalanceSlots(cardId, slotCount, slotCount == 0 ? total : 0, txCount, lastTxAt);
+            return null;
+        });
+    }
+
+    // total split into n near-equal parts; the first total % n parts get one extra minor unit
+    static long[] spread(long total, int n) {
+        long[] parts = new long[n];
+        for (int i = 0; i < n; i++) {
+            parts[i] = total / n + (i < total % n ? 1 : 0);
+        }
+        return parts;
+    }
+
+    private static LocalDateTime latest(LocalDateTime a, LocalDateTime b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        return a.isAfter(b) ? a : b;
+    }
+
+    // A slot or card lock wait that times out is reported like a version conflict
+    private static <T> T locked(Supplier<T> action) {
+        try {
+            return action.get();
+        } catch (CannotAcquireLockException e) {
+            throw new ConcurrentModificationException("Card is busy, try again.");
+        }
+    }
+}
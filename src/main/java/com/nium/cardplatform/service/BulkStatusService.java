@@ -0,0 +1,79 @@
+package com.nium.cardplatform.service;
+
+import com.nium.cardplatform.dto.BulkStatusRequest;
+import com.nium.cardplatform.dto.BulkStatusResponse;
+import com.nium.cardplatform.exception.InvalidBulkRequestException;
+import com.nium.cardplatform.repository.CardRepository;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+// Applies a status to many cards in chunks. Each chunk is one conditional UPDATE ... RETURNING plus one
+// outbox insert in its own transaction (CardService.changeStatus*), so locks stay short and a failure
+// leaves earlier chunks applied; repeating the request is safe since unchanged cards are skipped.
+@Service
+public class BulkStatusService {
+
+    static final int CHUNK_SIZE = 1000;
+    static final int MAX_IDS = 100_000;
+
+    private final CardService cardService;
+    private final CardRepository cardRepo;
+
+    public BulkStatusService(CardService cardService, CardRepository cardRepo) {
+        this.cardService = cardService;
+        this.cardRepo = cardRepo;
+    }
+
+    public BulkStatusResponse changeStatus(BulkStatusRequest req) {
+        String status = req.getStatus();
+        if (!"ACTIVE".equals(status) && !"BLOCKED".equals(status)) {
+            throw new InvalidBulkRequestException("Status must be ACTIVE or BLOCKED.");
+        }
+        boolean byIds = req.getCardIds() != null && !req.getCardIds().isEmpty();
+        boolean byFilter = req.getNamePrefix() != null || req.getCreatedFrom() != null || req.getCreatedTo() != null;
+        if (byIds == byFilter) {
+            throw new InvalidBulkRequestException("Provide either cardIds or at least one filter, not both.");
+        }
+        return byIds ? changeByIds(req.getCardIds(), status) : changeByFilter(req, status);
+    }
+
+    private BulkStatusResponse changeByIds(List<UUID> cardIds, String status) {
+        if (cardIds.size() > MAX_IDS) {
+            throw new InvalidBulkRequestException("At most " + MAX_IDS + " card ids per request.");
+        }
+        List<UUID> ids = new ArrayList<>(new LinkedHashSet<>(cardIds));
+        List<UUID> changed = new ArrayList<>();
+        List<UUID> notFound = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += CHUNK_SIZE) {
+            List<UUID> chunk = ids.subList(from, Math.min(from + CHUNK_SIZE, ids.size()));
+            List<UUID> chunkChanged = cardService.changeStatus(chunk, status);
+            changed.addAll(chunkChanged);
+
+            // Only look up the rest when some ids did not change: already in the status, or unknown
+            if (chunkChanged.size() < chunk.size()) {
+                Set<UUID> rest = new LinkedHashSet<>(chunk);
+                chunkChanged.forEach(rest::remove);
+                Set<UUID> existing = new HashSet<>(cardRepo.findExistingIds(rest));
+                rest.stream().filter(id -> !existing.contains(id)).forEach(notFound::add);
+            }
+        }
+        return new BulkStatusResponse(status, changed, notFound);
+    }
+
+    private BulkStatusResponse changeByFilter(BulkStatusRequest req, String status) {
+        List<UUID> changed = new ArrayList<>();
+        List<UUID> chunkChanged;
+        do {
+            chunkChanged = cardService.changeStatusMatching(req.getNamePrefix(), req.getCreatedFrom(), req.getCreatedTo(),
+                    status, CHUNK_SIZE);
+            changed.addAll(chunkChanged);
+        } while (chunkChanged.size() == CHUNK_SIZE);
+        return new BulkStatusResponse(status, changed, List.of());
+    }
+}
@@ -0,0 +1,138 @@
+package com.nium.cardplatform.service;
+
+import com.nium.cardplatform.config.CardEventStreamProperties;
+import com.nium.cardplatform.dto.CardEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// In-memory fan-out of committed card events to SSE subscribers. Publishing never blocks:
+// each subscriber has a bounded buffer drained by its own (virtual) thread, and a subscriber
+// whose buffer is full is disconnected rather than slowing everyone else down.
+@Component
+public class CardEventBroadcaster {
+
+    private final Map<UUID, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private final CardEventStreamProperties props;
+    private final AtomicInteger active = new AtomicInteger();
+    private final Counter dropped;
+
+    public CardEventBroadcaster(CardEventStreamProperties props, MeterRegistry meterRegistry) {
+        this.props = props;
+        this.dropped = Counter.builder("card.events.subscribers.dropped")
+                .description("SSE subscribers disconnected because their buffer filled up")
+                .register(meterRegistry);
+        Gauge.builder("card.events.subscribers", active, AtomicInteger::get)
+                .description("Open SSE subscriptions")
+                .register(meterRegistry);
+    }
+
+    public SseEmitter subscribe(UUID cardId) {
+        SseEmitter emitter = new SseEmitter(props.timeout().toMillis());
+        try {
+            // Spring only flushes response headers on the first write; this gets the stream open right away
+            emitter.send(SseEmitter.event().comment("subscribed"));
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot open event stream", e);
+        }
+        Subscriber subscriber = new Subscriber(cardId, emitter, props.bufferSize());
+        subscribers.computeIfAbsent(cardId, k -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        active.incrementAndGet();
+
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        return emitter;
+    }
+
+    // Only committed changes are pushed; fallbackExecution covers callers without a transaction
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCardEvent(CardEvent event) {
+        Set<Subscriber> subs = subscribers.get(event.getCardId());
+        if (subs == null) return;
+
+        for (Subscriber subscriber : subs) {
+            if (!subscriber.offer(event)) {
+                dropped.increment();
+                remove(subscriber);
+                senders.execute(subscriber.emitter::complete);
+            }
+        }
+    }
+
+    // Close open streams before the web server's graceful shutdown starts waiting on them
+    @EventListener(ContextClosedEvent.class)
+    void closeStreams() {
+        subscribers.values().forEach(subs -> subs.forEach(sub -> sub.emitter.complete()));
+        subscribers.clear();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        senders.shutdownNow();
+    }
+
+    private void remove(Subscriber subscriber) {
+        Set<Subscriber> subs = subscribers.get(subscriber.cardId);
+        if (subs != null && subs.remove(subscriber)) {
+            active.decrementAndGet();
+            subscribers.computeIfPresent(subscriber.cardId, (k, v) -> v.isEmpty() ? null : v);
+        }
+    }
+
+    private final class Subscriber {
+        private final UUID cardId;
+        private final SseEmitter emitter;
+        private final ArrayBlockingQueue<CardEvent> buffer;
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        Subscriber(UUID cardId, SseEmitter emitter, int bufferSize) {
+            this.cardId = cardId;
+            this.emitter = emitter;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        boolean offer(CardEvent event) {
+            if (!buffer.offer(event)) return false;
+            if (draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+            return true;
+        }
+
+        private void drain() {
+            try {
+                do {
+                    CardEvent event;
+                    while ((event = buffer.poll()) != null) {
+                        emitter.send(SseEmitter.event().name(event.getType()).data(event));
+                    }
+                    draining.set(false);
+                    // Re-check: an event may have been offered after the last poll but before the flag reset
+                } while (!buffer.isEmpty() && draining.compareAndSet(false, true));
+            } catch (IOException | IllegalStateException e) {
+                // Client went away (or emitter already completed)
+                remove(this);
+                emitter.completeWithError(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.nium.cardplatform.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nium.cardplatform.dto.CardEvent;
+import com.nium.cardplatform.jooq.tables.records.OutboxEventRecord;
+import com.nium.cardplatform.repository.OutboxRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Records card events in the outbox table, inside the transaction of the mutation that caused them,
+// and hands them to in-process listeners (live SSE streams) once that transaction commits
+@Component
+public class CardEventPublisher {
+
+    private final OutboxRepository outboxRepo;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher applicationEvents;
+
+    public CardEventPublisher(OutboxRepository outboxRepo, ObjectMapper objectMapper, ApplicationEventPublisher applicationEvents) {
+        this.outboxRepo = outboxRepo;
+        this.objectMapper = objectMapper;
+        this.applicationEvents = applicationEvents;
+    }
+
+    public void publish(CardEvent event) {
+        outboxRepo.append(event.getCardId(), event.getType(), toJson(event), event.getOccurredAt());
+        applicationEvents.publishEvent(event);
+    }
+
+    // Same as publish for many events, with a single outbox insert
+    public void publishAll(List<CardEvent> events) {
+        outboxRepo.appendAll(events.stream()
+                .map(e -> {
+                    OutboxEventRecord r = new OutboxEventRecord();
+                    r.setCardId(e.getCardId());
+                    r.setEventType(e.getType());
+                    r.setPayload(toJson(e));
+                    r.setCreatedAt(e.getOccurredAt());
+                    return r;
+                })
+                .toList());
+        events.forEach(applicationEvents::publishEvent);
+    }
+
+    private String toJson(CardEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize card event", e);
+        }
+    }
+}
@@ -1,144 +1,436 @@
 package com.nium.cardplatform.service;
 
+import com.nium.cardplatform.config.LockingProperties;
 import com.nium.cardplatform.dto.*;
 import com.nium.cardplatform.exception.*;
+import com.nium.cardplatform.jfr.CardOperationEvent;
+import com.nium.cardplatform.jooq.tables.records.CardBalanceSlotRecord;
 import com.nium.cardplatform.jooq.tables.records.CardRecord;
 import com.nium.cardplatform.jooq.tables.records.TransactionRecord;
 import com.nium.cardplatform.repository.CardRepository;
+import com.nium.cardplatform.repository.CardTransactions;
 import com.nium.cardplatform.repository.TransactionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.jooq.DSLContext;
+import org.springframework.dao.CannotAcquireLockException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.OptionalLong;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
+import static com.nium.cardplatform.jfr.CardOperationEvent.Phase.*;
+
 @Service
 public class CardService {
 
+    static final int MAX_SEARCH_LIMIT = 200;
+
     private final CardRepository cardRepo;
     private final TransactionRepository txRepo;
     private final DSLContext dsl;
     private final RateLimiterService rateLimiter;
+    private final CardEventPublisher events;
+    private final RecentTransactionCache recentTransactions;
+    private final LockingProperties locking;
+    private final BalanceSlotService balanceSlots;
+    private final MeterRegistry meterRegistry;
+    // Concurrent GET /cards/{id} for the same card share one findById
+    private final SingleFlight<UUID, CardRecord> cardLoads;
+    // The read-only transaction of such a load; opened by the loading caller only, so callers waiting
+    // on it hold no connection
+    private final TransactionTemplate cardLoadTransaction;
 
-    public CardService(CardRepository cardRepo, TransactionRepository txRepo, DSLContext dsl, RateLimiterService rateLimiter) {
+    public CardService(CardRepository cardRepo, TransactionRepository txRepo, DSLContext dsl, RateLimiterService rateLimiter,
+                       CardEventPublisher events, RecentTransactionCache recentTransactions, LockingProperties locking,
+                       BalanceSlotService balanceSlots, PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
         this.cardRepo = cardRepo;
         this.txRepo = txRepo;
         this.dsl = dsl;
         this.rateLimiter = rateLimiter;
+        this.events = events;
+        this.recentTransactions = recentTransactions;
+        this.locking = locking;
+        this.balanceSlots = balanceSlots;
+        this.meterRegistry = meterRegistry;
+        this.cardLoads = new SingleFlight<>(
+                Counter.builder("card.reads.loads")
+                        .description("Card reads that went to the database")
+                        .register(meterRegistry),
+                Counter.builder("card.reads.coalesced")
+                        .description("Card reads served by joining an in-flight load of the same card")
+                        .register(meterRegistry));
+        this.cardLoadTransaction = new TransactionTemplate(transactionManager);
+        this.cardLoadTransaction.setReadOnly(true);
     }
 
     @Transactional
     public CardResponse createCard(CreateCardRequest req) {
-        if (req.getInitialBalance() == null || req.getInitialBalance().compareTo(BigDecimal.ZERO) < 0) {
+        if (req.getInitialBalance() == null || req.getInitialBalance().signum() < 0) {
             throw new InvalidTransactionAmountException("Initial balance must be greater or equal than zero.");
         }
+        long initialBalance = toMinorUnits(req.getInitialBalance());
         UUID cardId = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now();
+        boolean initialTopup = initialBalance > 0;
         CardRecord card = new CardRecord(
                 cardId,
                 req.getCardholderName(),
-                req.getInitialBalance(),
+                initialBalance,
                 "ACTIVE",
                 0, // version
-                LocalDateTime.now()
+                now,
+                initialTopup ? 1L : 0L, // tx_count
+                initialTopup ? now : null,
+                0 // balance_slots
         );
         cardRepo.create(card);
 
         // Create initial top-up transaction
-        if (req.getInitialBalance().compareTo(BigDecimal.ZERO) > 0) {
+        if (initialTopup) {
             TransactionRecord tx = new TransactionRecord(
                     UUID.randomUUID(),
                     cardId,
                     "TOPUP",
-                    req.getInitialBalance(),
-                    LocalDateTime.now()
+                    initialBalance,
+                    now
             );
             txRepo.create(tx);
+            afterCommit(() -> recentTransactions.append(cardId, 1, tx));
         }
 
+        events.publish(new CardEvent("CARD_CREATED", cardId, Money.fromMinor(initialBalance), Money.fromMinor(initialBalance),
+                card.getStatus(), card.getCreatedAt()));
         return mapCardToResponse(card);
     }
 
     @Transactional
     public void spend(UUID cardId, SpendRequest req) {
-        CardRecord card = cardRepo.findById(cardId);
-        if (card == null) throw new CardNotFoundException("Card not found: " + cardId);
-        if (!"ACTIVE".equals(card.getStatus())) throw new CardBlockedException("Card is not active: " + cardId);
-        if (req.getAmount() == null || req.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
-            throw new InvalidTransactionAmountException("Spend amount must be greater than zero.");
-        }
+        CardOperationEvent jfr = CardOperationEvent.start("SPEND", cardId);
+        try {
+            CardRecord card = loadForUpdate(cardId);
+            // Sharded card: the record now shows the card's totals, and the slots guide the write
+            List<CardBalanceSlotRecord> slots = balanceSlots.addSlotTotals(card);
+            jfr.lap(LOAD);
+            if (card == null) throw new CardNotFoundException("Card not found: " + cardId);
+            if (!"ACTIVE".equals(card.getStatus())) throw new CardBlockedException("Card is not active: " + cardId);
+            if (req.getAmount() == null || req.getAmount().signum() <= 0) {
+                throw new InvalidTransactionAmountException("Spend amount must be greater than zero.");
+            }
+            long amount = toMinorUnits(req.getAmount());
+            jfr.amount(amount);
+            jfr.lap(VALIDATE);
 
-        // Rate limiting check!
-        if (!rateLimiter.allowSpend(cardId)) {
-            throw new RateLimitExceededException("Max 5 spends per minute exceeded for card: " + cardId);
-        }
+            // Rate limiting check!
+            if (!rateLimiter.allowSpend(cardId)) {
+                throw new RateLimitExceededException("Max 5 spends per minute exceeded for card: " + cardId);
+            }
+            jfr.lap(RATE_LIMIT);
 
-        BigDecimal newBalance = card.getBalance().subtract(req.getAmount());
-        if (newBalance.compareTo(BigDecimal.ZERO) < 0) {
-            throw new InsufficientBalanceException("Insufficient balance for card: " + cardId);
-        }
+            long newBalance = card.getBalance() - amount;
+            if (newBalance < 0) {
+                throw new InsufficientBalanceException("Insufficient balance for card: " + cardId);
+            }
+            jfr.lap(VALIDATE);
 
-        int updated = cardRepo.updateBalanceAndVersion(cardId, newBalance, card.getVersion());
-        if (updated != 1) {
-            throw new ConcurrentModificationException("Concurrent modification detected, try again.");
-        }
+            // Amount velocity is checked after the balance so declined spends do not count towards it
+            OptionalLong velocityRecordedAt = rateLimiter.allowSpendAmount(cardId, amount);
+            if (velocityRecordedAt.isEmpty()) {
+                throw new RateLimitExceededException("Spend velocity limit exceeded for card: " + cardId);
+            }
+            releaseSpendAmountUnlessCommitted(cardId, amount, velocityRecordedAt.getAsLong());
+            jfr.lap(RATE_LIMIT);
 
-        TransactionRecord tx = new TransactionRecord(
-                UUID.randomUUID(),
-                cardId,
-                "SPEND",
-                req.getAmount(),
-                LocalDateTime.now()
-        );
-        txRepo.create(tx);
+            LocalDateTime now = LocalDateTime.now();
+            if (slots != null) {
+                balanceSlots.debit(card, slots, amount, now);
+                newBalance = balanceSlots.balanceAfterWrite(cardId);
+            } else {
+                int updated = cardRepo.updateBalanceAndVersion(cardId, newBalance, card.getVersion(), now);
+                if (updated != 1) {
+                    throw new ConcurrentModificationException("Concurrent modification detected, try again.");
+                }
+            }
+            jfr.lap(UPDATE);
+
+            TransactionRecord tx = new TransactionRecord(
+                    UUID.randomUUID(),
+                    cardId,
+                    "SPEND",
+                    amount,
+                    now
+            );
+            txRepo.create(tx);
+            jfr.lap(INSERT);
+            events.publish(new CardEvent("SPEND", cardId, Money.fromMinor(amount), Money.fromMinor(newBalance), card.getStatus(), tx.getCreatedAt()));
+            jfr.lap(PUBLISH);
+            afterCommit(recentTransactionUpdate(card, slots, tx));
+            jfr.outcome(null);
+        } catch (RuntimeException e) {
+            jfr.outcome(e);
+            throw e;
+        } finally {
+            if (jfr.isEnabled()) afterCompletion(jfr::finish);
+        }
     }
 
     @Transactional
     public void topup(UUID cardId, TopupRequest req) {
-        CardRecord card = cardRepo.findById(cardId);
-        if (card == null) throw new CardNotFoundException("Card not found: " + cardId);
-        if (!"ACTIVE".equals(card.getStatus())) throw new CardBlockedException("Card is not active: " + cardId);
-        if (req.getAmount() == null || req.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
-            throw new InvalidTransactionAmountException("Top-up amount must be greater than zero.");
-        }
+        CardOperationEvent jfr = CardOperationEvent.start("TOPUP", cardId);
+        try {
+            CardRecord card = loadForUpdate(cardId);
+            // Sharded card: the record now shows the card's totals, and the slots guide the write
+            List<CardBalanceSlotRecord> slots = balanceSlots.addSlotTotals(card);
+            jfr.lap(LOAD);
+            if (card == null) throw new CardNotFoundException("Card not found: " + cardId);
+            if (!"ACTIVE".equals(card.getStatus())) throw new CardBlockedException("Card is not active: " + cardId);
+            if (req.getAmount() == null || req.getAmount().signum() <= 0) {
+                throw new InvalidTransactionAmountException("Top-up amount must be greater than zero.");
+            }
+            long amount = toMinorUnits(req.getAmount());
+            jfr.amount(amount);
+
+            long newBalance;
+            try {
+                newBalance = Math.addExact(card.getBalance(), amount);
+            } catch (ArithmeticException e) {
+                throw new InvalidTransactionAmountException("Top-up would exceed the maximum balance.");
+            }
+            jfr.lap(VALIDATE);
+
+            LocalDateTime now = LocalDateTime.now();
+            if (slots != null) {
+                balanceSlots.credit(card, slots, amount, now);
+                newBalance = balanceSlots.balanceAfterWrite(cardId);
+            } else {
+                int updated = cardRepo.updateBalanceAndVersion(cardId, newBalance, card.getVersion(), now);
+                if (updated != 1) {
+                    throw new ConcurrentModificationException("Concurrent modification detected, try again.");
+                }
+            }
+            jfr.lap(UPDATE);
 
-        BigDecimal newBalance = card.getBalance().add(req.getAmount());
-        int updated = cardRepo.updateBalanceAndVersion(cardId, newBalance, card.getVersion());
-        if (updated != 1) {
-            throw new ConcurrentModificationException("Concurrent modification detected, try again.");
+            TransactionRecord tx = new TransactionRecord(
+                    UUID.randomUUID(),
+                    cardId,
+                    "TOPUP",
+                    amount,
+                    now
+            );
+            txRepo.create(tx);
+            jfr.lap(INSERT);
+            events.publish(new CardEvent("TOPUP", cardId, Money.fromMinor(amount), Money.fromMinor(newBalance), card.getStatus(), tx.getCreatedAt()));
+            jfr.lap(PUBLISH);
+            afterCommit(recentTransactionUpdate(card, slots, tx));
+            jfr.outcome(null);
+        } catch (RuntimeException e) {
+            jfr.outcome(e);
+            throw e;
+        } finally {
+            if (jfr.isEnabled()) afterCompletion(jfr::finish);
         }
+    }
 
-        TransactionRecord tx = new TransactionRecord(
-                UUID.randomUUID(),
-                cardId,
-                "TOPUP",
-                req.getAmount(),
-                LocalDateTime.now()
-        );
-        txRepo.create(tx);
+    // Debits one card and credits another in a single transaction. Both card rows are locked in id order, so
+    // concurrent transfers between the same cards (in either direction) queue instead of deadlocking; the
+    // outgoing leg counts against the source card's spend limits. Latency up to commit is recorded per outcome.
+    @Transactional
+    public void transfer(UUID fromId, TransferRequest req) {
+        CardOperationEvent jfr = CardOperationEvent.start("TRANSFER", fromId);
+        Timer.Sample latency = Timer.start(meterRegistry);
+        String outcome = "OK";
+        try {
+            UUID toId = req.getToCardId();
+            if (toId == null) throw new InvalidTransferException("Target card is required.");
+            if (toId.equals(fromId)) throw new InvalidTransferException("Cannot transfer to the same card.");
+            if (req.getAmount() == null || req.getAmount().signum() <= 0) {
+                throw new InvalidTransactionAmountException("Transfer amount must be greater than zero.");
+            }
+            long amount = toMinorUnits(req.getAmount());
+            jfr.amount(amount);
+
+            boolean fromFirst = fromId.compareTo(toId) < 0;
+            CardRecord first = lockCard(fromFirst ? fromId : toId);
+            CardRecord second = lockCard(fromFirst ? toId : fromId);
+            CardRecord from = fromFirst ? first : second;
+            CardRecord to = fromFirst ? second : first;
+            if (from == null) throw new CardNotFoundException("Card not found: " + fromId);
+            if (to == null) throw new CardNotFoundException("Card not found: " + toId);
+            List<CardBalanceSlotRecord> fromSlots = balanceSlots.addSlotTotals(from);
+            List<CardBalanceSlotRecord> toSlots = balanceSlots.addSlotTotals(to);
+            jfr.lap(LOAD);
+            if (!"ACTIVE".equals(from.getStatus())) throw new CardBlockedException("Card is not active: " + fromId);
+            if (!"ACTIVE".equals(to.getStatus())) throw new CardBlockedException("Card is not active: " + toId);
+            jfr.lap(VALIDATE);
+
+            if (!rateLimiter.allowSpend(fromId)) {
+                throw new RateLimitExceededException("Max 5 spends per minute exceeded for card: " + fromId);
+            }
+            jfr.lap(RATE_LIMIT);
+
+            long fromBalance = from.getBalance() - amount;
+            if (fromBalance < 0) {
+                throw new InsufficientBalanceException("Insufficient balance for card: " + fromId);
+            }
+            long toBalance;
+            try {
+                toBalance = Math.addExact(to.getBalance(), amount);
+            } catch (ArithmeticException e) {
+                throw new InvalidTransactionAmountException("Transfer would exceed the maximum balance of card: " + toId);
+            }
+            jfr.lap(VALIDATE);
+
+            OptionalLong velocityRecordedAt = rateLimiter.allowSpendAmount(fromId, amount);
+            if (velocityRecordedAt.isEmpty()) {
+                throw new RateLimitExceededException("Spend velocity limit exceeded for card: " + fromId);
+            }
+            releaseSpendAmountUnlessCommitted(fromId, amount, velocityRecordedAt.getAsLong());
+            jfr.lap(RATE_LIMIT);
+
+            LocalDateTime now = LocalDateTime.now();
+            if (fromSlots != null) {
+                balanceSlots.debit(from, fromSlots, amount, now);
+                fromBalance = balanceSlots.balanceAfterWrite(fromId);
+            } else if (cardRepo.updateBalanceAndVersion(fromId, fromBalance, from.getVersion(), now) != 1) {
+                throw new ConcurrentModificationException("Concurrent modification detected, try again.");
+            }
+            if (toSlots != null) {
+                balanceSlots.credit(to, toSlots, amount, now);
+                toBalance = balanceSlots.balanceAfterWrite(toId);
+            } else if (cardRepo.updateBalanceAndVersion(toId, toBalance, to.getVersion(), now) != 1) {
+                throw new ConcurrentModificationException("Concurrent modification detected, try again.");
+            }
+            jfr.lap(UPDATE);
+
+            TransactionRecord out = new TransactionRecord(UUID.randomUUID(), fromId, "TRANSFER_OUT", amount, now);
+            TransactionRecord in = new TransactionRecord(UUID.randomUUID(), toId, "TRANSFER_IN", amount, now);
+            txRepo.createAll(List.of(out, in));
+            jfr.lap(INSERT);
+            events.publishAll(List.of(
+                    new CardEvent("TRANSFER_OUT", fromId, Money.fromMinor(amount), Money.fromMinor(fromBalance), from.getStatus(), now),
+                    new CardEvent("TRANSFER_IN", toId, Money.fromMinor(amount), Money.fromMinor(toBalance), to.getStatus(), now)));
+            jfr.lap(PUBLISH);
+            afterCommit(recentTransactionUpdate(from, fromSlots, out));
+            afterCommit(recentTransactionUpdate(to, toSlots, in));
+            jfr.outcome(null);
+        } catch (RuntimeException e) {
+            outcome = e.getClass().getSimpleName();
+            jfr.outcome(e);
+            throw e;
+        } finally {
+            Timer timer = Timer.builder("card.transfers")
+                    .description("Card-to-card transfers, from the call until the transaction completed")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry);
+            afterCompletion(() -> {
+                latency.stop(timer);
+                if (jfr.isEnabled()) jfr.finish();
+            });
+        }
     }
 
-    @Transactional(readOnly = true)
+    // Not @Transactional: a transaction would take a pooled connection before joining an in-flight load
     public CardResponse getCard(UUID cardId) {
-        CardRecord card = cardRepo.findById(cardId);
+        CardRecord card = cardLoads.load(cardId, () -> cardLoadTransaction.execute(status -> {
+            CardRecord loaded = cardRepo.findById(cardId);
+            balanceSlots.addSlotTotals(loaded);
+            return loaded;
+        }));
         if (card == null) throw new CardNotFoundException("Card not found: " + cardId);
         return mapCardToResponse(card);
     }
 
     @Transactional(readOnly = true)
     public List<TransactionResponse> getTransactions(UUID cardId, int limit, int offset) {
-        CardRecord card = cardRepo.findById(cardId);
-        if (card == null) throw new CardNotFoundException("Card not found: " + cardId);
+        return getTransactionPage(cardId, limit, offset).items();
+    }
+
+    // Totals come from the card's tx_count / last_tx_at (plus its slots'), maintained with every balance update.
+    // One statement reads them together with the page; only a first page the card's ring may hold reads the
+    // totals alone first, and queries the page as well when the ring turns out stale.
+    @Transactional(readOnly = true)
+    public TransactionPage getTransactionPage(UUID cardId, int limit, int offset) {
+        if (limit < 1 || limit > MAX_SEARCH_LIMIT) {
+            throw new InvalidSearchRequestException("Limit must be between 1 and " + MAX_SEARCH_LIMIT + ".");
+        }
+        if (offset < 0) throw new InvalidSearchRequestException("Offset must not be negative.");
+        // A first page that fits the ring is read at ring size, so the ring can be seeded from it
+        boolean seedRing = offset == 0 && limit <= recentTransactions.ringSize();
+        if (seedRing && recentTransactions.hasRing(cardId)) {
+            CardTransactions totals = txRepo.findTotals(cardId);
+            if (totals == null) throw new CardNotFoundException("Card not found: " + cardId);
+            List<TransactionRecord> cached = recentTransactions.firstPage(cardId, totals.txCount(), limit);
+            if (cached != null) return transactionPage(cached, totals);
+        }
 
-        List<TransactionRecord> records = txRepo.findByCardId(cardId, limit, offset);
-        if (records == null) records = List.of(); // always return a list
+        CardTransactions page = txRepo.findPageWithTotals(cardId, seedRing ? recentTransactions.ringSize() : limit, offset);
+        if (page == null) throw new CardNotFoundException("Card not found: " + cardId);
+        List<TransactionRecord> records = page.page();
+        if (seedRing) {
+            recentTransactions.fill(cardId, page.txCount(), records);
+            if (records.size() > limit) records = records.subList(0, limit);
+        }
+        return transactionPage(records, page);
+    }
 
-        return records.stream()
+    private TransactionPage transactionPage(List<TransactionRecord> records, CardTransactions totals) {
+        List<TransactionResponse> items = records.stream()
                 .map(this::mapTxToResponse)
                 .collect(Collectors.toList());
+        return new TransactionPage(items, totals.txCount(), totals.lastTxAt());
+    }
+
+    @Transactional(readOnly = true)
+    public CardPageResponse searchCards(String status, String namePrefix, LocalDateTime createdFrom, LocalDateTime createdTo,
+                                        int limit, String cursor) {
+        if (limit < 1 || limit > MAX_SEARCH_LIMIT) {
+            throw new InvalidSearchRequestException("Limit must be between 1 and " + MAX_SEARCH_LIMIT + ".");
+        }
+        if (status != null && !"ACTIVE".equals(status) && !"BLOCKED".equals(status)) {
+            throw new InvalidSearchRequestException("Status must be ACTIVE or BLOCKED.");
+        }
+        if (createdFrom != null && createdTo != null && !createdFrom.isBefore(createdTo)) {
+            throw new InvalidSearchRequestException("createdFrom must be before createdTo.");
+        }
+        CardCursor after = cursor == null ? null : CardCursor.decode(cursor);
+
+        // One extra row tells whether there is a next page
+        List<CardRecord> records = cardRepo.search(status, namePrefix, createdFrom, createdTo,
+                after == null ? null : after.createdAt(), after == null ? null : after.id(), limit + 1);
+        String nextCursor = null;
+        if (records.size() > limit) {
+            records = records.subList(0, limit);
+            CardRecord last = records.get(limit - 1);
+            nextCursor = new CardCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        balanceSlots.addPageSlotTotals(records);
+        return new CardPageResponse(records.stream().map(this::mapCardToResponse).toList(), nextCursor);
+    }
+
+    // Splits the card's balance into slots debited independently by concurrent writers (0 = single balance again)
+    @Transactional
+    public CardResponse setBalanceSlots(UUID cardId, int slots) {
+        if (slots < 0 || slots > BalanceSlotService.MAX_SLOTS) {
+            throw new InvalidBalanceSlotsException("Balance slots must be between 0 and " + BalanceSlotService.MAX_SLOTS + ".");
+        }
+        balanceSlots.reshard(cardId, slots);
+        afterCommit(() -> {
+            cardLoads.forget(cardId);
+            recentTransactions.evict(cardId);
+        });
+        CardRecord card = cardRepo.findById(cardId);
+        balanceSlots.addSlotTotals(card);
+        return mapCardToResponse(card);
     }
 
     // Helper mapping methods
@@ -147,7 +439,7 @@ public class CardService {
         CardResponse resp = new CardResponse();
         resp.setId(card.getId());
         resp.setCardholderName(card.getCardholderName());
-        resp.setBalance(card.getBalance());
+        resp.setBalance(Money.fromMinor(card.getBalance()));
         resp.setStatus(card.getStatus());
         resp.setCreatedAt(card.getCreatedAt());
         return resp;
@@ -158,25 +450,140 @@ public class CardService {
         resp.setId(tx.getId());
         resp.setCardId(tx.getCardId());
         resp.setType(tx.getType());
-        resp.setAmount(tx.getAmount());
+        resp.setAmount(Money.fromMinor(tx.getAmount()));
         resp.setCreatedAt(tx.getCreatedAt());
         return resp;
     }
 
     @Transactional
     public void blockCard(UUID cardId) {
-        CardRecord card = cardRepo.findById(cardId);
-        if (card == null) throw new CardNotFoundException("Card not found: " + cardId);
-        if ("BLOCKED".equals(card.getStatus())) return; // already blocked
-        cardRepo.updateStatus(cardId, "BLOCKED");
+        changeStatus(cardId, "BLOCKED");
     }
 
     @Transactional
     public void unblockCard(UUID cardId) {
-        CardRecord card = cardRepo.findById(cardId);
-        if (card == null) throw new CardNotFoundException("Card not found: " + cardId);
-        if ("ACTIVE".equals(card.getStatus())) return; // already active
-        cardRepo.updateStatus(cardId, "ACTIVE");
+        changeStatus(cardId, "ACTIVE");
+    }
+
+    // One chunk of a bulk status change by ids; returns the ids that changed
+    @Transactional
+    public List<UUID> changeStatus(List<UUID> cardIds, String status) {
+        return publishStatusChanges(cardRepo.transitionStatus(cardIds, status), status);
+    }
+
+    // One chunk of a bulk status change by filter; returns the ids that changed (at most limit)
+    @Transactional
+    public List<UUID> changeStatusMatching(String namePrefix, LocalDateTime createdFrom, LocalDateTime createdTo,
+                                           String status, int limit) {
+        return publishStatusChanges(cardRepo.transitionStatusMatching(namePrefix, createdFrom, createdTo, status, limit), status);
     }
 
+    // Single conditional UPDATE; the card is only looked up again when nothing changed,
+    // to tell "already in that status" from "not found"
+    private void changeStatus(UUID cardId, String status) {
+        CardRecord changed = cardRepo.transitionStatus(cardId, status);
+        if (changed == null) {
+            if (!cardRepo.existsById(cardId)) throw new CardNotFoundException("Card not found: " + cardId);
+            return; // already in that status
+        }
+        balanceSlots.addSlotTotals(changed);
+        events.publish(new CardEvent(statusEventType(status), cardId, null, Money.fromMinor(changed.getBalance()), status, LocalDateTime.now()));
+        afterCommit(() -> cardLoads.forget(cardId));
+    }
+
+    private List<UUID> publishStatusChanges(List<CardRecord> changed, String status) {
+        LocalDateTime now = LocalDateTime.now();
+        changed.forEach(balanceSlots::addSlotTotals);
+        events.publishAll(changed.stream()
+                .map(card -> new CardEvent(statusEventType(status), card.getId(), null, Money.fromMinor(card.getBalance()), status, now))
+                .toList());
+        List<UUID> ids = changed.stream().map(CardRecord::getId).toList();
+        afterCommit(() -> ids.forEach(cardLoads::forget));
+        return ids;
+    }
+
+    // DTO amounts -> minor units, rejecting sub-cent precision instead of rounding
+    private static long toMinorUnits(BigDecimal amount) {
+        try {
+            return Money.toMinor(amount);
+        } catch (ArithmeticException e) {
+            throw new InvalidTransactionAmountException("Amount must have at most " + Money.SCALE + " decimal places.");
+        }
+    }
+
+    private static String statusEventType(String status) {
+        return "BLOCKED".equals(status) ? "CARD_BLOCKED" : "CARD_UNBLOCKED";
+    }
+
+    // Card read of a spend/top-up, just the columns the balance write needs. Under pessimistic locking the row stays locked until commit, so the
+    // version-checked update that follows cannot lose; a lock wait that times out is reported as a conflict.
+    private CardRecord loadForUpdate(UUID cardId) {
+        return locking.pessimistic(cardId) ? lockCard(cardId) : cardRepo.findBalanceById(cardId);
+    }
+
+    // Row lock held until commit; a lock wait that times out is reported as a conflict
+    private CardRecord lockCard(UUID cardId) {
+        try {
+            return cardRepo.findBalanceByIdForUpdate(cardId);
+        } catch (CannotAcquireLockException e) {
+            throw new ConcurrentModificationException("Card is busy, try again.");
+        }
+    }
+
+    // After a committed spend/top-up/transfer leg: the card's tx_count moved from the value read with it (the version check
+    // guarantees it), so the transaction extends the card's ring. Writers of a sharded card do not serialize on
+    // the card, so its new count is unknown and the ring is dropped instead.
+    private Runnable recentTransactionUpdate(CardRecord card, List<CardBalanceSlotRecord> slots, TransactionRecord tx) {
+        UUID cardId = card.getId();
+        long txCount = card.getTxCount() + 1;
+        return () -> {
+            cardLoads.forget(cardId);
+            if (slots != null) {
+                recentTransactions.evict(cardId);
+            } else {
+                recentTransactions.append(cardId, txCount, tx);
+            }
+        };
+    }
+
+    // A velocity amount recorded by allowSpendAmount counts only if the spend commits: whatever fails after the
+    // check (lost update, insert, publish, the commit itself) gives it back. Card mutations always run in a transaction.
+    private void releaseSpendAmountUnlessCommitted(UUID cardId, long amount, long recordedAtMillis) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) rateLimiter.releaseSpendAmount(cardId, amount, recordedAtMillis);
+            }
+        });
+    }
+
+    // Runs the action once the surrounding transaction has committed or rolled back (immediately when there is none)
+    private void afterCompletion(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.run();
+            }
+        });
+    }
+
+    // Runs the action once the surrounding transaction commits (immediately when there is none),
+    // so readers never join a load that started before the write became visible
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
 }
@@ -0,0 +1,38 @@
+package com.nium.cardplatform.service;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Generic cell rate algorithm: per card only the "theoretical arrival time" (TAT) is stored.
+// Each spend pushes the TAT one emission interval (window / N) into the future; a spend is
+// refused when that would put the TAT more than a full window ahead of now. This allows bursts
+// of N and then one spend per interval. It is a token bucket, so it is less exact than the
+// sliding log at window edges.
+class GcraSpendLimit implements SpendLimitStrategy {
+    private final long emissionIntervalMillis;
+    private final long burstToleranceMillis;
+
+    private final Map<UUID, AtomicLong> theoreticalArrival = new ConcurrentHashMap<>();
+
+    GcraSpendLimit(int maxRequests, long windowMillis) {
+        this.emissionIntervalMillis = windowMillis / maxRequests;
+        this.burstToleranceMillis = windowMillis - emissionIntervalMillis;
+    }
+
+    @Override
+    public boolean tryAcquire(UUID cardId, long nowMillis) {
+        AtomicLong tat = theoreticalArrival.computeIfAbsent(cardId, k -> new AtomicLong(Long.MIN_VALUE));
+        while (true) {
+            long current = tat.get();
+            long base = Math.max(current, nowMillis);
+            if (base - nowMillis > burstToleranceMillis) {
+                return false;
+            }
+            if (tat.compareAndSet(current, base + emissionIntervalMillis)) {
+                return true;
+            }
+        }
+    }
+}
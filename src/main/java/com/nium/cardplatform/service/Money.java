@@ -0,0 +1,21 @@
+package com.nium.cardplatform.service;
+
+import java.math.BigDecimal;
+
+// Amounts are handled internally as long minor units (cents): the DTOs keep BigDecimal and are
+// converted here, once, on the way in and out, so the spend/top-up path does plain long arithmetic
+public final class Money {
+    public static final int SCALE = 2;
+
+    private Money() {
+    }
+
+    // Exact: throws ArithmeticException for more than two decimals or values beyond the long range
+    public static long toMinor(BigDecimal amount) {
+        return amount.movePointRight(SCALE).longValueExact();
+    }
+
+    public static BigDecimal fromMinor(long minor) {
+        return BigDecimal.valueOf(minor, SCALE);
+    }
+}
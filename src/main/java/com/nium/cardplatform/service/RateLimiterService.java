@@ -1,45 +1,145 @@
 package com.nium.cardplatform.service;
 
+import com.nium.cardplatform.config.RateLimitProperties;
+import com.nium.cardplatform.config.RateLimitProperties.VelocityRule;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.Instant;
+import java.util.List;
 import java.util.Map;
-import java.util.Queue;
+import java.util.OptionalLong;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
 
 @Service
 public class RateLimiterService {
     private static final int MAX_REQUESTS = 5;
-    private final long WINDOW_MILLIS;
 
-    private final Map<UUID, Queue<Long>> cardSpendTimestamps = new ConcurrentHashMap<>();
+    private final SpendLimitStrategy spendLimit;
+
+    // Amount velocity: one rolling sum per configured rule per card
+    private final List<VelocityRule> velocityRules;
+    private final Map<UUID, CardWindows> cardVelocity = new ConcurrentHashMap<>();
+    private final LongSupplier clock;
 
     // Production constructor
-    public RateLimiterService() {
-        this.WINDOW_MILLIS = 60 * 1000L;
+    @Autowired
+    public RateLimiterService(RateLimitProperties props) {
+        this(newStrategy(props.strategy(), 60 * 1000L), props.velocityRules(), () -> Instant.now().toEpochMilli());
     }
 
     // Test constructor
     RateLimiterService(long windowMillis) {
-        this.WINDOW_MILLIS = windowMillis;
+        this(new SlidingLogSpendLimit(MAX_REQUESTS, windowMillis), List.of(), () -> Instant.now().toEpochMilli());
+    }
+
+    // Test constructor
+    RateLimiterService(long windowMillis, List<VelocityRule> velocityRules, LongSupplier clock) {
+        this(new SlidingLogSpendLimit(MAX_REQUESTS, windowMillis), velocityRules, clock);
+    }
+
+    // Test constructor
+    RateLimiterService(RateLimitProperties.Strategy strategy, long windowMillis, LongSupplier clock) {
+        this(newStrategy(strategy, windowMillis), List.of(), clock);
+    }
+
+    private RateLimiterService(SpendLimitStrategy spendLimit, List<VelocityRule> velocityRules, LongSupplier clock) {
+        this.spendLimit = spendLimit;
+        this.velocityRules = List.copyOf(velocityRules);
+        this.clock = clock;
+    }
+
+    private static SpendLimitStrategy newStrategy(RateLimitProperties.Strategy strategy, long windowMillis) {
+        return switch (strategy) {
+            case SLIDING_LOG -> new SlidingLogSpendLimit(MAX_REQUESTS, windowMillis);
+            case GCRA -> new GcraSpendLimit(MAX_REQUESTS, windowMillis);
+        };
+    }
+
+    public boolean allowSpend(UUID cardId) {
+        return spendLimit.tryAcquire(cardId, clock.getAsLong());
+    }
+
+    // Checks the amount (minor units) against every velocity rule and, only if all pass, records it in each of them.
+    // Returns the time it was recorded at, for releaseSpendAmount; empty when a rule declines it.
+    public OptionalLong allowSpendAmount(UUID cardId, long amount) {
+        if (velocityRules.isEmpty()) return OptionalLong.of(clock.getAsLong());
+
+        while (true) {
+            CardWindows card = cardVelocity.computeIfAbsent(cardId, k -> new CardWindows(newWindows()));
+            synchronized (card) {
+                if (card.evicted) continue; // pruned between lookup and lock: start over with a fresh entry
+                long now = clock.getAsLong();
+                for (VelocityWindow window : card.windows) {
+                    if (!window.fits(now, amount)) return OptionalLong.empty();
+                }
+                for (VelocityWindow window : card.windows) {
+                    window.add(now, amount);
+                }
+                return OptionalLong.of(now);
+            }
+        }
+    }
+
+    // Undo allowSpendAmount for a spend that did not go through (e.g. lost an optimistic lock race); recordedAtMillis
+    // is what allowSpendAmount returned
+    public void releaseSpendAmount(UUID cardId, long amount, long recordedAtMillis) {
+        CardWindows card = cardVelocity.get(cardId);
+        if (card == null) return;
+
+        synchronized (card) {
+            long now = clock.getAsLong();
+            for (VelocityWindow window : card.windows) {
+                window.remove(now, recordedAtMillis, amount);
+            }
+        }
     }
 
-    public synchronized boolean allowSpend(UUID cardId) {
-        long now = Instant.now().toEpochMilli();
-        Queue<Long> timestamps = cardSpendTimestamps.computeIfAbsent(cardId, k -> new ConcurrentLinkedQueue<>());
+    // Drops the windows of cards that spent nothing within any rule's window; a card that spends again starts afresh
+    @Scheduled(fixedDelay = 1, timeUnit = TimeUnit.MINUTES)
+    public void evictIdleVelocityWindows() {
+        long now = clock.getAsLong();
+        cardVelocity.forEach((cardId, card) -> {
+            synchronized (card) {
+                for (VelocityWindow window : card.windows) {
+                    if (window.total(now) != 0) return;
+                }
+                card.evicted = true;
+                cardVelocity.remove(cardId, card);
+            }
+        });
+    }
+
+    int trackedVelocityCards() {
+        return cardVelocity.size();
+    }
 
-        // Remove timestamps older than the window
-        while (!timestamps.isEmpty() && now - timestamps.peek() > WINDOW_MILLIS) {
-            timestamps.poll();
+    private VelocityWindow[] newWindows() {
+        VelocityWindow[] windows = new VelocityWindow[velocityRules.size()];
+        for (int i = 0; i < windows.length; i++) {
+            VelocityRule rule = velocityRules.get(i);
+            windows[i] = new VelocityWindow(rule.window().toMillis(), toMinorUnits(rule.maxAmount()));
         }
+        return windows;
+    }
 
-        if (timestamps.size() < MAX_REQUESTS) {
-            timestamps.add(now);
-            return true;
-        } else {
-            return false;
+    private static final class CardWindows {
+        final VelocityWindow[] windows;
+        boolean evicted; // guarded by this
+
+        CardWindows(VelocityWindow[] windows) {
+            this.windows = windows;
         }
     }
+
+    // Limits are configured in major units; sub-cent fractions round up (more permissive by less than a cent)
+    private static long toMinorUnits(BigDecimal amount) {
+        return Money.toMinor(amount.setScale(Money.SCALE, RoundingMode.UP));
+    }
 }
@@ -0,0 +1,228 @@
+package com.nium.cardplatform.service;
+
+import com.nium.cardplatform.config.RecentTransactionsProperties;
+import com.nium.cardplatform.jooq.tables.records.TransactionRecord;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Per-card ring of the latest transactions (newest first), tagged with the card's tx_count it reflects.
+// A ring is only served when its tag equals the tx_count just read from the card row, so a missed or
+// reordered update can make it stale but never wrong. Rings sit in a concurrent map and each is locked on its
+// own, so listings and appends of different cards never meet. Reads only stamp the ring's last access; once
+// the total number of cached transactions exceeds the budget, the writer that pushed it over evicts the least
+// recently used of a few rings sampled by a sweep over the map (approximate LRU, off the read path).
+@Component
+public class RecentTransactionCache {
+
+    private static final int EVICTION_SAMPLE = 5;
+
+    private final int ringSize;
+    private final int maxTransactions;
+    private final ConcurrentHashMap<UUID, Ring> rings = new ConcurrentHashMap<>();
+    private final LongAdder cachedTransactions = new LongAdder();
+    private final ReentrantLock evicting = new ReentrantLock();
+    private Iterator<Map.Entry<UUID, Ring>> sweep = Collections.emptyIterator(); // guarded by evicting
+    private final Counter hits;
+    private final Counter misses;
+
+    public RecentTransactionCache(RecentTransactionsProperties props, MeterRegistry meterRegistry) {
+        this.ringSize = Math.max(0, props.ringSize());
+        this.maxTransactions = props.maxTransactions();
+        this.hits = Counter.builder("transactions.recent.requests")
+                .tag("result", "hit")
+                .description("First-page transaction listings served from the in-memory ring")
+                .register(meterRegistry);
+        this.misses = Counter.builder("transactions.recent.requests")
+                .tag("result", "miss")
+                .description("First-page transaction listings that had to query the database")
+                .register(meterRegistry);
+        Gauge.builder("transactions.recent.cached", this, RecentTransactionCache::cachedTransactions)
+                .description("Transactions held across all per-card rings")
+                .register(meterRegistry);
+    }
+
+    public int ringSize() {
+        return ringSize;
+    }
+
+    // Whether the card has a ring at all, checked before reading its tx_count; a card without one counts as a miss
+    public boolean hasRing(UUID cardId) {
+        if (ringSize > 0 && rings.containsKey(cardId)) return true;
+        misses.increment();
+        return false;
+    }
+
+    // Newest-first first page, or null when the ring is missing, stale or too short for the request
+    public List<TransactionRecord> firstPage(UUID cardId, long txCount, int limit) {
+        Ring ring = limit <= ringSize ? rings.get(cardId) : null;
+        List<TransactionRecord> page = ring == null ? null : ring.firstPage(txCount, limit);
+        if (page == null) {
+            if (limit <= ringSize) misses.increment();
+            return null;
+        }
+        hits.increment();
+        return page;
+    }
+
+    // Seeds the ring from a first-page query; only a complete window is kept
+    public void fill(UUID cardId, long txCount, List<TransactionRecord> newestFirst) {
+        if (ringSize == 0 || newestFirst.size() != Math.min(txCount, ringSize)) return;
+        Ring ring = new Ring(txCount);
+        for (int i = newestFirst.size() - 1; i >= 0; i--) ring.push(newestFirst.get(i));
+        install(cardId, ring);
+    }
+
+    // Called once the transaction that brought the card to txCount has committed
+    public void append(UUID cardId, long txCount, TransactionRecord tx) {
+        if (ringSize == 0) return;
+        Ring ring = rings.get(cardId);
+        if (ring != null) {
+            boolean extended = false;
+            synchronized (ring) {
+                if (!ring.retired) {
+                    if (txCount <= ring.txCount) return; // older news
+                    if (txCount == ring.txCount + 1) {
+                        ring.txCount = txCount;
+                        ring.touch();
+                        // A fill that raced with this commit may already hold the row
+                        if (!ring.contains(tx.getId()) && ring.push(tx)) cachedTransactions.increment();
+                        extended = true;
+                    }
+                }
+            }
+            if (extended) {
+                evictIfOverBudget();
+                return;
+            }
+        }
+        // No ring yet, or updates were missed: restart from this transaction alone
+        Ring restarted = new Ring(txCount);
+        restarted.push(tx);
+        install(cardId, restarted);
+    }
+
+    public void evict(UUID cardId) {
+        Ring removed = rings.remove(cardId);
+        if (removed != null) retire(removed);
+    }
+
+    int cachedTransactions() {
+        return (int) cachedTransactions.sum();
+    }
+
+    int cachedCards() {
+        return rings.size();
+    }
+
+    // Puts the ring in place unless the card already has one at least as new
+    private void install(UUID cardId, Ring ring) {
+        boolean[] installed = new boolean[1];
+        rings.compute(cardId, (id, current) -> {
+            if (current != null) {
+                synchronized (current) {
+                    if (!current.retired && current.txCount >= ring.txCount) return current;
+                }
+                retire(current);
+            }
+            installed[0] = true;
+            return ring;
+        });
+        if (installed[0]) {
+            cachedTransactions.add(ring.size);
+            evictIfOverBudget();
+        }
+    }
+
+    // A ring out of the map takes no more pushes and gives its transactions back to the budget
+    private void retire(Ring ring) {
+        synchronized (ring) {
+            if (ring.retired) return;
+            ring.retired = true;
+            cachedTransactions.add(-ring.size);
+        }
+    }
+
+    // One writer evicts at a time; the others go on. The evictor checks again after letting go, so a push
+    // that landed while it held the lock is not left over budget.
+    private void evictIfOverBudget() {
+        do {
+            if (cachedTransactions.sum() <= maxTransactions || !evicting.tryLock()) return;
+            try {
+                while (cachedTransactions.sum() > maxTransactions && !rings.isEmpty()) {
+                    Map.Entry<UUID, Ring> victim = null;
+                    for (int i = 0; i < EVICTION_SAMPLE; i++) {
+                        if (!sweep.hasNext()) sweep = rings.entrySet().iterator();
+                        if (!sweep.hasNext()) break;
+                        Map.Entry<UUID, Ring> candidate = sweep.next();
+                        if (victim == null || candidate.getValue().lastAccess < victim.getValue().lastAccess) victim = candidate;
+                    }
+                    if (victim == null) break;
+                    if (rings.remove(victim.getKey(), victim.getValue())) retire(victim.getValue());
+                }
+            } finally {
+                evicting.unlock();
+            }
+        } while (!rings.isEmpty());
+    }
+
+    private final class Ring {
+        private final TransactionRecord[] slots = new TransactionRecord[ringSize];
+        private int head; // index of the newest entry
+        private int size;
+        private long txCount;
+        private boolean retired;
+        private volatile long lastAccess = System.nanoTime();
+
+        private Ring(long txCount) {
+            this.txCount = txCount;
+            this.head = -1;
+        }
+
+        private void touch() {
+            lastAccess = System.nanoTime();
+        }
+
+        private synchronized List<TransactionRecord> firstPage(long expectedTxCount, int limit) {
+            if (retired || txCount != expectedTxCount || (size < limit && size < txCount)) return null;
+            touch();
+            return newest(limit);
+        }
+
+        // Returns true when the ring grew (false when the oldest entry was overwritten)
+        private boolean push(TransactionRecord tx) {
+            head = (head + 1) % slots.length;
+            slots[head] = tx;
+            if (size < slots.length) {
+                size++;
+                return true;
+            }
+            return false;
+        }
+
+        private boolean contains(UUID txId) {
+            for (int i = 0; i < size; i++) {
+                if (slots[(head - i + slots.length) % slots.length].getId().equals(txId)) return true;
+            }
+            return false;
+        }
+
+        private List<TransactionRecord> newest(int limit) {
+            int n = Math.min(limit, size);
+            List<TransactionRecord> page = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) page.add(slots[(head - i + slots.length) % slots.length]);
+            return page;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.nium.cardplatform.service;
+
+import com.nium.cardplatform.config.ReconciliationProperties;
+import com.nium.cardplatform.dto.ReconciliationMismatch;
+import com.nium.cardplatform.dto.ReconciliationReport;
+import com.nium.cardplatform.repository.ReconciliationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.jooq.Record2;
+import org.jooq.Result;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+// Verifies balance == sum(TOPUP + TRANSFER_IN) - sum(SPEND + TRANSFER_OUT) for every card (slots of sharded cards included). The calling thread pages through cards by
+// id; each page is verified on a small dedicated fork/join pool (split into leaves of one grouped SUM query
+// each). Read-ahead is bounded so at most parallelism connections and maxInFlightChunks pages are in use,
+// which leaves the rest of the connection pool to online traffic.
+@Service
+public class ReconciliationService {
+    private static final Logger log = LoggerFactory.getLogger(ReconciliationService.class);
+
+    private final ReconciliationRepository repo;
+    private final ReconciliationProperties props;
+    private final ForkJoinPool pool;
+
+    private final Counter cardsCheckedCounter;
+    private final Counter mismatchCounter;
+    private final Timer runTimer;
+
+    public ReconciliationService(ReconciliationRepository repo, ReconciliationProperties props, MeterRegistry meterRegistry) {
+        this.repo = repo;
+        this.props = props;
+        this.pool = new ForkJoinPool(props.parallelism(), p -> {
+            ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            t.setName("reconciliation-" + t.getPoolIndex());
+            return t;
+        }, null, false);
+        this.cardsCheckedCounter = Counter.builder("reconciliation.cards.checked")
+                .description("Cards verified by reconciliation runs")
+                .register(meterRegistry);
+        this.mismatchCounter = Counter.builder("reconciliation.mismatches")
+                .description("Cards whose balance did not match their transactions")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("reconciliation.run")
+                .description("Duration of a full reconciliation run")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${cardplatform.reconciliation.cron:-}")
+    public void scheduledRun() {
+        ReconciliationReport report = reconcile();
+        log.info("Reconciliation checked {} cards in {} ms ({} cards/s), {} mismatches",
+                report.getCardsChecked(), report.getDurationMillis(), Math.round(report.getCardsPerSecond()), report.getMismatchCount());
+    }
+
+    // One run at a time; an on-demand request during a scheduled run waits for it
+    public synchronized ReconciliationReport reconcile() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        long start = System.nanoTime();
+        Tally tally = new Tally(props.maxReportedMismatches());
+        Semaphore inFlight = new Semaphore(props.maxInFlightChunks());
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<CompletableFuture<Void>> running = new ArrayList<>();
+
+        try {
+            UUID after = null;
+            while (failure.get() == null) {
+                inFlight.acquire();
+                Result<Record2<UUID, Long>> page = repo.fetchBalances(after, props.chunkSize());
+                if (page.isEmpty()) {
+                    inFlight.release();
+                    break;
+                }
+                after = page.get(page.size() - 1).value1();
+
+                running.removeIf(CompletableFuture::isDone);
+                running.add(CompletableFuture
+                        .runAsync(() -> new VerifyChunk(page, 0, page.size(), tally).invoke(), pool)
+                        .whenComplete((v, e) -> {
+                            inFlight.release();
+                            if (e != null) failure.compareAndSet(null, e instanceof CompletionException ? e.getCause() : e);
+                        }));
+
+                if (page.size() < props.chunkSize()) break;
+            }
+            // Failures are collected above; wait for the remaining chunks either way
+            CompletableFuture.allOf(running.toArray(CompletableFuture[]::new)).exceptionally(e -> null).join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Reconciliation interrupted", e);
+        }
+        if (failure.get() != null) {
+            throw new IllegalStateException("Reconciliation failed", failure.get());
+        }
+
+        long durationNanos = System.nanoTime() - start;
+        runTimer.record(durationNanos, TimeUnit.NANOSECONDS);
+        cardsCheckedCounter.increment(tally.checked.sum());
+        mismatchCounter.increment(tally.mismatchCount.sum());
+        if (tally.mismatchCount.sum() > 0) {
+            log.warn("Reconciliation found {} cards whose balance does not match their transactions", tally.mismatchCount.sum());
+        }
+        return new ReconciliationReport(startedAt, tally.checked.sum(), tally.mismatchCount.sum(),
+                new ArrayList<>(tally.mismatches), TimeUnit.NANOSECONDS.toMillis(durationNanos));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    // Verifies page[from, to); leaves cover a contiguous id range so one grouped query returns their sums
+    private class VerifyChunk extends RecursiveAction {
+        private final Result<Record2<UUID, Long>> page;
+        private final int from;
+        private final int to;
+        private final Tally tally;
+
+        VerifyChunk(Result<Record2<UUID, Long>> page, int from, int to, Tally tally) {
+            this.page = page;
+            this.from = from;
+            this.to = to;
+            this.tally = tally;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > props.splitThreshold()) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new VerifyChunk(page, from, mid, tally), new VerifyChunk(page, mid, to, tally));
+                return;
+            }
+            Map<UUID, Long> nets = repo.sumNetByCardRange(page.get(from).value1(), page.get(to - 1).value1());
+            for (int i = from; i < to; i++) {
+                UUID cardId = page.get(i).value1();
+                long net = nets.getOrDefault(cardId, 0L);
+                if (page.get(i).value2() != net) {
+                    recheck(cardId);
+                }
+            }
+            tally.checked.add(to - from);
+        }
+
+        // Balance and sums above come from different statements, so a card written in between looks off;
+        // only cards that still disagree when read in one statement are reported
+        private void recheck(UUID cardId) {
+            Record2<Long, Long> current = repo.fetchBalanceAndNet(cardId);
+            if (current != null && !current.value1().equals(current.value2())) {
+                tally.mismatch(new ReconciliationMismatch(cardId, Money.fromMinor(current.value1()), Money.fromMinor(current.value2())));
+            }
+        }
+    }
+
+    private static class Tally {
+        final LongAdder checked = new LongAdder();
+        final LongAdder mismatchCount = new LongAdder();
+        final ConcurrentLinkedQueue<ReconciliationMismatch> mismatches = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger reported = new AtomicInteger();
+        private final int maxReported;
+
+        Tally(int maxReported) {
+            this.maxReported = maxReported;
+        }
+
+        void mismatch(ReconciliationMismatch mismatch) {
+            mismatchCount.increment();
+            if (reported.getAndIncrement() < maxReported) {
+                mismatches.add(mismatch);
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.nium.cardplatform.service;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Exact limit: keeps the timestamps of the last N spends per card and drops the ones outside the window
+class SlidingLogSpendLimit implements SpendLimitStrategy {
+    private final int maxRequests;
+    private final long windowMillis;
+
+    private final Map<UUID, ArrayDeque<Long>> cardSpendTimestamps = new ConcurrentHashMap<>();
+
+    SlidingLogSpendLimit(int maxRequests, long windowMillis) {
+        this.maxRequests = maxRequests;
+        this.windowMillis = windowMillis;
+    }
+
+    @Override
+    public boolean tryAcquire(UUID cardId, long nowMillis) {
+        ArrayDeque<Long> timestamps = cardSpendTimestamps.computeIfAbsent(cardId, k -> new ArrayDeque<>(maxRequests));
+        synchronized (timestamps) {
+            // Remove timestamps older than the window
+            while (!timestamps.isEmpty() && nowMillis - timestamps.peek() > windowMillis) {
+                timestamps.poll();
+            }
+
+            if (timestamps.size() < maxRequests) {
+                timestamps.add(nowMillis);
+                return true;
+            } else {
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.nium.cardplatform.service;
+
+import com.nium.cardplatform.config.SnapshotProperties;
+import com.nium.cardplatform.repository.SnapshotRepository;
+import com.nium.cardplatform.wal.LedgerJournal;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+// Warm restart for the in-memory database: the ledger tables (cards, balance slots, transactions) and the
+// undelivered outbox events are written to a compressed snapshot every interval and on shutdown, and the latest
+// snapshot is loaded right after schema.sql at startup, before the web server takes traffic. Changes since the
+// last snapshot are lost on a crash unless the write-ahead log (LedgerJournal) is on, which is replayed on top of
+// the snapshot and trimmed to what the snapshot does not contain. Snapshot files are named after a checksum of
+// schema.sql, so one written for another schema is ignored.
+@Service
+@ConditionalOnProperty(name = "cardplatform.snapshot.enabled", havingValue = "true")
+@DependsOnDatabaseInitialization
+public class SnapshotService {
+    private static final Logger log = LoggerFactory.getLogger(SnapshotService.class);
+
+    private final SnapshotRepository repo;
+    private final LedgerJournal journal;
+    private final Path file;
+    private final Path partial;
+
+    private final Timer writeTimer;
+    private final Timer restoreTimer;
+
+    public SnapshotService(SnapshotRepository repo, LedgerJournal journal, SnapshotProperties props, MeterRegistry meterRegistry) {
+        this.repo = repo;
+        this.journal = journal;
+        String name = "snapshot-" + schemaChecksum() + ".sql.gz";
+        this.file = props.directory().resolve(name);
+        this.partial = props.directory().resolve(name + ".part");
+        this.writeTimer = Timer.builder("snapshot.write")
+                .description("Time to write a database snapshot")
+                .register(meterRegistry);
+        this.restoreTimer = Timer.builder("snapshot.restore")
+                .description("Time to load the database snapshot at startup")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void restore() {
+        if (!Files.exists(file)) {
+            warnAboutOtherSnapshots();
+            return;
+        }
+        long start = System.nanoTime();
+        repo.runScript(file);
+        long durationNanos = System.nanoTime() - start;
+        restoreTimer.record(durationNanos, TimeUnit.NANOSECONDS);
+        log.info("Restored snapshot {} in {} ms: {} cards, {} transactions",
+                file, TimeUnit.NANOSECONDS.toMillis(durationNanos), repo.countCards(), repo.countTransactions());
+    }
+
+    @Scheduled(fixedDelayString = "${cardplatform.snapshot.interval:5m}", initialDelayString = "${cardplatform.snapshot.interval:5m}")
+    public void scheduledSnapshot() {
+        snapshot();
+    }
+
+    // Written next to the previous snapshot and renamed over it when complete, so a crash mid-write keeps the old one
+    public synchronized Path snapshot() {
+        long start = System.nanoTime();
+        try {
+            Files.createDirectories(file.getParent());
+            Files.deleteIfExists(partial);
+            long segment = journal.checkpoint();
+            repo.writeScript(partial);
+            Files.move(partial, file, REPLACE_EXISTING, ATOMIC_MOVE);
+            journal.checkpointComplete(segment);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write snapshot " + file, e);
+        }
+        long durationNanos = System.nanoTime() - start;
+        writeTimer.record(durationNanos, TimeUnit.NANOSECONDS);
+        log.debug("Wrote snapshot {} in {} ms", file, TimeUnit.NANOSECONDS.toMillis(durationNanos));
+        return file;
+    }
+
+    @PreDestroy
+    void snapshotOnShutdown() {
+        try {
+            snapshot();
+        } catch (RuntimeException e) {
+            log.error("Final snapshot on shutdown failed; the previous one is kept", e);
+        }
+    }
+
+    private void warnAboutOtherSnapshots() {
+        if (!Files.isDirectory(file.getParent())) return;
+        try (DirectoryStream<Path> others = Files.newDirectoryStream(file.getParent(), "snapshot-*.sql.gz")) {
+            for (Path other : others) {
+                log.warn("Ignoring snapshot {} written for a different schema.sql", other);
+            }
+        } catch (IOException e) {
+            log.warn("Cannot list snapshots in {}", file.getParent(), e);
+        }
+    }
+
+    private static String schemaChecksum() {
+        CRC32 crc = new CRC32();
+        try (InputStream in = new ClassPathResource("db/schema.sql").getInputStream()) {
+            crc.update(in.readAllBytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read db/schema.sql", e);
+        }
+        return Long.toHexString(crc.getValue());
+    }
+}
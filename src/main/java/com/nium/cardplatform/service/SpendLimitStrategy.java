@@ -0,0 +1,9 @@
+package com.nium.cardplatform.service;
+
+import java.util.UUID;
+
+// Decides whether one more spend fits the per-card count limit (max N spends per window)
+public interface SpendLimitStrategy {
+
+    boolean tryAcquire(UUID cardId, long nowMillis);
+}
@@ -0,0 +1,234 @@
+package com.nium.cardplatform.service;
+
+import com.nium.cardplatform.config.StatementProperties;
+import com.nium.cardplatform.dto.StatementRunReport;
+import com.nium.cardplatform.exception.InvalidStatementPeriodException;
+import com.nium.cardplatform.repository.StatementRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.jooq.Cursor;
+import org.jooq.Record1;
+import org.jooq.Record4;
+import org.jooq.Result;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.time.format.DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+// Writes one gzip-compressed CSV statement per card for a date range. The calling thread pages through card ids;
+// each card is streamed on a small dedicated pool from a jOOQ cursor straight through the compressor into a file
+// channel, so memory per card is one fetch of rows plus the buffers, whatever the card's volume. At most
+// parallelism cursors (connections) are open and twice as many cards queued, which leaves the rest of the
+// connection pool to online traffic. A statement is written to a temporary file and renamed when complete.
+@Service
+public class StatementService {
+    private static final Logger log = LoggerFactory.getLogger(StatementService.class);
+
+    static final String HEADER = "transaction_id,created_at,type,amount,balance\n";
+
+    private final StatementRepository repo;
+    private final StatementProperties props;
+    private final ExecutorService pool;
+
+    private final Counter cardsCounter;
+    private final Counter transactionsCounter;
+    private final Timer runTimer;
+
+    public StatementService(StatementRepository repo, StatementProperties props, MeterRegistry meterRegistry) {
+        this.repo = repo;
+        this.props = props;
+        AtomicInteger threads = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(props.parallelism(), r -> {
+            Thread t = new Thread(r, "statement-" + threads.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+        this.cardsCounter = Counter.builder("statements.cards")
+                .description("Card statements written")
+                .register(meterRegistry);
+        this.transactionsCounter = Counter.builder("statements.transactions")
+                .description("Transactions written to card statements")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("statements.run")
+                .description("Duration of a full statement run")
+                .register(meterRegistry);
+    }
+
+    // Statements for the previous calendar month
+    @Scheduled(cron = "${cardplatform.statements.cron:-}")
+    public void scheduledRun() {
+        YearMonth month = YearMonth.now().minusMonths(1);
+        StatementRunReport report = generate(month.atDay(1), month.atEndOfMonth());
+        log.info("Statements for {} written for {} cards ({} transactions, {} bytes) in {} ms ({} cards/s)",
+                month, report.getCardsWritten(), report.getTransactionsWritten(), report.getBytesWritten(),
+                report.getDurationMillis(), Math.round(report.getCardsPerSecond()));
+    }
+
+    // Statements for [from, to] (whole days, to inclusive) of every card created before the period ended.
+    // One run at a time; an on-demand request during a scheduled run waits for it. Rerunning a period overwrites it.
+    public synchronized StatementRunReport generate(LocalDate from, LocalDate to) {
+        if (from == null || to == null || from.isAfter(to)) {
+            throw new InvalidStatementPeriodException("Statement period must have from <= to.");
+        }
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.plusDays(1).atStartOfDay();
+        Path dir = props.directory().resolve(from + "_" + to);
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create statement directory " + dir, e);
+        }
+
+        long startNanos = System.nanoTime();
+        Tally tally = new Tally();
+        Semaphore queued = new Semaphore(props.parallelism() * 2);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<CompletableFuture<Void>> running = new ArrayList<>();
+
+        try {
+            UUID after = null;
+            page:
+            while (failure.get() == null) {
+                Result<Record1<UUID>> page = repo.fetchCardIds(after, end, props.chunkSize());
+                for (Record1<UUID> card : page) {
+                    queued.acquire();
+                    if (failure.get() != null) {
+                        queued.release();
+                        break page;
+                    }
+                    UUID cardId = card.value1();
+                    running.removeIf(CompletableFuture::isDone);
+                    running.add(CompletableFuture
+                            .runAsync(() -> write(dir, cardId, start, end, tally), pool)
+                            .whenComplete((v, e) -> {
+                                queued.release();
+                                if (e != null) failure.compareAndSet(null, e instanceof CompletionException ? e.getCause() : e);
+                            }));
+                }
+                if (page.size() < props.chunkSize()) break;
+                after = page.get(page.size() - 1).value1();
+            }
+            // Failures are collected above; wait for the remaining cards either way
+            CompletableFuture.allOf(running.toArray(CompletableFuture[]::new)).exceptionally(e -> null).join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Statement run interrupted", e);
+        }
+        if (failure.get() != null) {
+            throw new IllegalStateException("Statement run failed", failure.get());
+        }
+
+        long durationNanos = System.nanoTime() - startNanos;
+        runTimer.record(durationNanos, TimeUnit.NANOSECONDS);
+        cardsCounter.increment(tally.cards.sum());
+        transactionsCounter.increment(tally.transactions.sum());
+        return new StatementRunReport(from, to, dir.toString(), tally.cards.sum(), tally.transactions.sum(),
+                tally.bytes.sum(), TimeUnit.NANOSECONDS.toMillis(durationNanos));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    // Opening balance row, one row per transaction with the running balance, closing balance row
+    private void write(Path dir, UUID cardId, LocalDateTime start, LocalDateTime end, Tally tally) {
+        Path file = dir.resolve(cardId + ".csv.gz");
+        Path partial = dir.resolve(cardId + ".csv.gz.part");
+        long balance = repo.sumNetBefore(cardId, start);
+        long transactions = 0;
+        boolean complete = false;
+        try {
+            try (FileChannel channel = FileChannel.open(partial, CREATE, WRITE, TRUNCATE_EXISTING);
+                 Writer out = new BufferedWriter(new OutputStreamWriter(
+                         new GZIPOutputStream(Channels.newOutputStream(channel), props.bufferSize()), StandardCharsets.UTF_8), props.bufferSize());
+                 Cursor<Record4<UUID, LocalDateTime, String, Long>> txs = repo.streamTransactions(cardId, start, end, props.fetchSize())) {
+                out.write(HEADER);
+                row(out, "", start, "OPENING_BALANCE", "", balance);
+                for (Record4<UUID, LocalDateTime, String, Long> tx : txs) {
+                    long amount = tx.value4();
+                    balance += isCredit(tx.value3()) ? amount : -amount;
+                    row(out, tx.value1().toString(), tx.value2(), tx.value3(), Money.fromMinor(amount).toPlainString(), balance);
+                    transactions++;
+                }
+                row(out, "", end, "CLOSING_BALANCE", "", balance);
+            }
+            Files.move(partial, file, REPLACE_EXISTING, ATOMIC_MOVE);
+            complete = true;
+            tally.bytes.add(Files.size(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write statement " + file, e);
+        } finally {
+            if (!complete) deletePartial(partial);
+        }
+        tally.cards.increment();
+        tally.transactions.add(transactions);
+    }
+
+    private static void row(Writer out, String id, LocalDateTime at, String type, String amount, long balance) throws IOException {
+        out.write(id);
+        out.write(',');
+        out.write(ISO_LOCAL_DATE_TIME.format(at));
+        out.write(',');
+        out.write(type);
+        out.write(',');
+        out.write(amount);
+        out.write(',');
+        out.write(Money.fromMinor(balance).toPlainString());
+        out.write('\n');
+    }
+
+    private static void deletePartial(Path partial) {
+        try {
+            Files.deleteIfExists(partial);
+        } catch (IOException e) {
+            log.warn("Cannot delete partial statement {}", partial, e);
+        }
+    }
+
+    private static boolean isCredit(String type) {
+        return "TOPUP".equals(type) || "TRANSFER_IN".equals(type);
+    }
+
+    private static class Tally {
+        final LongAdder cards = new LongAdder();
+        final LongAdder transactions = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+    }
+}
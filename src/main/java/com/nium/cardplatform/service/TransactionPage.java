@@ -0,0 +1,10 @@
+package com.nium.cardplatform.service;
+
+import com.nium.cardplatform.dto.TransactionResponse;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// One page of a card's transactions plus the card's maintained totals (no COUNT query)
+public record TransactionPage(List<TransactionResponse> items, long totalCount, LocalDateTime lastTransactionAt) {
+}
@@ -0,0 +1,71 @@
+package com.nium.cardplatform.service;
+
+import java.util.Arrays;
+
+// Rolling sum of spent amounts (minor units) over a time window, kept in a ring of buckets.
+// Each check only touches the buckets that expired since the previous call, so cost is O(1)
+// amortised. The ring holds one bucket more than the window needs, so the sum always covers
+// at least the full window (it errs on the side of declining).
+class VelocityWindow {
+    static final int BUCKETS = 60;
+
+    private final long bucketMillis;
+    private final long maxAmount;
+    private final long[] sums = new long[BUCKETS + 1];
+    private long total;
+    private long currentBucket = Long.MIN_VALUE;
+
+    VelocityWindow(long windowMillis, long maxAmount) {
+        this.bucketMillis = Math.max(1, windowMillis / BUCKETS);
+        this.maxAmount = maxAmount;
+    }
+
+    boolean fits(long nowMillis, long amount) {
+        advance(nowMillis);
+        return total + amount <= maxAmount;
+    }
+
+    void add(long nowMillis, long amount) {
+        advance(nowMillis);
+        sums[slot(currentBucket)] += amount;
+        total += amount;
+    }
+
+    // Give back an amount that was added at addedMillis but never spent. It comes out of the bucket it went into,
+    // so it does not take newer spends' amounts out of the window early; if that bucket has expired it is gone already.
+    void remove(long nowMillis, long addedMillis, long amount) {
+        advance(nowMillis);
+        long bucket = addedMillis / bucketMillis;
+        if (bucket > currentBucket || currentBucket - bucket >= sums.length) return;
+        int slot = slot(bucket);
+        long taken = Math.min(sums[slot], amount);
+        sums[slot] -= taken;
+        total -= taken;
+    }
+
+    long total(long nowMillis) {
+        advance(nowMillis);
+        return total;
+    }
+
+    private void advance(long nowMillis) {
+        long bucket = nowMillis / bucketMillis;
+        if (bucket <= currentBucket) return;
+
+        if (currentBucket == Long.MIN_VALUE || bucket - currentBucket >= sums.length) {
+            Arrays.fill(sums, 0);
+            total = 0;
+        } else {
+            for (long b = currentBucket + 1; b <= bucket; b++) {
+                int slot = slot(b);
+                total -= sums[slot];
+                sums[slot] = 0;
+            }
+        }
+        currentBucket = bucket;
+    }
+
+    private int slot(long bucket) {
+        return (int) Math.floorMod(bucket, (long) sums.length);
+    }
+}
@@ -0,0 +1,32 @@
+package com.nium.cardplatform.service;
+
+import com.nium.cardplatform.config.WalProperties;
+import com.nium.cardplatform.wal.LedgerJournal;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+// Bounds the write-ahead log when snapshots are off. SnapshotService trims the log at every snapshot; without
+// it the log would only grow, so once it passes cardplatform.wal.compact-above it is rewritten as the current
+// rows (LedgerJournal.compact). Commits wait while that runs; so that a ledger larger than the threshold is not
+// rewritten at every check, the next compaction also waits until the log has doubled since the last one.
+@Service
+@ConditionalOnProperty(name = "cardplatform.snapshot.enabled", havingValue = "false", matchIfMissing = true)
+public class WalCompactionService {
+
+    private final LedgerJournal journal;
+    private final long compactAboveBytes;
+    private long compactedBytes;
+
+    public WalCompactionService(LedgerJournal journal, WalProperties props) {
+        this.journal = journal;
+        this.compactAboveBytes = props.compactAbove().toBytes();
+    }
+
+    @Scheduled(fixedDelayString = "${cardplatform.wal.compaction-interval:1m}", initialDelayString = "${cardplatform.wal.compaction-interval:1m}")
+    public void compactIfLarge() {
+        if (journal.size() <= Math.max(compactAboveBytes, 2 * compactedBytes)) return;
+        journal.compact();
+        compactedBytes = journal.size();
+    }
+}
@@ -0,0 +1,49 @@
+package com.nium.cardplatform.service.outbox;
+
+import com.nium.cardplatform.config.OutboxProperties;
+import com.nium.cardplatform.jooq.tables.records.OutboxEventRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+// Local stand-in for a message broker: one JSON line per event, fsynced per batch
+@Component
+@ConditionalOnProperty(name = "cardplatform.outbox.sink", havingValue = "file", matchIfMissing = true)
+public class FileOutboxSink implements OutboxSink {
+
+    private final Path file;
+
+    public FileOutboxSink(OutboxProperties props) {
+        this.file = props.file();
+    }
+
+    @Override
+    public void publish(List<OutboxEventRecord> batch) throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (OutboxEventRecord event : batch) {
+            lines.append("{\"id\":").append(event.getId())
+                    .append(",\"event\":").append(event.getPayload())
+                    .append("}\n");
+        }
+
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+        try (FileChannel channel = FileChannel.open(file, CREATE, WRITE, APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+    }
+}
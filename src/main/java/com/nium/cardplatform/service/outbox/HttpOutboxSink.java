@@ -0,0 +1,44 @@
+package com.nium.cardplatform.service.outbox;
+
+import com.nium.cardplatform.config.OutboxProperties;
+import com.nium.cardplatform.jooq.tables.records.OutboxEventRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.util.List;
+
+// POSTs each batch as a JSON array of {"id": ..., "event": {...}} to cardplatform.outbox.http-url
+@Component
+@ConditionalOnProperty(name = "cardplatform.outbox.sink", havingValue = "http")
+public class HttpOutboxSink implements OutboxSink {
+
+    private final RestClient client;
+
+    public HttpOutboxSink(OutboxProperties props, RestClient.Builder builder) {
+        if (props.httpUrl() == null) {
+            throw new IllegalStateException("cardplatform.outbox.http-url is required for the http outbox sink");
+        }
+        this.client = builder.baseUrl(props.httpUrl().toString()).build();
+    }
+
+    @Override
+    public void publish(List<OutboxEventRecord> batch) {
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < batch.size(); i++) {
+            if (i > 0) body.append(',');
+            body.append("{\"id\":").append(batch.get(i).getId())
+                    .append(",\"event\":").append(batch.get(i).getPayload())
+                    .append('}');
+        }
+        body.append(']');
+
+        // Any non-2xx answer throws, which leaves the batch in the outbox for the next run
+        client.post()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body.toString())
+                .retrieve()
+                .toBodilessEntity();
+    }
+}
@@ -0,0 +1,98 @@
+package com.nium.cardplatform.service.outbox;
+
+import com.nium.cardplatform.config.OutboxProperties;
+import com.nium.cardplatform.jooq.tables.records.OutboxEventRecord;
+import com.nium.cardplatform.repository.OutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Drains the outbox table in id order, one batch at a time. Rows are deleted only after the sink
+// accepted them (at-least-once): a crash between the two re-delivers that batch.
+@Component
+public class OutboxRelay {
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxRepository outboxRepo;
+    private final OutboxSink sink;
+    private final OutboxProperties props;
+
+    private final Counter published;
+    private final Counter failures;
+    private final Timer batchTimer;
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    public OutboxRelay(OutboxRepository outboxRepo, OutboxSink sink, OutboxProperties props, MeterRegistry meterRegistry) {
+        this.outboxRepo = outboxRepo;
+        this.sink = sink;
+        this.props = props;
+        this.published = Counter.builder("outbox.events.published")
+                .description("Outbox events accepted by the sink")
+                .register(meterRegistry);
+        this.failures = Counter.builder("outbox.publish.failures")
+                .description("Outbox batches the sink rejected")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("outbox.batch.publish")
+                .description("Time to hand one batch to the sink")
+                .register(meterRegistry);
+        Gauge.builder("outbox.events.pending", pending, AtomicLong::get)
+                .description("Events waiting in the outbox after the last relay run")
+                .register(meterRegistry);
+        Gauge.builder("outbox.lag.seconds", lagMillis, v -> v.get() / 1000.0)
+                .description("Age of the oldest undelivered event after the last relay run")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${cardplatform.outbox.poll-interval:500ms}")
+    public void scheduledDrain() {
+        drain();
+    }
+
+    // Returns the number of events delivered in this run
+    public synchronized int drain() {
+        int delivered = 0;
+        try {
+            for (int i = 0; i < props.maxBatchesPerRun(); i++) {
+                List<OutboxEventRecord> batch = outboxRepo.fetchBatch(props.batchSize());
+                if (batch.isEmpty()) break;
+
+                batchTimer.recordCallable(() -> {
+                    sink.publish(batch);
+                    return null;
+                });
+                outboxRepo.deleteByIds(batch.stream().map(OutboxEventRecord::getId).toList());
+                published.increment(batch.size());
+                delivered += batch.size();
+
+                if (batch.size() < props.batchSize()) break;
+            }
+        } catch (Exception e) {
+            failures.increment();
+            log.warn("Outbox relay failed, will retry on next run: {}", e.toString());
+        } finally {
+            updateLag();
+        }
+        return delivered;
+    }
+
+    private void updateLag() {
+        try {
+            pending.set(outboxRepo.countPending());
+            LocalDateTime oldest = outboxRepo.oldestPendingCreatedAt();
+            lagMillis.set(oldest == null ? 0 : Math.max(0, Duration.between(oldest, LocalDateTime.now()).toMillis()));
+        } catch (Exception e) {
+            log.debug("Could not refresh outbox lag", e);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.nium.cardplatform.service.outbox;
+
+import com.nium.cardplatform.jooq.tables.records.OutboxEventRecord;
+
+import java.util.List;
+
+// Destination of outbox events. A batch counts as delivered only when publish returns normally;
+// on failure it is retried later, so consumers must tolerate duplicates (dedupe on the event id).
+public interface OutboxSink {
+
+    void publish(List<OutboxEventRecord> batch) throws Exception;
+}
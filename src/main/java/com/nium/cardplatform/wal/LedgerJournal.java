@@ -0,0 +1,355 @@
+package com.nium.cardplatform.wal;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nium.cardplatform.config.WalProperties;
+import com.nium.cardplatform.jooq.tables.records.OutboxEventRecord;
+import com.nium.cardplatform.jooq.tables.records.TransactionRecord;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.jooq.Condition;
+import org.jooq.Cursor;
+import org.jooq.DSLContext;
+import org.jooq.Record;
+import org.jooq.Row2;
+import org.jooq.Table;
+import org.jooq.UpdatableRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static com.nium.cardplatform.jooq.tables.Card.CARD;
+import static com.nium.cardplatform.jooq.tables.CardBalanceSlot.CARD_BALANCE_SLOT;
+import static com.nium.cardplatform.jooq.tables.OutboxEvent.OUTBOX_EVENT;
+import static com.nium.cardplatform.jooq.tables.Transaction.TRANSACTION;
+import static org.jooq.impl.DSL.inline;
+import static org.jooq.impl.DSL.max;
+import static org.jooq.impl.DSL.noCondition;
+import static org.jooq.impl.DSL.row;
+
+// Durability for the in-memory ledger. Repositories report the card, balance slot, transaction and outbox rows
+// each transaction writes; just before it commits, while it still holds the row locks, the rows are read back and
+// appended to the write-ahead log as one entry, so entries touching the same row are in commit order. The
+// transaction then waits for the group fsync before it commits, so no other reader (the outbox relay among
+// them) sees a change that is not yet on disk; a crash can lose an entry only for a transaction that did not
+// commit. At startup the log is replayed on top of the restored snapshot; replay writes whole rows (MERGE), so
+// entries the snapshot already contains are harmless. Snapshots trim the log through checkpoint; without them
+// compact() rewrites it as the current rows. With cardplatform.wal.enabled false every method returns at once.
+@Component
+public class LedgerJournal implements SmartInitializingSingleton {
+    private static final Logger log = LoggerFactory.getLogger(LedgerJournal.class);
+
+    private static final int COMPACTION_ROWS_PER_ENTRY = 1_000;
+
+    private final DSLContext dsl;
+    private final ObjectMapper objectMapper;
+    private final WriteAheadLog wal;
+    private final AtomicLong seq = new AtomicLong();
+    // Highest outbox id logged or replayed; compaction keeps it, as the delivered rows that carried it are gone
+    private final AtomicLong lastOutboxId = new AtomicLong();
+    // Held from a transaction's append until it completes; a checkpoint takes it exclusively, so once the
+    // segment is rotated every entry in the older segments belongs to a finished transaction
+    private final ReentrantReadWriteLock commits = new ReentrantReadWriteLock();
+
+    @Autowired
+    public LedgerJournal(DSLContext dsl, ObjectMapper objectMapper, WalProperties props, MeterRegistry meterRegistry) {
+        this(dsl, objectMapper, props.enabled() ? new WriteAheadLog(props.directory(), meterRegistry) : null);
+    }
+
+    LedgerJournal(DSLContext dsl, ObjectMapper objectMapper, WriteAheadLog wal) {
+        this.dsl = dsl;
+        this.objectMapper = objectMapper;
+        this.wal = wal;
+    }
+
+    public void cardChanged(UUID cardId) {
+        record(changes -> changes.cards.add(cardId));
+    }
+
+    public void cardsChanged(Collection<UUID> cardIds) {
+        if (!cardIds.isEmpty()) record(changes -> changes.cards.addAll(cardIds));
+    }
+
+    public void slotChanged(UUID cardId, int slot) {
+        record(changes -> changes.slots.add(new SlotKey(cardId, slot)));
+    }
+
+    // All slots of the card were rewritten, added or removed
+    public void slotsReplaced(UUID cardId) {
+        record(changes -> changes.slotsReplacedOf.add(cardId));
+    }
+
+    public void transactionsInserted(List<TransactionRecord> transactions) {
+        record(changes -> changes.transactions.addAll(transactions));
+    }
+
+    // Outbox rows as inserted (ids included)
+    public void outboxAppended(List<OutboxEventRecord> events) {
+        if (events.isEmpty()) return;
+        for (OutboxEventRecord event : events) lastOutboxId.accumulateAndGet(event.getId(), Math::max);
+        record(changes -> changes.outboxEvents.addAll(events));
+    }
+
+    // Outbox rows the relay removed after delivery
+    public void outboxDeleted(List<Long> ids) {
+        if (!ids.isEmpty()) record(changes -> changes.outboxDeleted.addAll(ids));
+    }
+
+    // For snapshots: waits for transactions between append and commit and starts a new log segment. A snapshot
+    // taken afterwards contains everything in the earlier segments; pass the result to checkpointComplete.
+    public long checkpoint() {
+        if (wal == null) return 0;
+        commits.writeLock().lock();
+        try {
+            return wal.rotate();
+        } finally {
+            commits.writeLock().unlock();
+        }
+    }
+
+    public void checkpointComplete(long segment) {
+        if (wal != null) wal.deleteSegmentsBefore(segment);
+    }
+
+    // Bytes of log on disk
+    public long size() {
+        return wal == null ? 0 : wal.size();
+    }
+
+    // Without snapshots nothing else trims the log: copies the current rows to the start of a new segment and
+    // drops the older segments. Commits wait while the rows are read and appended, so every entry after the copy
+    // is newer than the rows in it; a crash mid-copy leaves the older segments in place.
+    public void compact() {
+        if (wal == null) return;
+        long start = System.nanoTime();
+        long segment;
+        commits.writeLock().lock();
+        try {
+            segment = wal.rotate();
+            appendRows(CARD, rows -> new WalEntry(seq.incrementAndGet(), null, rows, List.of(), List.of(), List.of(), List.of(), List.of(), null));
+            appendRows(CARD_BALANCE_SLOT, rows -> new WalEntry(seq.incrementAndGet(), null, List.of(), List.of(), rows, List.of(), List.of(), List.of(), null));
+            appendRows(TRANSACTION, rows -> new WalEntry(seq.incrementAndGet(), null, List.of(), List.of(), List.of(), rows, List.of(), List.of(), null));
+            appendRows(OUTBOX_EVENT, rows -> new WalEntry(seq.incrementAndGet(), null, List.of(), List.of(), List.of(), List.of(), rows, List.of(), null));
+            WalEntry last = new WalEntry(seq.incrementAndGet(), null, List.of(), List.of(), List.of(), List.of(), List.of(), List.of(), lastOutboxId.get());
+            wal.awaitDurable(wal.append(encode(last)));
+        } finally {
+            commits.writeLock().unlock();
+        }
+        wal.deleteSegmentsBefore(segment);
+        log.info("Compacted write-ahead log to {} bytes in {} ms", wal.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    // Runs after every bean is initialized (the snapshot restore included) and before the web server starts
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (wal == null) return;
+        long start = System.nanoTime();
+        Set<Long> aborted = new HashSet<>();
+        wal.read(payload -> {
+            WalEntry entry = decode(payload);
+            if (entry.abortOf() != null) aborted.add(entry.abortOf());
+        });
+        long[] replayed = new long[1];
+        wal.read(payload -> {
+            WalEntry entry = decode(payload);
+            seq.accumulateAndGet(entry.seq(), Math::max);
+            if (entry.abortOf() == null && !aborted.contains(entry.seq())) {
+                apply(entry);
+                replayed[0]++;
+                for (Map<String, Object> event : entry.outboxEvents()) {
+                    lastOutboxId.accumulateAndGet(((Number) event.get(OUTBOX_EVENT.ID.getName())).longValue(), Math::max);
+                }
+                if (entry.lastOutboxId() != null) lastOutboxId.accumulateAndGet(entry.lastOutboxId(), Math::max);
+            }
+        });
+        if (lastOutboxId.get() > 0) continueOutboxIdsAfter(lastOutboxId.get());
+        log.info("Replayed {} write-ahead log entries in {} ms", replayed[0], TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    @PreDestroy
+    void close() {
+        if (wal != null) wal.close();
+    }
+
+    private void record(Consumer<Changes> change) {
+        if (wal == null) return;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Auto-committed already: log it on its own, outside a compaction
+            Changes changes = new Changes();
+            change.accept(changes);
+            commits.readLock().lock();
+            try {
+                wal.awaitDurable(wal.append(encode(entry(seq.incrementAndGet(), changes))));
+            } finally {
+                commits.readLock().unlock();
+            }
+            return;
+        }
+        Changes changes = (Changes) TransactionSynchronizationManager.getResource(this);
+        if (changes == null) {
+            changes = new Changes();
+            TransactionSynchronizationManager.bindResource(this, changes);
+            TransactionSynchronizationManager.registerSynchronization(new JournalSynchronization(changes));
+        }
+        change.accept(changes);
+    }
+
+    // The rows as this transaction leaves them (it sees its own writes)
+    private WalEntry entry(long entrySeq, Changes changes) {
+        List<Map<String, Object>> cards = changes.cards.isEmpty() ? List.of() : dsl.selectFrom(CARD)
+                .where(CARD.ID.in(changes.cards))
+                .fetch()
+                .intoMaps();
+        List<Map<String, Object>> slots = List.of();
+        if (!changes.slots.isEmpty() || !changes.slotsReplacedOf.isEmpty()) {
+            Condition written = noCondition();
+            if (!changes.slotsReplacedOf.isEmpty()) written = written.or(CARD_BALANCE_SLOT.CARD_ID.in(changes.slotsReplacedOf));
+            if (!changes.slots.isEmpty()) {
+                List<Row2<UUID, Integer>> keys = new ArrayList<>(changes.slots.size());
+                for (SlotKey key : changes.slots) keys.add(row(key.cardId(), key.slot()));
+                written = written.or(row(CARD_BALANCE_SLOT.CARD_ID, CARD_BALANCE_SLOT.SLOT).in(keys));
+            }
+            slots = dsl.selectFrom(CARD_BALANCE_SLOT).where(written).fetch().intoMaps();
+        }
+        List<Map<String, Object>> transactions = new ArrayList<>(changes.transactions.size());
+        for (TransactionRecord tx : changes.transactions) transactions.add(tx.intoMap());
+        List<Map<String, Object>> outboxEvents = new ArrayList<>(changes.outboxEvents.size());
+        for (OutboxEventRecord event : changes.outboxEvents) outboxEvents.add(event.intoMap());
+        return new WalEntry(entrySeq, null, cards, List.copyOf(changes.slotsReplacedOf), slots, transactions,
+                outboxEvents, List.copyOf(changes.outboxDeleted), null);
+    }
+
+    private <R extends Record> void appendRows(Table<R> table, Function<List<Map<String, Object>>, WalEntry> entry) {
+        try (Cursor<R> rows = dsl.selectFrom(table).fetchSize(COMPACTION_ROWS_PER_ENTRY).fetchLazy()) {
+            while (rows.hasNext()) {
+                wal.append(encode(entry.apply(rows.fetchNext(COMPACTION_ROWS_PER_ENTRY).intoMaps())));
+            }
+        }
+    }
+
+    // Cards first, so slots and transactions find the card they reference
+    private void apply(WalEntry entry) {
+        merge(CARD, entry.cards());
+        if (!entry.slotsReplacedOf().isEmpty()) {
+            dsl.deleteFrom(CARD_BALANCE_SLOT)
+                    .where(CARD_BALANCE_SLOT.CARD_ID.in(entry.slotsReplacedOf()))
+                    .execute();
+        }
+        merge(CARD_BALANCE_SLOT, entry.slots());
+        merge(TRANSACTION, entry.transactions());
+        merge(OUTBOX_EVENT, entry.outboxEvents());
+        if (!entry.outboxDeleted().isEmpty()) {
+            dsl.deleteFrom(OUTBOX_EVENT)
+                    .where(OUTBOX_EVENT.ID.in(entry.outboxDeleted()))
+                    .execute();
+        }
+    }
+
+    // Replayed outbox rows carry their original ids, which the identity column does not count; new events must
+    // not reuse them (the relay hands ids to the sink)
+    private void continueOutboxIdsAfter(long lastReplayedId) {
+        Long highest = dsl.select(max(OUTBOX_EVENT.ID)).from(OUTBOX_EVENT).fetchOne(0, Long.class);
+        long next = Math.max(lastReplayedId, highest == null ? 0 : highest) + 1;
+        dsl.execute("ALTER TABLE {0} ALTER COLUMN {1} RESTART WITH {2}", OUTBOX_EVENT, OUTBOX_EVENT.ID.getUnqualifiedName(), inline(next));
+    }
+
+    private <R extends UpdatableRecord<R>> void merge(Table<R> table, List<Map<String, Object>> rows) {
+        if (rows.isEmpty()) return;
+        List<R> records = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            R record = dsl.newRecord(table);
+            record.fromMap(row);
+            records.add(record);
+        }
+        dsl.batchMerge(records).execute();
+    }
+
+    private byte[] encode(WalEntry entry) {
+        try {
+            return objectMapper.writeValueAsBytes(entry);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize write-ahead log entry", e);
+        }
+    }
+
+    private WalEntry decode(byte[] payload) {
+        try {
+            return objectMapper.readValue(payload, WalEntry.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read write-ahead log entry", e);
+        }
+    }
+
+    private record SlotKey(UUID cardId, int slot) {
+    }
+
+    private static class Changes {
+        final Set<UUID> cards = new LinkedHashSet<>();
+        final Set<SlotKey> slots = new LinkedHashSet<>();
+        final Set<UUID> slotsReplacedOf = new LinkedHashSet<>();
+        final List<TransactionRecord> transactions = new ArrayList<>();
+        final List<OutboxEventRecord> outboxEvents = new ArrayList<>();
+        final List<Long> outboxDeleted = new ArrayList<>();
+    }
+
+    private class JournalSynchronization implements TransactionSynchronization {
+        private final Changes changes;
+        private long entrySeq;
+        private long position;
+        private boolean holdsCommitLock;
+
+        JournalSynchronization(Changes changes) {
+            this.changes = changes;
+        }
+
+        // After every other beforeCommit callback, so nothing that could still fail the transaction runs after the append
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            WalEntry entry = entry(seq.incrementAndGet(), changes);
+            commits.readLock().lock();
+            holdsCommitLock = true;
+            entrySeq = entry.seq();
+            position = wal.append(encode(entry));
+            // Still holding the row locks: nothing this transaction wrote becomes visible before it is on disk
+            wal.awaitDurable(position);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(LedgerJournal.this);
+            try {
+                if (status != STATUS_COMMITTED && position > 0) {
+                    wal.awaitDurable(wal.append(encode(WalEntry.abort(seq.incrementAndGet(), entrySeq))));
+                }
+            } finally {
+                if (holdsCommitLock) commits.readLock().unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.nium.cardplatform.wal;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// One committed ledger transaction: rows as they were at commit (column name -> value), or, with abortOf set,
+// the note that the transaction that wrote entry abortOf did not commit after all.
+// Cards in slotsReplacedOf had all their balance slots rewritten; slots then holds their complete new set.
+// outboxEvents are inserted outbox rows, outboxDeleted the ids of rows the relay delivered and removed.
+// lastOutboxId, set only by compaction, is the highest outbox id handed out so far (its row may be gone).
+public record WalEntry(
+        long seq,
+        Long abortOf,
+        List<Map<String, Object>> cards,
+        List<UUID> slotsReplacedOf,
+        List<Map<String, Object>> slots,
+        List<Map<String, Object>> transactions,
+        List<Map<String, Object>> outboxEvents,
+        List<Long> outboxDeleted,
+        Long lastOutboxId
+) {
+    static WalEntry abort(long seq, long abortOf) {
+        return new WalEntry(seq, abortOf, List.of(), List.of(), List.of(), List.of(), List.of(), List.of(), null);
+    }
+}
@@ -0,0 +1,283 @@
+package com.nium.cardplatform.wal;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+// Append-only log in numbered segment files (wal-<n>.log) of length- and CRC-framed entries. Appends only buffer
+// in memory; a caller that needs its entry durable waits in awaitDurable, where the first waiter writes and
+// fsyncs everything buffered so far for all of them (group commit) while later appends queue for the next sync.
+// A new segment is started at every open and on rotate(), so a torn entry can only sit at the end of a segment.
+// A failed write or sync is final: the log refuses further appends, as nothing after the gap could be trusted.
+public class WriteAheadLog implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(WriteAheadLog.class);
+
+    private static final int HEADER_BYTES = 8; // int length, int CRC32 of the payload
+
+    private final Path directory;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition synced = lock.newCondition();
+
+    // Guarded by lock
+    private FileChannel channel;
+    private long segment;
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private int pendingEntries;
+    private long appended;      // bytes appended since open; a caller's position is the count after its entry
+    private long durable;       // bytes written and fsynced
+    private boolean syncing;
+    private IOException failure;
+
+    private final Counter entries;
+    private final Timer syncTimer;
+    private final DistributionSummary entriesPerSync;
+
+    public WriteAheadLog(Path directory, MeterRegistry meterRegistry) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+            List<Long> existing = segments();
+            this.segment = existing.isEmpty() ? 1 : existing.get(existing.size() - 1) + 1;
+            this.channel = FileChannel.open(segmentFile(segment), CREATE_NEW, WRITE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open write-ahead log in " + directory, e);
+        }
+        this.entries = Counter.builder("wal.entries")
+                .description("Entries appended to the write-ahead log")
+                .register(meterRegistry);
+        this.syncTimer = Timer.builder("wal.sync")
+                .description("Time to write and fsync one group of write-ahead log entries")
+                .register(meterRegistry);
+        this.entriesPerSync = DistributionSummary.builder("wal.sync.entries")
+                .description("Entries made durable by one fsync (group commit batch size)")
+                .register(meterRegistry);
+    }
+
+    // Buffers one entry; returns the position to pass to awaitDurable
+    public long append(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        lock.lock();
+        try {
+            if (failure != null) throw new UncheckedIOException("Write-ahead log failed earlier", failure);
+            DataOutputStream out = new DataOutputStream(pending);
+            out.writeInt(payload.length);
+            out.writeInt((int) crc.getValue());
+            out.write(payload);
+            pendingEntries++;
+            appended += HEADER_BYTES + payload.length;
+            entries.increment();
+            return appended;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // in-memory stream, cannot happen
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Returns once everything up to position is on disk
+    public void awaitDurable(long position) {
+        lock.lock();
+        try {
+            while (durable < position) {
+                if (failure != null) throw new UncheckedIOException("Write-ahead log failed earlier", failure);
+                if (syncing) {
+                    synced.awaitUninterruptibly();
+                    continue;
+                }
+                // This caller syncs the group: everything appended so far
+                syncing = true;
+                byte[] batch = pending.toByteArray();
+                int batchEntries = pendingEntries;
+                long target = appended;
+                pending = new ByteArrayOutputStream();
+                pendingEntries = 0;
+                FileChannel out = channel;
+                lock.unlock();
+                IOException error = null;
+                long start = System.nanoTime();
+                try {
+                    writeFully(out, batch);
+                    out.force(false);
+                } catch (IOException e) {
+                    error = e;
+                } finally {
+                    lock.lock();
+                }
+                syncing = false;
+                if (error != null) {
+                    failure = error;
+                    log.error("Write-ahead log sync failed; refusing further writes", error);
+                } else {
+                    durable = target;
+                    syncTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    entriesPerSync.record(batchEntries);
+                }
+                synced.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Makes everything appended so far durable in the current segment and continues in a new one.
+    // Returns the new segment's number: all earlier segments are complete from here on.
+    public long rotate() {
+        awaitDurable(appendedPosition());
+        lock.lock();
+        try {
+            while (syncing) synced.awaitUninterruptibly();
+            if (failure != null) throw new UncheckedIOException("Write-ahead log failed earlier", failure);
+            // Appends made between the sync above and taking the lock go to the old segment first
+            byte[] rest = pending.toByteArray();
+            try {
+                writeFully(channel, rest);
+                channel.force(false);
+                channel.close();
+                segment++;
+                channel = FileChannel.open(segmentFile(segment), CREATE_NEW, WRITE);
+            } catch (IOException e) {
+                failure = e;
+                throw new UncheckedIOException("Cannot rotate write-ahead log in " + directory, e);
+            }
+            pending = new ByteArrayOutputStream();
+            pendingEntries = 0;
+            durable = appended;
+            return segment;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Drops segments older than the given one (their entries are covered by a snapshot)
+    public void deleteSegmentsBefore(long keepFrom) {
+        try {
+            for (long n : segments()) {
+                if (n < keepFrom) Files.deleteIfExists(segmentFile(n));
+            }
+        } catch (IOException e) {
+            log.warn("Cannot delete old write-ahead log segments in {}", directory, e);
+        }
+    }
+
+    // Bytes in all segments on disk, the current one included
+    public long size() {
+        try {
+            long total = 0;
+            for (long n : segments()) total += Files.size(segmentFile(n));
+            return total;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot list write-ahead log segments in " + directory, e);
+        }
+    }
+
+    // Hands every intact entry to the consumer, oldest first. Reading a segment stops at the first torn or
+    // corrupt entry (a write cut short by a crash, never acknowledged) and continues with the next segment.
+    public void read(Consumer<byte[]> consumer) {
+        try {
+            for (long n : segments()) {
+                Path file = segmentFile(n);
+                try (FileChannel in = FileChannel.open(file, READ)) {
+                    ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                    long size = in.size();
+                    long offset = 0;
+                    while (offset + HEADER_BYTES <= size) {
+                        header.clear();
+                        readFully(in, header, offset);
+                        int length = header.getInt(0);
+                        int checksum = header.getInt(4);
+                        if (length < 0 || offset + HEADER_BYTES + length > size) break;
+                        ByteBuffer payload = ByteBuffer.allocate(length);
+                        readFully(in, payload, offset + HEADER_BYTES);
+                        CRC32 crc = new CRC32();
+                        crc.update(payload.array());
+                        if ((int) crc.getValue() != checksum) break;
+                        consumer.accept(payload.array());
+                        offset += HEADER_BYTES + length;
+                    }
+                    if (offset < size) {
+                        log.warn("Ignoring {} bytes of incomplete entries at the end of {}", size - offset, file);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read write-ahead log in " + directory, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        awaitDurable(appendedPosition());
+        lock.lock();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Cannot close write-ahead log segment {}", segmentFile(segment), e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long appendedPosition() {
+        lock.lock();
+        try {
+            return appended;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<Long> segments() throws IOException {
+        List<Long> numbers = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "wal-*.log")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                numbers.add(Long.parseLong(name.substring(4, name.length() - 4)));
+            }
+        }
+        numbers.sort(null);
+        return numbers;
+    }
+
+    private Path segmentFile(long n) {
+        return directory.resolve(String.format("wal-%016d.log", n));
+    }
+
+    private static void writeFully(FileChannel out, byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    private static void readFully(FileChannel in, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (in.read(buffer, position + buffer.position()) < 0) throw new IOException("Unexpected end of " + in);
+        }
+    }
+}
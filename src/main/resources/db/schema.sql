@@ -2,22 +2,51 @@
 CREATE TABLE card (
     id UUID PRIMARY KEY,
     cardholder_name VARCHAR(100) NOT NULL,
-    balance DECIMAL(18,2) NOT NULL CHECK (balance >= 0),
+    balance BIGINT NOT NULL CHECK (balance >= 0), -- minor units (cents)
     status VARCHAR(20) NOT NULL DEFAULT 'ACTIVE', -- 'ACTIVE', 'BLOCKED'
     version INT NOT NULL DEFAULT 0,               -- for optimistic locking
-    created_at TIMESTAMP NOT NULL
+    created_at TIMESTAMP NOT NULL,
+    tx_count BIGINT NOT NULL DEFAULT 0,           -- transactions recorded for the card, maintained with each balance update
+    last_tx_at TIMESTAMP,                         -- created_at of the latest of them
+    balance_slots INT NOT NULL DEFAULT 0          -- sub-balance slots in card_balance_slot, 0 = not sharded
 );
 
 -- Table: transaction
 CREATE TABLE transaction (
      id UUID PRIMARY KEY,
      card_id UUID NOT NULL,
-     type VARCHAR(20) NOT NULL, -- 'SPEND', 'TOPUP'
-     amount DECIMAL(18,2) NOT NULL CHECK (amount > 0),
+     type VARCHAR(20) NOT NULL, -- 'SPEND', 'TOPUP', 'TRANSFER_OUT', 'TRANSFER_IN'
+     amount BIGINT NOT NULL CHECK (amount > 0),   -- minor units (cents)
      created_at TIMESTAMP NOT NULL,
      CONSTRAINT fk_card FOREIGN KEY(card_id) REFERENCES card(id)
 );
 
+-- Table: card_balance_slot (sub-balances of a sharded hot card, debited independently by concurrent writers;
+-- the card's balance is card.balance + the sum of its slots, and likewise for tx_count / last_tx_at)
+CREATE TABLE card_balance_slot (
+    card_id UUID NOT NULL,
+    slot INT NOT NULL,
+    balance BIGINT NOT NULL CHECK (balance >= 0), -- minor units (cents)
+    tx_count BIGINT NOT NULL DEFAULT 0,           -- transactions served by this slot
+    last_tx_at TIMESTAMP,
+    PRIMARY KEY (card_id, slot),
+    CONSTRAINT fk_slot_card FOREIGN KEY(card_id) REFERENCES card(id)
+);
+
 -- Optional: add indexes for performance
 CREATE INDEX idx_transaction_card_id ON transaction(card_id);
-CREATE INDEX idx_transaction_created_at ON transaction(created_at);
\ No newline at end of file
+CREATE INDEX idx_transaction_created_at ON transaction(created_at);
+-- Statements: one card's transactions in a date range, already in created_at order
+CREATE INDEX idx_transaction_card_created_at ON transaction(card_id, created_at);
+-- Card search (GET /cards): newest-first keyset paging, optionally within one status, and name prefix lookups
+CREATE INDEX idx_card_created_at ON card(created_at DESC, id DESC);
+CREATE INDEX idx_card_status_created_at ON card(status, created_at DESC, id DESC);
+CREATE INDEX idx_card_cardholder_name ON card(cardholder_name);
+-- Table: outbox_event (transactional outbox, written with the card mutation and drained by OutboxRelay)
+CREATE TABLE outbox_event (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    card_id UUID NOT NULL,
+    event_type VARCHAR(40) NOT NULL, -- 'CARD_CREATED', 'SPEND', 'TOPUP', 'TRANSFER_OUT', 'TRANSFER_IN', 'CARD_BLOCKED', 'CARD_UNBLOCKED'
+    payload VARCHAR(4000) NOT NULL,  -- JSON of CardEvent
+    created_at TIMESTAMP NOT NULL
+);
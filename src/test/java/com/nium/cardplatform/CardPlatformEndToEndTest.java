@@ -1,17 +1,37 @@
 package com.nium.cardplatform;
 
+import com.nium.cardplatform.dto.BulkStatusRequest;
+import com.nium.cardplatform.dto.BulkStatusResponse;
+import com.nium.cardplatform.dto.CardPageResponse;
 import com.nium.cardplatform.dto.CardResponse;
 import com.nium.cardplatform.dto.CreateCardRequest;
+import com.nium.cardplatform.dto.ReconciliationReport;
 import com.nium.cardplatform.dto.SpendRequest;
+import com.nium.cardplatform.dto.StatementRunReport;
 import com.nium.cardplatform.dto.TopupRequest;
+import com.nium.cardplatform.dto.TransferRequest;
+import org.jooq.DSLContext;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.http.*;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
 
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
 import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
@@ -19,18 +39,36 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
 
+import static com.nium.cardplatform.jooq.tables.Card.CARD;
 import static org.assertj.core.api.Assertions.assertThat;
 
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+// Starts from an empty database every run, never from a snapshot left by the application
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {"cardplatform.snapshot.enabled=false", "cardplatform.wal.enabled=false"})
 class CardPlatformEndToEndTest {
 
+    // Relayed events and statements go to files of this run instead of the application's data/ directory
+    @TempDir
+    static Path workDir;
+
+    @DynamicPropertySource
+    static void isolatedFiles(DynamicPropertyRegistry registry) {
+        registry.add("cardplatform.outbox.file", () -> workDir.resolve("card-events.jsonl").toString());
+        registry.add("cardplatform.statements.directory", () -> workDir.resolve("statements").toString());
+    }
+
     @LocalServerPort
     int port;
 
     @Autowired
     TestRestTemplate restTemplate;
 
+    @Autowired
+    DSLContext dsl;
+
     String url(String path) {
         return "http://localhost:" + port + path;
     }
@@ -213,6 +251,56 @@ class CardPlatformEndToEndTest {
         assertThat(resp.getBody()).contains("[]"); // or check for empty array
     }
 
+    @Test
+    void getTransactions_shouldReturnMaintainedTotalsInHeaders() {
+        CreateCardRequest req = new CreateCardRequest();
+        req.setCardholderName("TxTotals");
+        req.setInitialBalance(BigDecimal.valueOf(100));
+        UUID cardId = restTemplate.postForEntity(url("/cards"), req, CardResponse.class).getBody().getId();
+
+        SpendRequest spend = new SpendRequest();
+        spend.setAmount(BigDecimal.TEN);
+        restTemplate.postForEntity(url("/cards/" + cardId + "/spend"), spend, Void.class);
+        TopupRequest topup = new TopupRequest();
+        topup.setAmount(BigDecimal.ONE);
+        restTemplate.postForEntity(url("/cards/" + cardId + "/topup"), topup, Void.class);
+
+        ResponseEntity<String> resp = restTemplate.getForEntity(url("/cards/" + cardId + "/transactions?limit=1&offset=0"), String.class);
+        assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(resp.getHeaders().getFirst("X-Total-Count")).isEqualTo("3");
+        assertThat(resp.getHeaders().getFirst("X-Last-Transaction-At")).isNotBlank();
+        assertThat(resp.getBody()).contains("TOPUP").doesNotContain("SPEND");
+
+        // A card without transactions reports zero and no timestamp
+        req.setInitialBalance(BigDecimal.ZERO);
+        UUID emptyId = restTemplate.postForEntity(url("/cards"), req, CardResponse.class).getBody().getId();
+        resp = restTemplate.getForEntity(url("/cards/" + emptyId + "/transactions"), String.class);
+        assertThat(resp.getHeaders().getFirst("X-Total-Count")).isEqualTo("0");
+        assertThat(resp.getHeaders().containsKey("X-Last-Transaction-At")).isFalse();
+    }
+
+    @Test
+    void getTransactions_shouldTellEmptyPageFromMissingCard() {
+        CreateCardRequest req = new CreateCardRequest();
+        req.setCardholderName("TxPastEnd");
+        req.setInitialBalance(BigDecimal.valueOf(20));
+        UUID cardId = restTemplate.postForEntity(url("/cards"), req, CardResponse.class).getBody().getId();
+
+        // Past the last transaction: an empty page, still with the card's totals
+        ResponseEntity<String> resp = restTemplate.getForEntity(url("/cards/" + cardId + "/transactions?limit=10&offset=5"), String.class);
+        assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(resp.getBody()).contains("[]");
+        assertThat(resp.getHeaders().getFirst("X-Total-Count")).isEqualTo("1");
+
+        resp = restTemplate.getForEntity(url("/cards/" + UUID.randomUUID() + "/transactions?limit=10&offset=5"), String.class);
+        assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+
+        for (String invalid : List.of("limit=0", "limit=-1", "offset=-1")) {
+            assertThat(restTemplate.getForEntity(url("/cards/" + cardId + "/transactions?" + invalid), String.class).getStatusCode())
+                    .isEqualTo(HttpStatus.BAD_REQUEST);
+        }
+    }
+
     @Test
     void shouldReturnMethodNotAllowed_whenPostToGetEndpoint() {
         CreateCardRequest req = new CreateCardRequest();
@@ -371,6 +459,303 @@ class CardPlatformEndToEndTest {
         }
     }
 
+    @Test
+    void asyncTopupAndSpend_shouldUpdateBalance() {
+        CreateCardRequest req = new CreateCardRequest();
+        req.setCardholderName("Async");
+        req.setInitialBalance(BigDecimal.valueOf(20));
+        UUID cardId = restTemplate.postForEntity(url("/cards"), req, CardResponse.class).getBody().getId();
+
+        ResponseEntity<Void> topupResp = restTemplate.postForEntity(
+                url("/cards/" + cardId + "/topup/async"), new HttpEntity<>(new TopupRequest(BigDecimal.TEN)), Void.class);
+        assertThat(topupResp.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
 
+        ResponseEntity<Void> spendResp = restTemplate.postForEntity(
+                url("/cards/" + cardId + "/spend/async"), new HttpEntity<>(new SpendRequest(BigDecimal.valueOf(5))), Void.class);
+        assertThat(spendResp.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
 
+        ResponseEntity<String> failedResp = restTemplate.postForEntity(
+                url("/cards/" + cardId + "/spend/async"), new HttpEntity<>(new SpendRequest(BigDecimal.valueOf(500))), String.class);
+        assertThat(failedResp.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(failedResp.getBody()).contains("Insufficient balance");
+
+        CardResponse resp = restTemplate.getForEntity(url("/cards/" + cardId), CardResponse.class).getBody();
+        assertThat(resp.getBalance()).isEqualByComparingTo("25");
+    }
+
+    @Test
+    void cardEvents_shouldBeRelayedFromOutboxToSink() throws Exception {
+        CreateCardRequest req = new CreateCardRequest();
+        req.setCardholderName("Outbox");
+        req.setInitialBalance(BigDecimal.valueOf(20));
+        UUID cardId = restTemplate.postForEntity(url("/cards"), req, CardResponse.class).getBody().getId();
+        restTemplate.postForEntity(url("/cards/" + cardId + "/spend"), new HttpEntity<>(new SpendRequest(BigDecimal.valueOf(5))), Void.class);
+        restTemplate.postForEntity(url("/cards/" + cardId + "/block"), null, Void.class);
+
+        Path file = workDir.resolve("card-events.jsonl");
+        long deadline = System.currentTimeMillis() + 10_000;
+        List<String> lines = List.of();
+        while (System.currentTimeMillis() < deadline) {
+            lines = Files.exists(file)
+                    ? Files.readAllLines(file).stream().filter(l -> l.contains(cardId.toString())).toList()
+                    : List.of();
+            if (lines.size() >= 3) break;
+            Thread.sleep(100);
+        }
+
+        assertThat(lines).hasSize(3);
+        assertThat(lines.get(0)).contains("CARD_CREATED");
+        assertThat(lines.get(1)).contains("\"SPEND\"").contains("\"balance\":15");
+        assertThat(lines.get(2)).contains("CARD_BLOCKED");
+    }
+
+    @Test
+    void eventStream_shouldPushCommittedChanges() throws Exception {
+        CreateCardRequest req = new CreateCardRequest();
+        req.setCardholderName("Sse");
+        req.setInitialBalance(BigDecimal.valueOf(50));
+        UUID cardId = restTemplate.postForEntity(url("/cards"), req, CardResponse.class).getBody().getId();
+
+        HttpResponse<Stream<String>> stream = HttpClient.newHttpClient().sendAsync(
+                HttpRequest.newBuilder(URI.create(url("/cards/" + cardId + "/events")))
+                        .header("Accept", "text/event-stream").GET().build(),
+                HttpResponse.BodyHandlers.ofLines()).get(5, TimeUnit.SECONDS);
+        assertThat(stream.statusCode()).isEqualTo(200);
+
+        restTemplate.postForEntity(url("/cards/" + cardId + "/spend"), new HttpEntity<>(new SpendRequest(BigDecimal.TEN)), Void.class);
+        restTemplate.postForEntity(url("/cards/" + cardId + "/block"), null, Void.class);
+
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        Future<List<String>> events = reader.submit(() -> stream.body()
+                .filter(line -> line.startsWith("event:"))
+                .limit(2)
+                .toList());
+        assertThat(events.get(10, TimeUnit.SECONDS)).containsExactly("event:SPEND", "event:CARD_BLOCKED");
+        reader.shutdownNow();
+        stream.body().close();
+    }
+
+    @Test
+    void eventStream_shouldReturnNotFound_whenCardDoesNotExist() {
+        ResponseEntity<String> resp = restTemplate.getForEntity(url("/cards/" + UUID.randomUUID() + "/events"), String.class);
+        assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void reconciliation_shouldMatchLedger_andReportCorruptedBalance() {
+        CreateCardRequest req = new CreateCardRequest();
+        req.setCardholderName("Reconcile");
+        req.setInitialBalance(BigDecimal.valueOf(40));
+        UUID cardId = restTemplate.postForEntity(url("/cards"), req, CardResponse.class).getBody().getId();
+        restTemplate.postForEntity(url("/cards/" + cardId + "/spend"), new HttpEntity<>(new SpendRequest(BigDecimal.valueOf(15))), Void.class);
+        restTemplate.postForEntity(url("/cards/" + cardId + "/topup"), new HttpEntity<>(new TopupRequest(BigDecimal.valueOf(5))), Void.class);
+
+        ResponseEntity<ReconciliationReport> clean = restTemplate.postForEntity(url("/admin/reconciliation"), null, ReconciliationReport.class);
+        assertThat(clean.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(clean.getBody().getCardsChecked()).isPositive();
+        assertThat(clean.getBody().getMismatchCount()).isZero();
+
+        // Change the balance (minor units) behind the ledger's back
+        dsl.update(CARD).set(CARD.BALANCE, 9_900L).where(CARD.ID.eq(cardId)).execute();
+        try {
+            ReconciliationReport dirty = restTemplate.postForEntity(url("/admin/reconciliation"), null, ReconciliationReport.class).getBody();
+            assertThat(dirty.getMismatchCount()).isEqualTo(1);
+            assertThat(dirty.getMismatches().get(0).getCardId()).isEqualTo(cardId);
+            assertThat(dirty.getMismatches().get(0).getBalance()).isEqualByComparingTo("99");
+            assertThat(dirty.getMismatches().get(0).getLedgerNet()).isEqualByComparingTo("30");
+        } finally {
+            dsl.update(CARD).set(CARD.BALANCE, 3_000L).where(CARD.ID.eq(cardId)).execute();
+        }
+    }
+
+    @Test
+    void statements_shouldStreamEachCardsTransactionsToCompressedCsv() throws Exception {
+        CreateCardRequest req = new CreateCardRequest();
+        req.setCardholderName("Statement");
+        req.setInitialBalance(BigDecimal.valueOf(40));
+        UUID cardId = restTemplate.postForEntity(url("/cards"), req, CardResponse.class).getBody().getId();
+        restTemplate.postForEntity(url("/cards/" + cardId + "/spend"), new HttpEntity<>(new SpendRequest(BigDecimal.valueOf(15))), Void.class);
+        restTemplate.postForEntity(url("/cards/" + cardId + "/topup"), new HttpEntity<>(new TopupRequest(BigDecimal.valueOf(5))), Void.class);
+
+        LocalDate today = LocalDate.now();
+        ResponseEntity<StatementRunReport> resp = restTemplate.postForEntity(
+                url("/admin/statements?from=" + today + "&to=" + today), null, StatementRunReport.class);
+        assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.OK);
+        StatementRunReport report = resp.getBody();
+        assertThat(report.getCardsWritten()).isPositive();
+        assertThat(report.getTransactionsWritten()).isGreaterThanOrEqualTo(3);
+        Path dir = Path.of(report.getDirectory());
+        try {
+            List<String> lines;
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(Files.newInputStream(dir.resolve(cardId + ".csv.gz"))), StandardCharsets.UTF_8))) {
+                lines = in.lines().toList();
+            }
+            assertThat(lines).hasSize(6);
+            assertThat(lines.get(0)).isEqualTo("transaction_id,created_at,type,amount,balance");
+            assertThat(lines.get(1)).endsWith(",OPENING_BALANCE,,0.00");
+            assertThat(lines.get(2)).contains(",TOPUP,40.00,40.00");
+            assertThat(lines.get(3)).contains(",SPEND,15.00,25.00");
+            assertThat(lines.get(4)).contains(",TOPUP,5.00,30.00");
+            assertThat(lines.get(5)).endsWith(",CLOSING_BALANCE,,30.00");
+        } finally {
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path file : files.toList()) Files.delete(file);
+            }
+            Files.delete(dir);
+        }
+
+        assertThat(restTemplate.postForEntity(url("/admin/statements?from=" + today + "&to=" + today.minusDays(1)), null, String.class)
+                .getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void shardedCard_shouldSpendConcurrentlyFromSlotsAndStayReconciled() throws Exception {
+        CreateCardRequest req = new CreateCardRequest();
+        req.setCardholderName("Sharded");
+        req.setInitialBalance(BigDecimal.valueOf(100));
+        UUID cardId = restTemplate.postForEntity(url("/cards"), req, CardResponse.class).getBody().getId();
+
+        ResponseEntity<CardResponse> sharded = restTemplate.exchange(
+                url("/admin/cards/" + cardId + "/balance-slots?slots=4"), HttpMethod.PUT, null, CardResponse.class);
+        assertThat(sharded.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(sharded.getBody().getBalance()).isEqualByComparingTo("100");
+        assertThat(restTemplate.exchange(url("/admin/cards/" + cardId + "/balance-slots?slots=65"), HttpMethod.PUT, null, String.class)
+                .getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+
+        // Four concurrent spends of 20 against slots of 25; one of 30 then needs the pooled balance
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<ResponseEntity<String>>> spends = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            spends.add(executor.submit(() -> restTemplate.postForEntity(
+                    url("/cards/" + cardId + "/spend"), new HttpEntity<>(new SpendRequest(BigDecimal.valueOf(20))), String.class)));
+        }
+        for (Future<ResponseEntity<String>> spend : spends) {
+            assertThat(spend.get().getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+        }
+        executor.shutdown();
+        assertThat(restTemplate.postForEntity(url("/cards/" + cardId + "/spend"),
+                new HttpEntity<>(new SpendRequest(BigDecimal.valueOf(30))), String.class).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(restTemplate.postForEntity(url("/cards/" + cardId + "/topup"),
+                new HttpEntity<>(new TopupRequest(BigDecimal.valueOf(15))), Void.class).getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+
+        assertThat(restTemplate.getForEntity(url("/cards/" + cardId), CardResponse.class).getBody().getBalance()).isEqualByComparingTo("35");
+        CardPageResponse listed = restTemplate.getForEntity(url("/cards?namePrefix=Sharded"), CardPageResponse.class).getBody();
+        assertThat(listed.getItems()).filteredOn(card -> card.getId().equals(cardId)).singleElement()
+                .satisfies(card -> assertThat(card.getBalance()).isEqualByComparingTo("35"));
+        ResponseEntity<String> txs = restTemplate.getForEntity(url("/cards/" + cardId + "/transactions"), String.class);
+        assertThat(txs.getHeaders().getFirst("X-Total-Count")).isEqualTo("6");
+        assertThat(dsl.select(CARD.BALANCE).from(CARD).where(CARD.ID.eq(cardId)).fetchOne(CARD.BALANCE)).isZero();
+        assertThat(restTemplate.postForEntity(url("/admin/reconciliation"), null, ReconciliationReport.class).getBody().getMismatchCount()).isZero();
+
+        // Back onto the card row
+        restTemplate.exchange(url("/admin/cards/" + cardId + "/balance-slots?slots=0"), HttpMethod.PUT, null, CardResponse.class);
+        assertThat(dsl.select(CARD.BALANCE).from(CARD).where(CARD.ID.eq(cardId)).fetchOne(CARD.BALANCE)).isEqualTo(3_500L);
+        assertThat(restTemplate.getForEntity(url("/cards/" + cardId + "/transactions"), String.class)
+                .getHeaders().getFirst("X-Total-Count")).isEqualTo("6");
+    }
+
+    @Test
+    void transfers_inBothDirectionsConcurrently_shouldNotDeadlockAndStayReconciled() throws Exception {
+        CreateCardRequest req = new CreateCardRequest();
+        req.setCardholderName("Transfer A");
+        req.setInitialBalance(BigDecimal.valueOf(100));
+        UUID a = restTemplate.postForEntity(url("/cards"), req, CardResponse.class).getBody().getId();
+        req.setCardholderName("Transfer B");
+        UUID b = restTemplate.postForEntity(url("/cards"), req, CardResponse.class).getBody().getId();
+
+        // Within the per-card limit of 5 spends per minute: 4 transfers each way
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<ResponseEntity<String>>> transfers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            transfers.add(executor.submit(() -> restTemplate.postForEntity(url("/cards/" + a + "/transfer"),
+                    new HttpEntity<>(new TransferRequest(b, BigDecimal.valueOf(10))), String.class)));
+            transfers.add(executor.submit(() -> restTemplate.postForEntity(url("/cards/" + b + "/transfer"),
+                    new HttpEntity<>(new TransferRequest(a, BigDecimal.valueOf(5))), String.class)));
+        }
+        for (Future<ResponseEntity<String>> transfer : transfers) {
+            assertThat(transfer.get(30, TimeUnit.SECONDS).getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+        }
+        executor.shutdown();
+
+        assertThat(restTemplate.getForEntity(url("/cards/" + a), CardResponse.class).getBody().getBalance()).isEqualByComparingTo("80");
+        assertThat(restTemplate.getForEntity(url("/cards/" + b), CardResponse.class).getBody().getBalance()).isEqualByComparingTo("120");
+        ResponseEntity<String> txs = restTemplate.getForEntity(url("/cards/" + a + "/transactions"), String.class);
+        assertThat(txs.getHeaders().getFirst("X-Total-Count")).isEqualTo("9");
+        assertThat(txs.getBody()).contains("TRANSFER_OUT", "TRANSFER_IN");
+        assertThat(restTemplate.postForEntity(url("/admin/reconciliation"), null, ReconciliationReport.class).getBody().getMismatchCount()).isZero();
+
+        // Nothing moves when the target does not exist
+        ResponseEntity<String> missing = restTemplate.postForEntity(url("/cards/" + a + "/transfer"),
+                new HttpEntity<>(new TransferRequest(UUID.randomUUID(), BigDecimal.ONE)), String.class);
+        assertThat(missing.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(restTemplate.getForEntity(url("/cards/" + a), CardResponse.class).getBody().getBalance()).isEqualByComparingTo("80");
+    }
+
+    @Test
+    void searchCards_shouldPageThroughFilteredCardsNewestFirst() {
+        String prefix = "Search_" + UUID.randomUUID().toString().substring(0, 8) + "_";
+        List<UUID> created = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            CreateCardRequest req = new CreateCardRequest();
+            req.setCardholderName(prefix + i);
+            req.setInitialBalance(BigDecimal.ONE);
+            created.add(restTemplate.postForEntity(url("/cards"), req, CardResponse.class).getBody().getId());
+        }
+        restTemplate.postForEntity(url("/cards/" + created.get(1) + "/block"), null, Void.class);
+
+        List<UUID> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            String query = "/cards?status=ACTIVE&limit=2&namePrefix=" + prefix + (cursor == null ? "" : "&cursor=" + cursor);
+            ResponseEntity<CardPageResponse> resp = restTemplate.getForEntity(url(query), CardPageResponse.class);
+            assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.OK);
+            resp.getBody().getItems().forEach(c -> seen.add(c.getId()));
+            cursor = resp.getBody().getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(2);
+        assertThat(seen).containsExactly(created.get(4), created.get(3), created.get(2), created.get(0));
+
+        // Wildcards in the prefix are matched literally
+        CardPageResponse none = restTemplate.getForEntity(url("/cards?namePrefix=Search%25"), CardPageResponse.class).getBody();
+        assertThat(none.getItems()).isEmpty();
+    }
+
+    @Test
+    void bulkStatus_shouldBlockByIdsAndUnblockByFilter() {
+        String prefix = "Bulk_" + UUID.randomUUID().toString().substring(0, 8) + "_";
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            CreateCardRequest req = new CreateCardRequest();
+            req.setCardholderName(prefix + i);
+            req.setInitialBalance(BigDecimal.TEN);
+            ids.add(restTemplate.postForEntity(url("/cards"), req, CardResponse.class).getBody().getId());
+        }
+        restTemplate.postForEntity(url("/cards/" + ids.get(2) + "/block"), null, Void.class);
+        UUID unknown = UUID.randomUUID();
+
+        List<UUID> requested = new ArrayList<>(ids);
+        requested.add(unknown);
+        ResponseEntity<BulkStatusResponse> blocked = restTemplate.postForEntity(url("/cards/status"),
+                new BulkStatusRequest("BLOCKED", requested), BulkStatusResponse.class);
+        assertThat(blocked.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(blocked.getBody().getChanged()).containsExactlyInAnyOrder(ids.get(0), ids.get(1));
+        assertThat(blocked.getBody().getNotFound()).containsExactly(unknown);
+
+        ResponseEntity<String> spend = restTemplate.postForEntity(url("/cards/" + ids.get(0) + "/spend"),
+                new HttpEntity<>(new SpendRequest(BigDecimal.ONE)), String.class);
+        assertThat(spend.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+
+        BulkStatusRequest byFilter = new BulkStatusRequest();
+        byFilter.setStatus("ACTIVE");
+        byFilter.setNamePrefix(prefix);
+        BulkStatusResponse unblocked = restTemplate.postForEntity(url("/cards/status"), byFilter, BulkStatusResponse.class).getBody();
+        assertThat(unblocked.getChanged()).containsExactlyInAnyOrderElementsOf(ids);
+        for (UUID id : ids) {
+            assertThat(restTemplate.getForEntity(url("/cards/" + id), CardResponse.class).getBody().getStatus()).isEqualTo("ACTIVE");
+        }
+    }
 }
@@ -0,0 +1,182 @@
+package com.nium.cardplatform;
+
+import com.nium.cardplatform.jooq.tables.records.OutboxEventRecord;
+import com.nium.cardplatform.repository.OutboxRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CardPlatformStartupTest {
+    private static final Logger log = LoggerFactory.getLogger(CardPlatformStartupTest.class);
+
+    // Budget for context start + first request in the test JVM (plain classpath, no AOT/CDS archive);
+    // override with -Dstartup.max-millis=...
+    private static final long MAX_MILLIS = Long.getLong("startup.max-millis", 30_000L);
+
+    // Files the application writes (relayed outbox events) go here instead of its data/ directory
+    @TempDir
+    Path workDir;
+
+    @Test
+    void timeToFirstRequest_shouldStayWithinBudget() throws Exception {
+        long start = System.nanoTime();
+
+        // Own in-memory DB so schema.sql does not collide with the other test contexts
+        try (ConfigurableApplicationContext ctx = SpringApplication.run(CardPlatformApplication.class,
+                "--server.port=0",
+                "--cardplatform.snapshot.enabled=false",
+                "--cardplatform.wal.enabled=false",
+                "--cardplatform.outbox.file=" + workDir.resolve("card-events.jsonl"),
+                "--cardplatform.statements.directory=" + workDir.resolve("statements"),
+                "--spring.datasource.url=jdbc:h2:mem:startup-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1")) {
+            String port = ctx.getEnvironment().getProperty("local.server.port");
+
+            HttpResponse<String> resp = HttpClient.newHttpClient().send(
+                    HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/cards/" + UUID.randomUUID())).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+            assertThat(resp.statusCode()).isEqualTo(404);
+            log.info("Time to first request: {} ms", elapsedMillis);
+            assertThat(elapsedMillis).isLessThan(MAX_MILLIS);
+        }
+    }
+
+    @Test
+    void restart_shouldRestoreCardsFromSnapshotWrittenOnShutdown(@TempDir Path snapshots) throws Exception {
+        HttpClient http = HttpClient.newHttpClient();
+        String cardId;
+        try (ConfigurableApplicationContext ctx = start(snapshots, null)) {
+            HttpResponse<String> created = http.send(HttpRequest.newBuilder(URI.create(baseUrl(ctx) + "/cards"))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString("{\"cardholderName\":\"Restart\",\"initialBalance\":42.50}"))
+                            .build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertThat(created.statusCode()).isEqualTo(201);
+            cardId = created.body().replaceAll(".*\"id\":\"([^\"]+)\".*", "$1");
+        }
+
+        // A fresh in-memory database, filled from the snapshot before the first request
+        try (ConfigurableApplicationContext ctx = start(snapshots, null)) {
+            HttpResponse<String> card = http.send(HttpRequest.newBuilder(URI.create(baseUrl(ctx) + "/cards/" + cardId)).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertThat(card.statusCode()).isEqualTo(200);
+            assertThat(card.body()).contains("\"balance\":42.5");
+            HttpResponse<String> txs = http.send(HttpRequest.newBuilder(URI.create(baseUrl(ctx) + "/cards/" + cardId + "/transactions")).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertThat(txs.headers().firstValue("X-Total-Count")).hasValue("1");
+            assertThat(ctx.getBean(MeterRegistry.class).timer("snapshot.restore").count()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void restart_shouldReplayWriteAheadLog_withoutSnapshot(@TempDir Path wal) throws Exception {
+        HttpClient http = HttpClient.newHttpClient();
+        String cardId;
+        try (ConfigurableApplicationContext ctx = start(null, wal)) {
+            HttpResponse<String> created = post(http, baseUrl(ctx) + "/cards", "{\"cardholderName\":\"Replay\",\"initialBalance\":100.00}");
+            assertThat(created.statusCode()).isEqualTo(201);
+            cardId = created.body().replaceAll(".*\"id\":\"([^\"]+)\".*", "$1");
+            assertThat(post(http, baseUrl(ctx) + "/cards/" + cardId + "/spend", "{\"amount\":30.00}").statusCode()).isEqualTo(204);
+            assertThat(post(http, baseUrl(ctx) + "/cards/" + cardId + "/topup", "{\"amount\":5.00}").statusCode()).isEqualTo(204);
+            HttpResponse<String> resharded = http.send(HttpRequest.newBuilder(URI.create(baseUrl(ctx) + "/admin/cards/" + cardId + "/balance-slots?slots=4"))
+                            .PUT(HttpRequest.BodyPublishers.noBody())
+                            .build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertThat(resharded.statusCode()).isEqualTo(200);
+            assertThat(post(http, baseUrl(ctx) + "/cards/" + cardId + "/spend", "{\"amount\":15.00}").statusCode()).isEqualTo(204);
+            assertThat(ctx.getBean(MeterRegistry.class).summary("wal.sync.entries").totalAmount()).isGreaterThanOrEqualTo(5);
+        }
+
+        // No snapshot: everything comes back from the log
+        try (ConfigurableApplicationContext ctx = start(null, wal)) {
+            HttpResponse<String> card = http.send(HttpRequest.newBuilder(URI.create(baseUrl(ctx) + "/cards/" + cardId)).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertThat(card.statusCode()).isEqualTo(200);
+            assertThat(card.body()).contains("\"balance\":60");
+            HttpResponse<String> txs = http.send(HttpRequest.newBuilder(URI.create(baseUrl(ctx) + "/cards/" + cardId + "/transactions")).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertThat(txs.headers().firstValue("X-Total-Count")).hasValue("4");
+            // The slots survived too: spending the remaining balance still works, one cent more is declined
+            assertThat(post(http, baseUrl(ctx) + "/cards/" + cardId + "/spend", "{\"amount\":60.00}").statusCode()).isEqualTo(204);
+            assertThat(post(http, baseUrl(ctx) + "/cards/" + cardId + "/spend", "{\"amount\":0.01}").statusCode()).isEqualTo(400);
+        }
+    }
+
+    @Test
+    void restart_shouldKeepUndeliveredOutboxEvents(@TempDir Path snapshots, @TempDir Path wal) throws Exception {
+        HttpClient http = HttpClient.newHttpClient();
+        String cardId;
+        // Nothing listens on the sink, so every event stays in the outbox
+        String[] unreachableSink = {"--cardplatform.outbox.sink=http", "--cardplatform.outbox.http-url=http://127.0.0.1:9/events"};
+        try (ConfigurableApplicationContext ctx = start(null, wal, unreachableSink)) {
+            HttpResponse<String> created = post(http, baseUrl(ctx) + "/cards", "{\"cardholderName\":\"Outbox\",\"initialBalance\":10.00}");
+            assertThat(created.statusCode()).isEqualTo(201);
+            cardId = created.body().replaceAll(".*\"id\":\"([^\"]+)\".*", "$1");
+            assertThat(post(http, baseUrl(ctx) + "/cards/" + cardId + "/spend", "{\"amount\":4.00}").statusCode()).isEqualTo(204);
+            assertThat(ctx.getBean(OutboxRepository.class).countPending()).isEqualTo(2);
+        }
+
+        // Replayed from the log; a new event must not reuse a replayed id
+        try (ConfigurableApplicationContext ctx = start(snapshots, wal, unreachableSink)) {
+            OutboxRepository outbox = ctx.getBean(OutboxRepository.class);
+            assertThat(outbox.countPending()).isEqualTo(2);
+            assertThat(post(http, baseUrl(ctx) + "/cards/" + cardId + "/topup", "{\"amount\":1.00}").statusCode()).isEqualTo(204);
+            assertThat(outbox.fetchBatch(10)).extracting(OutboxEventRecord::getEventType).containsExactly("CARD_CREATED", "SPEND", "TOPUP");
+        }
+
+        // Restored from the snapshot written on shutdown, then delivered once the sink works
+        Path sinkFile = workDir.resolve("card-events.jsonl");
+        try (ConfigurableApplicationContext ctx = start(snapshots, null)) {
+            OutboxRepository outbox = ctx.getBean(OutboxRepository.class);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (outbox.countPending() > 0 && System.nanoTime() < deadline) Thread.sleep(50);
+            assertThat(outbox.countPending()).isZero();
+            assertThat(Files.readAllLines(sinkFile)).hasSize(3);
+        }
+    }
+
+    // Snapshots and the write-ahead log are each on when given a directory
+    private ConfigurableApplicationContext start(Path snapshots, Path wal, String... more) {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--cardplatform.snapshot.enabled=" + (snapshots != null),
+                "--cardplatform.snapshot.directory=" + (snapshots != null ? snapshots : "data/snapshots"),
+                "--cardplatform.wal.enabled=" + (wal != null),
+                "--cardplatform.wal.directory=" + (wal != null ? wal : "data/wal"),
+                "--cardplatform.outbox.file=" + workDir.resolve("card-events.jsonl"),
+                "--cardplatform.statements.directory=" + workDir.resolve("statements"),
+                "--spring.datasource.url=jdbc:h2:mem:restart-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1"));
+        args.addAll(List.of(more));
+        return SpringApplication.run(CardPlatformApplication.class, args.toArray(String[]::new));
+    }
+
+    private static HttpResponse<String> post(HttpClient http, String url, String json) throws Exception {
+        return http.send(HttpRequest.newBuilder(URI.create(url))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(json))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String baseUrl(ConfigurableApplicationContext ctx) {
+        return "http://localhost:" + ctx.getEnvironment().getProperty("local.server.port");
+    }
+}
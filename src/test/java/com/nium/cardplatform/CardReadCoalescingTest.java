@@ -0,0 +1,92 @@
+package com.nium.cardplatform;
+
+import com.nium.cardplatform.dto.CardResponse;
+import com.nium.cardplatform.dto.CreateCardRequest;
+import com.nium.cardplatform.repository.CardRepository;
+import com.nium.cardplatform.service.CardService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+// Concurrent reads of one card against a connection pool smaller than the number of readers: only the
+// caller that loads the card may hold a connection, the ones joining its load must not
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "cardplatform.snapshot.enabled=false",
+        "cardplatform.wal.enabled=false",
+        "spring.datasource.hikari.maximum-pool-size=2",
+        "spring.datasource.hikari.connection-timeout=250"})
+class CardReadCoalescingTest {
+
+    private static final int READERS = 8;
+
+    @TempDir
+    static Path workDir;
+
+    @DynamicPropertySource
+    static void isolatedFiles(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> "jdbc:h2:mem:coalescing-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        registry.add("cardplatform.outbox.file", () -> workDir.resolve("card-events.jsonl").toString());
+        registry.add("cardplatform.statements.directory", () -> workDir.resolve("statements").toString());
+    }
+
+    @Autowired
+    CardService cardService;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @MockitoSpyBean
+    CardRepository cardRepo;
+
+    @Test
+    void concurrentReads_shouldShareOneConnection_whilePoolIsSmallerThanReaders() throws Exception {
+        CreateCardRequest req = new CreateCardRequest();
+        req.setCardholderName("Stampede");
+        req.setInitialBalance(BigDecimal.TEN);
+        UUID cardId = cardService.createCard(req).getId();
+
+        // The load holds its connection until every other reader has joined it
+        CountDownLatch joined = new CountDownLatch(1);
+        doAnswer(inv -> {
+            assertThat(joined.await(10, TimeUnit.SECONDS)).isTrue();
+            return inv.callRealMethod();
+        }).when(cardRepo).findById(any());
+        double coalescedBefore = meterRegistry.counter("card.reads.coalesced").count();
+
+        ExecutorService executor = Executors.newFixedThreadPool(READERS);
+        List<Future<CardResponse>> reads = new ArrayList<>();
+        for (int i = 0; i < READERS; i++) reads.add(executor.submit(() -> cardService.getCard(cardId)));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (meterRegistry.counter("card.reads.coalesced").count() - coalescedBefore < READERS - 1
+                && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        joined.countDown();
+
+        for (Future<CardResponse> read : reads) {
+            assertThat(read.get(10, TimeUnit.SECONDS).getBalance()).isEqualByComparingTo("10");
+        }
+        executor.shutdown();
+        assertThat(meterRegistry.counter("card.reads.coalesced").count() - coalescedBefore).isEqualTo(READERS - 1);
+    }
+}
@@ -0,0 +1,97 @@
+package com.nium.cardplatform.benchmark;
+
+import com.nium.cardplatform.config.LockingProperties;
+import com.nium.cardplatform.config.RateLimitProperties;
+import com.nium.cardplatform.config.RecentTransactionsProperties;
+import com.nium.cardplatform.dto.SpendRequest;
+import com.nium.cardplatform.exception.CardBlockedException;
+import com.nium.cardplatform.exception.InsufficientBalanceException;
+import com.nium.cardplatform.jooq.tables.records.CardRecord;
+import com.nium.cardplatform.repository.CardRepository;
+import com.nium.cardplatform.repository.TransactionRepository;
+import com.nium.cardplatform.service.BalanceSlotService;
+import com.nium.cardplatform.service.CardService;
+import com.nium.cardplatform.service.RateLimiterService;
+import com.nium.cardplatform.service.RecentTransactionCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Cost of a declined spend through CardService, with the repositories replaced by in-memory stand-ins so
+// only the service logic and the rejection are measured. fullStackTraceRejection is the old cost of the
+// exception alone; on a request thread the stack is ~100 frames deeper, so the real gap is larger.
+//   mvn -Pbenchmark test-compile exec:exec -Djmh.args=DeclinedSpend
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeclinedSpendBenchmark {
+
+    private final UUID blockedCard = UUID.randomUUID();
+    private final UUID emptyCard = UUID.randomUUID();
+    private final SpendRequest request = new SpendRequest(new BigDecimal("10.00"));
+    private CardService cardService;
+
+    @Setup
+    public void setUp() {
+        Map<UUID, CardRecord> cards = Map.of(
+                blockedCard, new CardRecord(blockedCard, "Blocked", 10_000L, "BLOCKED", 0, LocalDateTime.now(), 0L, null, 0),
+                emptyCard, new CardRecord(emptyCard, "Empty", 0L, "ACTIVE", 0, LocalDateTime.now(), 0L, null, 0));
+        CardRepository cardRepo = new CardRepository(null, null) {
+            @Override
+            public CardRecord findBalanceById(UUID id) {
+                return cards.get(id);
+            }
+        };
+        // Never rate limited, so every call reaches the balance check
+        RateLimiterService rateLimiter = new RateLimiterService(new RateLimitProperties(RateLimitProperties.Strategy.GCRA, List.of())) {
+            @Override
+            public boolean allowSpend(UUID cardId) {
+                return true;
+            }
+        };
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        cardService = new CardService(cardRepo, new TransactionRepository(null, null), null, rateLimiter, null,
+                new RecentTransactionCache(new RecentTransactionsProperties(10, 1_000), meterRegistry),
+                new LockingProperties(LockingProperties.Mode.OPTIMISTIC, Set.of()),
+                new BalanceSlotService(null, cardRepo, null, meterRegistry), null, meterRegistry);
+    }
+
+    @Benchmark
+    public Object declineBlockedCard() {
+        try {
+            cardService.spend(blockedCard, request);
+            throw new AssertionError("spend should have been declined");
+        } catch (CardBlockedException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object declineInsufficientBalance() {
+        try {
+            cardService.spend(emptyCard, request);
+            throw new AssertionError("spend should have been declined");
+        } catch (InsufficientBalanceException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object fullStackTraceRejection() {
+        try {
+            throw new IllegalStateException("Insufficient balance for card: " + emptyCard);
+        } catch (IllegalStateException e) {
+            return e;
+        }
+    }
+}
@@ -1,28 +1,43 @@
 package com.nium.cardplatform.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.nium.cardplatform.config.CborConfig;
 import com.nium.cardplatform.dto.*;
 import com.nium.cardplatform.exception.*;
+import com.nium.cardplatform.service.AdaptiveConcurrencyLimiter;
+import com.nium.cardplatform.service.AsyncCardService;
+import com.nium.cardplatform.service.BulkStatusService;
 import com.nium.cardplatform.service.CardService;
+import com.nium.cardplatform.service.TransactionPage;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(CardController.class)
+@Import(CborConfig.class)
 class CardControllerTest {
 
     @Autowired
@@ -31,6 +46,16 @@ class CardControllerTest {
     @MockBean
     private CardService cardService;
 
+    @MockBean
+    private AsyncCardService asyncCardService;
+
+    @MockBean
+    private BulkStatusService bulkStatusService;
+
+    // Disabled (mock) limiter: load shedding is covered by LoadSheddingInterceptorTest
+    @MockBean
+    private AdaptiveConcurrencyLimiter concurrencyLimiter;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -133,6 +158,28 @@ class CardControllerTest {
                 .andExpect(jsonPath("$.message").value("Concurrent modification detected, try again."));
     }
 
+    @Test
+    void transfer_shouldReturnNoContent_whenValid_andBadRequest_forSameCard() throws Exception {
+        UUID cardId = UUID.randomUUID();
+        UUID toCardId = UUID.randomUUID();
+
+        mockMvc.perform(post("/cards/" + cardId + "/transfer")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new TransferRequest(toCardId, BigDecimal.valueOf(30)))))
+                .andExpect(status().isNoContent());
+        ArgumentCaptor<TransferRequest> captor = ArgumentCaptor.forClass(TransferRequest.class);
+        verify(cardService).transfer(eq(cardId), captor.capture());
+        assertEquals(toCardId, captor.getValue().getToCardId());
+
+        doThrow(new InvalidTransferException("Cannot transfer to the same card."))
+                .when(cardService).transfer(eq(toCardId), any());
+        mockMvc.perform(post("/cards/" + toCardId + "/transfer")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new TransferRequest(toCardId, BigDecimal.TEN))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Cannot transfer to the same card."));
+    }
+
     @Test
     void spend_shouldReturnTooManyRequests_whenRateLimitExceeded() throws Exception {
         UUID cardId = UUID.randomUUID();
@@ -230,19 +277,34 @@ class CardControllerTest {
         tx.setAmount(BigDecimal.valueOf(10));
         tx.setCreatedAt(LocalDateTime.now());
 
-        when(cardService.getTransactions(cardId, 10, 0)).thenReturn(List.of(tx));
+        LocalDateTime lastTxAt = LocalDateTime.of(2025, 7, 24, 17, 45, 31);
+        when(cardService.getTransactionPage(cardId, 10, 0)).thenReturn(new TransactionPage(List.of(tx), 42, lastTxAt));
 
         mockMvc.perform(get("/cards/" + cardId + "/transactions")
                         .param("limit", "10")
                         .param("offset", "0"))
                 .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", "42"))
+                .andExpect(header().string("X-Last-Transaction-At", "2025-07-24T17:45:31"))
                 .andExpect(jsonPath("$[0].type").value("SPEND"));
     }
 
+    @Test
+    void getTransactions_shouldOmitLastTransactionHeader_whenCardHasNone() throws Exception {
+        UUID cardId = UUID.randomUUID();
+        when(cardService.getTransactionPage(cardId, 10, 0)).thenReturn(new TransactionPage(List.of(), 0, null));
+
+        mockMvc.perform(get("/cards/" + cardId + "/transactions"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", "0"))
+                .andExpect(header().doesNotExist("X-Last-Transaction-At"))
+                .andExpect(jsonPath("$").isEmpty());
+    }
+
     @Test
     void getTransactions_shouldReturnNotFound_whenCardNotFound() throws Exception {
         UUID cardId = UUID.randomUUID();
-        when(cardService.getTransactions(cardId, 10, 0))
+        when(cardService.getTransactionPage(cardId, 10, 0))
                 .thenThrow(new CardNotFoundException("Card not found: " + cardId));
 
         mockMvc.perform(get("/cards/" + cardId + "/transactions")
@@ -291,4 +353,181 @@ class CardControllerTest {
                 .andExpect(status().isNotFound())
                 .andExpect(jsonPath("$.message").value("Card not found: " + cardId));
     }
+
+    @Test
+    void spendAsync_shouldReturnNoContent_whenValid() throws Exception {
+        UUID cardId = UUID.randomUUID();
+        SpendRequest req = new SpendRequest();
+        req.setAmount(BigDecimal.valueOf(30));
+
+        when(asyncCardService.spend(eq(cardId), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        MvcResult result = mockMvc.perform(post("/cards/" + cardId + "/spend/async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    void spendAsync_shouldReturnBadRequest_whenServiceFails() throws Exception {
+        UUID cardId = UUID.randomUUID();
+        SpendRequest req = new SpendRequest();
+        req.setAmount(BigDecimal.valueOf(30));
+
+        when(asyncCardService.spend(eq(cardId), any())).thenReturn(CompletableFuture.supplyAsync(() -> {
+            throw new InsufficientBalanceException("Insufficient balance for card: " + cardId);
+        }));
+
+        MvcResult result = mockMvc.perform(post("/cards/" + cardId + "/spend/async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Insufficient balance for card: " + cardId));
+    }
+
+    @Test
+    void topupAsync_shouldReturnServiceUnavailable_whenExecutorSaturated() throws Exception {
+        UUID cardId = UUID.randomUUID();
+        TopupRequest req = new TopupRequest();
+        req.setAmount(BigDecimal.valueOf(50));
+
+        when(asyncCardService.topup(eq(cardId), any())).thenThrow(new TaskRejectedException("queue full"));
+
+        mockMvc.perform(post("/cards/" + cardId + "/topup/async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+    }
+
+    @Test
+    void getCard_shouldReturnCbor_whenRequested() throws Exception {
+        UUID cardId = UUID.randomUUID();
+        CardResponse resp = new CardResponse();
+        resp.setId(cardId);
+        resp.setCardholderName("Alice");
+        resp.setBalance(new BigDecimal("120.50"));
+        resp.setStatus("ACTIVE");
+        resp.setCreatedAt(LocalDateTime.of(2025, 7, 24, 16, 34, 9));
+
+        when(cardService.getCard(cardId)).thenReturn(resp);
+
+        byte[] body = mockMvc.perform(get("/cards/" + cardId).accept("application/cbor"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/cbor"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        CBORMapper cbor = new CBORMapper();
+        cbor.registerModule(new JavaTimeModule());
+        CardResponse decoded = cbor.readValue(body, CardResponse.class);
+        assertEquals(cardId, decoded.getId());
+        assertEquals(new BigDecimal("120.50"), decoded.getBalance());
+        assertEquals(resp.getCreatedAt(), decoded.getCreatedAt());
+    }
+
+    @Test
+    void getTransactions_shouldReturnCbor_whenRequested() throws Exception {
+        UUID cardId = UUID.randomUUID();
+        TransactionResponse tx = new TransactionResponse();
+        tx.setId(UUID.randomUUID());
+        tx.setCardId(cardId);
+        tx.setType("SPEND");
+        tx.setAmount(new BigDecimal("10.25"));
+        tx.setCreatedAt(LocalDateTime.now());
+
+        when(cardService.getTransactionPage(cardId, 10, 0)).thenReturn(new TransactionPage(List.of(tx), 1, tx.getCreatedAt()));
+
+        byte[] body = mockMvc.perform(get("/cards/" + cardId + "/transactions").accept("application/cbor"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/cbor"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        CBORMapper cbor = new CBORMapper();
+        cbor.registerModule(new JavaTimeModule());
+        TransactionResponse[] decoded = cbor.readValue(body, TransactionResponse[].class);
+        assertEquals(1, decoded.length);
+        assertEquals(new BigDecimal("10.25"), decoded[0].getAmount());
+        assertEquals(tx.getCreatedAt(), decoded[0].getCreatedAt());
+    }
+
+    @Test
+    void getCard_shouldStillDefaultToJson() throws Exception {
+        UUID cardId = UUID.randomUUID();
+        CardResponse resp = new CardResponse();
+        resp.setId(cardId);
+        resp.setCardholderName("Alice");
+        resp.setCreatedAt(LocalDateTime.of(2025, 7, 24, 16, 34, 9));
+
+        when(cardService.getCard(cardId)).thenReturn(resp);
+
+        mockMvc.perform(get("/cards/" + cardId))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.createdAt").value("2025-07-24T16:34:09"));
+    }
+
+    @Test
+    void searchCards_shouldPassFiltersAndReturnPage() throws Exception {
+        CardResponse card = new CardResponse();
+        card.setId(UUID.randomUUID());
+        card.setCardholderName("Alice");
+        card.setStatus("BLOCKED");
+        when(cardService.searchCards("BLOCKED", "Al", LocalDateTime.of(2025, 7, 1, 0, 0), null, 20, "abc"))
+                .thenReturn(new CardPageResponse(List.of(card), "next"));
+
+        mockMvc.perform(get("/cards")
+                        .param("status", "BLOCKED")
+                        .param("namePrefix", "Al")
+                        .param("createdFrom", "2025-07-01T00:00:00")
+                        .param("limit", "20")
+                        .param("cursor", "abc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].cardholderName").value("Alice"))
+                .andExpect(jsonPath("$.nextCursor").value("next"));
+    }
+
+    @Test
+    void searchCards_shouldReturnBadRequest_whenCursorInvalid() throws Exception {
+        when(cardService.searchCards(any(), any(), any(), any(), anyInt(), eq("bad")))
+                .thenThrow(new InvalidSearchRequestException("Invalid cursor."));
+
+        mockMvc.perform(get("/cards").param("cursor", "bad"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid cursor."));
+    }
+
+    @Test
+    void changeStatus_shouldReturnChangedCards() throws Exception {
+        UUID changed = UUID.randomUUID(), missing = UUID.randomUUID();
+        when(bulkStatusService.changeStatus(any()))
+                .thenReturn(new BulkStatusResponse("BLOCKED", List.of(changed), List.of(missing)));
+
+        mockMvc.perform(post("/cards/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new BulkStatusRequest("BLOCKED", List.of(changed, missing)))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changedCount").value(1))
+                .andExpect(jsonPath("$.changed[0]").value(changed.toString()))
+                .andExpect(jsonPath("$.notFound[0]").value(missing.toString()));
+    }
+
+    @Test
+    void changeStatus_shouldReturnBadRequest_whenInvalid() throws Exception {
+        when(bulkStatusService.changeStatus(any()))
+                .thenThrow(new InvalidBulkRequestException("Status must be ACTIVE or BLOCKED."));
+
+        mockMvc.perform(post("/cards/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{ \"status\": \"DELETED\", \"cardIds\": [] }"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Status must be ACTIVE or BLOCKED."));
+    }
 }
@@ -0,0 +1,89 @@
+package com.nium.cardplatform.controller;
+
+import com.nium.cardplatform.config.ConcurrencyLimitProperties;
+import com.nium.cardplatform.exception.GlobalExceptionHandler;
+import com.nium.cardplatform.exception.ServiceOverloadedException;
+import com.nium.cardplatform.service.AdaptiveConcurrencyLimiter;
+import com.nium.cardplatform.service.AdaptiveConcurrencyLimiter.Priority;
+import com.nium.cardplatform.service.AsyncCardService;
+import com.nium.cardplatform.service.BulkStatusService;
+import com.nium.cardplatform.service.CardService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.DispatcherType;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class LoadSheddingInterceptorTest {
+
+    private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(new ConcurrencyLimitProperties(
+            true, 2, 2, 10, Duration.ofHours(1), 0.9, 0.5, Duration.ofSeconds(3)), new SimpleMeterRegistry());
+    private final LoadSheddingInterceptor interceptor = new LoadSheddingInterceptor(limiter);
+
+    @Test
+    void priorityOf_shouldFavourSpendsAndTopups() {
+        assertEquals(Priority.CRITICAL, LoadSheddingInterceptor.priorityOf(new MockHttpServletRequest("POST", "/cards/" + UUID.randomUUID() + "/spend")));
+        assertEquals(Priority.CRITICAL, LoadSheddingInterceptor.priorityOf(new MockHttpServletRequest("POST", "/cards/" + UUID.randomUUID() + "/topup/async")));
+        assertEquals(Priority.CRITICAL, LoadSheddingInterceptor.priorityOf(new MockHttpServletRequest("POST", "/cards/" + UUID.randomUUID() + "/transfer")));
+        assertEquals(Priority.STANDARD, LoadSheddingInterceptor.priorityOf(new MockHttpServletRequest("GET", "/cards/" + UUID.randomUUID() + "/transactions")));
+        assertEquals(Priority.STANDARD, LoadSheddingInterceptor.priorityOf(new MockHttpServletRequest("GET", "/cards")));
+        assertEquals(Priority.STANDARD, LoadSheddingInterceptor.priorityOf(new MockHttpServletRequest("POST", "/cards/" + UUID.randomUUID() + "/block")));
+    }
+
+    @Test
+    void asyncRequest_shouldHoldOnePermitAcrossDispatchesAndReleaseAtCompletion() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/cards/" + UUID.randomUUID() + "/spend/async");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertTrue(interceptor.preHandle(request, response, null));
+        request.setDispatcherType(DispatcherType.ASYNC);
+        assertTrue(interceptor.preHandle(request, response, null));
+        assertEquals(1, limiter.getInFlight());
+
+        interceptor.afterCompletion(request, response, null, null);
+        interceptor.afterCompletion(request, response, null, null);
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void overloadedReads_shouldBeShedWhileSpendsAreAdmitted() {
+        assertTrue(interceptor.preHandle(new MockHttpServletRequest("GET", "/cards"), new MockHttpServletResponse(), null));
+
+        ServiceOverloadedException ex = assertThrows(ServiceOverloadedException.class,
+                () -> interceptor.preHandle(new MockHttpServletRequest("GET", "/cards"), new MockHttpServletResponse(), null));
+        assertEquals(3, ex.getRetryAfterSeconds());
+
+        assertTrue(interceptor.preHandle(new MockHttpServletRequest("POST", "/cards/" + UUID.randomUUID() + "/spend"), new MockHttpServletResponse(), null));
+    }
+
+    @Test
+    void shedRequest_shouldReturn503WithRetryAfter() throws Exception {
+        CardService cardService = mock(CardService.class);
+        MockMvc mockMvc = MockMvcBuilders
+                .standaloneSetup(new CardController(cardService, mock(AsyncCardService.class), mock(BulkStatusService.class)))
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .addMappedInterceptors(new String[]{"/cards/**"}, interceptor)
+                .build();
+        limiter.tryAcquire(Priority.CRITICAL);
+        limiter.tryAcquire(Priority.CRITICAL);
+
+        mockMvc.perform(post("/cards/" + UUID.randomUUID() + "/spend")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amount\": 10}"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "3"))
+                .andExpect(jsonPath("$.message").value("Server is overloaded, try again later."));
+        verifyNoInteractions(cardService);
+    }
+}
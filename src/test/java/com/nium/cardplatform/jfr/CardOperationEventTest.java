@@ -0,0 +1,129 @@
+package com.nium.cardplatform.jfr;
+
+import com.nium.cardplatform.config.LockingProperties;
+import com.nium.cardplatform.dto.SpendRequest;
+import com.nium.cardplatform.dto.TopupRequest;
+import com.nium.cardplatform.exception.InsufficientBalanceException;
+import com.nium.cardplatform.jooq.tables.records.CardRecord;
+import com.nium.cardplatform.repository.BalanceSlotRepository;
+import com.nium.cardplatform.repository.CardRepository;
+import com.nium.cardplatform.repository.TransactionRepository;
+import com.nium.cardplatform.service.BalanceSlotService;
+import com.nium.cardplatform.service.CardEventPublisher;
+import com.nium.cardplatform.service.CardService;
+import com.nium.cardplatform.service.RateLimiterService;
+import com.nium.cardplatform.service.RecentTransactionCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.jooq.DSLContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CardOperationEventTest {
+
+    private static final String EVENT_NAME = "com.nium.cardplatform.CardOperation";
+
+    @TempDir
+    Path tempDir;
+
+    private CardRepository cardRepo;
+    private CardService cardService;
+
+    @BeforeEach
+    void setup() {
+        cardRepo = mock(CardRepository.class);
+        RateLimiterService rateLimiter = mock(RateLimiterService.class);
+        when(rateLimiter.allowSpend(any())).thenReturn(true);
+        when(rateLimiter.allowSpendAmount(any(), anyLong())).thenReturn(OptionalLong.of(0L));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        cardService = new CardService(cardRepo, mock(TransactionRepository.class), mock(DSLContext.class),
+                rateLimiter, mock(CardEventPublisher.class), mock(RecentTransactionCache.class),
+                new LockingProperties(LockingProperties.Mode.OPTIMISTIC, Set.of()),
+                new BalanceSlotService(mock(BalanceSlotRepository.class), cardRepo, mock(PlatformTransactionManager.class), meterRegistry),
+                mock(PlatformTransactionManager.class), meterRegistry);
+    }
+
+    @Test
+    void spendAndTopup_shouldRecordPhasesAndOutcome() throws Exception {
+        UUID cardId = UUID.randomUUID();
+        when(cardRepo.findBalanceById(cardId)).thenReturn(new CardRecord(cardId, "Holder", 10_000L, "ACTIVE", 0, LocalDateTime.now(), 0L, null, 0));
+        when(cardRepo.updateBalanceAndVersion(eq(cardId), anyLong(), eq(0), any())).thenReturn(1);
+
+        SpendRequest spend = new SpendRequest();
+        spend.setAmount(new BigDecimal("25.50"));
+        TopupRequest topup = new TopupRequest();
+        topup.setAmount(new BigDecimal("10"));
+
+        List<RecordedEvent> events = record(() -> {
+            cardService.spend(cardId, spend);
+            cardService.topup(cardId, topup);
+        });
+
+        assertEquals(2, events.size());
+        RecordedEvent spent = events.get(0);
+        assertEquals("SPEND", spent.getString("operation"));
+        assertEquals(cardId.toString(), spent.getString("cardId"));
+        assertEquals(2_550L, spent.getLong("amount"));
+        assertEquals("OK", spent.getString("outcome"));
+        assertTrue(spent.getLong("loadTime") > 0);
+        assertTrue(spent.getLong("rateLimitTime") > 0);
+        assertTrue(spent.getLong("updateTime") > 0);
+        assertTrue(spent.getLong("insertTime") > 0);
+        assertTrue(spent.getLong("publishTime") > 0);
+
+        RecordedEvent toppedUp = events.get(1);
+        assertEquals("TOPUP", toppedUp.getString("operation"));
+        assertEquals(1_000L, toppedUp.getLong("amount"));
+        assertEquals("OK", toppedUp.getString("outcome"));
+        assertEquals(0L, toppedUp.getLong("rateLimitTime"));
+    }
+
+    @Test
+    void declinedSpend_shouldRecordRejectionAsOutcome() throws Exception {
+        UUID cardId = UUID.randomUUID();
+        when(cardRepo.findBalanceById(cardId)).thenReturn(new CardRecord(cardId, "Holder", 1_000L, "ACTIVE", 0, LocalDateTime.now(), 0L, null, 0));
+
+        SpendRequest spend = new SpendRequest();
+        spend.setAmount(new BigDecimal("50"));
+
+        List<RecordedEvent> events = record(() ->
+                assertThrows(InsufficientBalanceException.class, () -> cardService.spend(cardId, spend)));
+
+        assertEquals(1, events.size());
+        RecordedEvent declined = events.get(0);
+        assertEquals("InsufficientBalanceException", declined.getString("outcome"));
+        assertEquals(0L, declined.getLong("updateTime"));
+        assertEquals(0L, declined.getLong("insertTime"));
+        verify(cardRepo, never()).updateBalanceAndVersion(any(), anyLong(), anyInt(), any());
+    }
+
+    private List<RecordedEvent> record(Runnable action) throws Exception {
+        Path file = tempDir.resolve("card-operations.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(EVENT_NAME).withThreshold(Duration.ZERO);
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(file);
+        }
+        return RecordingFile.readAllEvents(file).stream()
+                .filter(e -> e.getEventType().getName().equals(EVENT_NAME))
+                .toList();
+    }
+}
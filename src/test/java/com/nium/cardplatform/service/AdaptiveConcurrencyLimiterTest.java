@@ -0,0 +1,84 @@
+package com.nium.cardplatform.service;
+
+import com.nium.cardplatform.config.ConcurrencyLimitProperties;
+import com.nium.cardplatform.service.AdaptiveConcurrencyLimiter.Permit;
+import com.nium.cardplatform.service.AdaptiveConcurrencyLimiter.Priority;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private AdaptiveConcurrencyLimiter limiter(int initial, int min, int max, Duration latencyTarget) {
+        return new AdaptiveConcurrencyLimiter(new ConcurrencyLimitProperties(
+                true, initial, min, max, latencyTarget, 0.5, 0.5, Duration.ofSeconds(2)), meterRegistry);
+    }
+
+    @Test
+    void standardRequests_shouldBeShedBeforeCriticalOnes() {
+        AdaptiveConcurrencyLimiter limiter = limiter(4, 1, 10, Duration.ofHours(1));
+
+        assertNotNull(limiter.tryAcquire(Priority.STANDARD));
+        assertNotNull(limiter.tryAcquire(Priority.STANDARD));
+        assertNull(limiter.tryAcquire(Priority.STANDARD), "reads may only use half of the limit");
+
+        assertNotNull(limiter.tryAcquire(Priority.CRITICAL));
+        assertNotNull(limiter.tryAcquire(Priority.CRITICAL));
+        assertNull(limiter.tryAcquire(Priority.CRITICAL));
+
+        assertEquals(4, limiter.getInFlight());
+        assertEquals(1.0, meterRegistry.get("concurrency.requests.shed").tag("priority", "standard").counter().count());
+        assertEquals(1.0, meterRegistry.get("concurrency.requests.shed").tag("priority", "critical").counter().count());
+    }
+
+    @Test
+    void slowResponses_shouldShrinkLimitOncePerRoundTripDownToMinimum() {
+        AdaptiveConcurrencyLimiter limiter = limiter(16, 3, 100, Duration.ZERO);
+
+        // Admitted together under the same limit: only the first slow sample backs off
+        List<Permit> permits = new ArrayList<>();
+        for (int i = 0; i < 4; i++) permits.add(limiter.tryAcquire(Priority.CRITICAL));
+        permits.forEach(p -> p.release(false));
+        assertEquals(8, limiter.getLimit());
+
+        for (int i = 0; i < 5; i++) limiter.tryAcquire(Priority.CRITICAL).release(true);
+        assertEquals(3, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void fastResponses_shouldGrowLimitOnlyWhileItIsInUse() {
+        AdaptiveConcurrencyLimiter limiter = limiter(4, 1, 5, Duration.ofHours(1));
+
+        // One request at a time never gets close to the limit
+        for (int i = 0; i < 50; i++) limiter.tryAcquire(Priority.CRITICAL).release(false);
+        assertEquals(4, limiter.getLimit());
+
+        for (int round = 0; round < 20; round++) {
+            List<Permit> permits = new ArrayList<>();
+            Permit permit;
+            while ((permit = limiter.tryAcquire(Priority.CRITICAL)) != null) permits.add(permit);
+            permits.forEach(p -> p.release(false));
+        }
+        assertEquals(5, limiter.getLimit(), "capped at max-limit");
+    }
+
+    @Test
+    void release_shouldBeIdempotent() {
+        AdaptiveConcurrencyLimiter limiter = limiter(4, 1, 10, Duration.ofHours(1));
+        Permit permit = limiter.tryAcquire(Priority.CRITICAL);
+        limiter.tryAcquire(Priority.CRITICAL);
+
+        permit.release(false);
+        permit.release(false);
+
+        assertEquals(1, limiter.getInFlight());
+    }
+}
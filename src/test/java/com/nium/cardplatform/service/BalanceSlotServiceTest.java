@@ -0,0 +1,156 @@
+package com.nium.cardplatform.service;
+
+import com.nium.cardplatform.exception.InsufficientBalanceException;
+import com.nium.cardplatform.jooq.tables.records.CardBalanceSlotRecord;
+import com.nium.cardplatform.jooq.tables.records.CardRecord;
+import com.nium.cardplatform.repository.BalanceSlotRepository;
+import com.nium.cardplatform.repository.CardRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BalanceSlotServiceTest {
+
+    private final UUID cardId = UUID.randomUUID();
+    private final LocalDateTime now = LocalDateTime.now();
+
+    private BalanceSlotRepository slotRepo;
+    private CardRepository cardRepo;
+    private PlatformTransactionManager transactionManager;
+    private final List<SimpleTransactionStatus> savepoints = new ArrayList<>();
+    private SimpleMeterRegistry meterRegistry;
+    private BalanceSlotService service;
+
+    @BeforeEach
+    void setUp() {
+        slotRepo = mock(BalanceSlotRepository.class);
+        cardRepo = mock(CardRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(inv -> {
+            SimpleTransactionStatus savepoint = new SimpleTransactionStatus();
+            savepoints.add(savepoint);
+            return savepoint;
+        });
+        meterRegistry = new SimpleMeterRegistry();
+        service = new BalanceSlotService(slotRepo, cardRepo, transactionManager, meterRegistry);
+    }
+
+    private CardRecord card(long balance, long txCount, int slots) {
+        return new CardRecord(cardId, "Hot", balance, "ACTIVE", 0, now, txCount, null, slots);
+    }
+
+    private List<CardBalanceSlotRecord> slots(long... balances) {
+        List<CardBalanceSlotRecord> slots = new ArrayList<>();
+        for (int i = 0; i < balances.length; i++) {
+            slots.add(new CardBalanceSlotRecord(cardId, i, balances[i], 2L, now.minusMinutes(i)));
+        }
+        return slots;
+    }
+
+    @Test
+    void addSlotTotals_shouldShowCardTotals_onlyForShardedCards() {
+        CardRecord plain = card(500L, 3L, 0);
+        assertNull(service.addSlotTotals(plain));
+        assertNull(service.addSlotTotals(null));
+        verifyNoInteractions(slotRepo);
+
+        CardRecord sharded = card(0L, 3L, 3);
+        when(slotRepo.findByCardId(cardId)).thenReturn(slots(100L, 200L, 300L));
+
+        assertEquals(3, service.addSlotTotals(sharded).size());
+        assertEquals(600L, sharded.getBalance());
+        assertEquals(9L, sharded.getTxCount());
+        assertEquals(now, sharded.getLastTxAt());
+    }
+
+    @Test
+    void debit_shouldTakeAmountFromASlotThatCoversIt() {
+        when(slotRepo.debit(cardId, 2, 150L, now)).thenReturn(50L);
+
+        service.debit(card(0L, 0L, 4), slots(100L, 0L, 200L, 100L), 150L, now);
+
+        verify(slotRepo).debit(cardId, 2, 150L, now);
+        verifyNoMoreInteractions(slotRepo);
+        verifyNoInteractions(cardRepo);
+        assertEquals(1.0, meterRegistry.get("card.slots.debits").counter().count());
+    }
+
+    @Test
+    void debit_shouldReleaseSlotItFoundShort_beforeTryingTheNext() {
+        // Both slots covered 150 when read, but a concurrent spend got to slot 0 first
+        when(slotRepo.debit(cardId, 0, 150L, now)).thenReturn(null);
+        when(slotRepo.debit(cardId, 1, 150L, now)).thenReturn(50L);
+
+        service.debit(card(0L, 0L, 2), slots(200L, 200L), 150L, now);
+
+        verify(slotRepo).debit(cardId, 1, 150L, now);
+        verifyNoInteractions(cardRepo);
+        // Each attempt runs in its own savepoint; only the one that came up short is rolled back
+        assertEquals(savepoints.size() - 1, savepoints.stream().filter(SimpleTransactionStatus::isRollbackOnly).count());
+        assertFalse(savepoints.get(savepoints.size() - 1).isRollbackOnly());
+    }
+
+    @Test
+    void debit_shouldPoolAndRespreadSlots_whenNoSlotCoversAmount() {
+        when(cardRepo.findByIdForUpdate(cardId)).thenReturn(card(0L, 0L, 3));
+        when(slotRepo.findByCardIdForUpdate(cardId)).thenReturn(slots(30L, 30L, 30L));
+
+        service.debit(card(0L, 0L, 3), slots(30L, 30L, 30L), 80L, now);
+
+        // 10 left, spread 4/3/3, with the 80 parked on slot 0 and then debited from it
+        verify(slotRepo).setBalances(cardId, new long[]{84L, 3L, 3L});
+        verify(slotRepo).debit(cardId, 0, 80L, now);
+        assertEquals(1.0, meterRegistry.get("card.slots.rebalances").counter().count());
+    }
+
+    @Test
+    void debit_shouldDecline_whenPooledBalanceDoesNotCoverAmount() {
+        when(cardRepo.findByIdForUpdate(cardId)).thenReturn(card(0L, 0L, 2));
+        when(slotRepo.findByCardIdForUpdate(cardId)).thenReturn(slots(30L, 40L));
+
+        assertThrows(InsufficientBalanceException.class,
+                () -> service.debit(card(0L, 0L, 2), slots(30L, 40L), 71L, now));
+        verify(slotRepo, never()).setBalances(any(), any());
+        verify(slotRepo, never()).debit(any(), anyInt(), anyLong(), any());
+    }
+
+    @Test
+    void credit_shouldRefillThePoorestSlot() {
+        when(slotRepo.credit(cardId, 1, 25L, now)).thenReturn(1);
+
+        service.credit(card(0L, 0L, 3), slots(100L, 5L, 50L), 25L, now);
+
+        verify(slotRepo).credit(cardId, 1, 25L, now);
+    }
+
+    @Test
+    void reshard_shouldSpreadWholeBalanceAndKeepCardTotals() {
+        LocalDateTime lastTxAt = now.minusHours(1);
+        when(cardRepo.findByIdForUpdate(cardId)).thenReturn(new CardRecord(cardId, "Hot", 1_000L, "ACTIVE", 0, now, 4L, lastTxAt, 0));
+        when(slotRepo.findByCardIdForUpdate(cardId)).thenReturn(List.of());
+
+        service.reshard(cardId, 3);
+
+        verify(slotRepo).replace(cardId, new long[]{334L, 333L, 333L});
+        verify(cardRepo).updateBalanceSlots(cardId, 3, 0L, 4L, lastTxAt);
+
+        // And back: slot counters are folded into the card's
+        when(cardRepo.findByIdForUpdate(cardId)).thenReturn(card(0L, 4L, 3));
+        when(slotRepo.findByCardIdForUpdate(cardId)).thenReturn(slots(300L, 300L, 300L));
+
+        service.reshard(cardId, 0);
+
+        verify(slotRepo).replace(cardId, new long[0]);
+        verify(cardRepo).updateBalanceSlots(cardId, 0, 900L, 10L, now);
+    }
+}
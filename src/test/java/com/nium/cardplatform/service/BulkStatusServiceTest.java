@@ -0,0 +1,93 @@
+package com.nium.cardplatform.service;
+
+import com.nium.cardplatform.dto.BulkStatusRequest;
+import com.nium.cardplatform.dto.BulkStatusResponse;
+import com.nium.cardplatform.exception.InvalidBulkRequestException;
+import com.nium.cardplatform.repository.CardRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BulkStatusServiceTest {
+
+    private CardService cardService;
+    private CardRepository cardRepo;
+    private BulkStatusService bulkStatusService;
+
+    @BeforeEach
+    void setUp() {
+        cardService = mock(CardService.class);
+        cardRepo = mock(CardRepository.class);
+        bulkStatusService = new BulkStatusService(cardService, cardRepo);
+    }
+
+    @Test
+    void changeStatus_shouldUpdateIdsInChunks_andSkipLookupWhenAllChanged() {
+        List<UUID> ids = IntStream.range(0, BulkStatusService.CHUNK_SIZE + 5).mapToObj(i -> UUID.randomUUID()).toList();
+        when(cardService.changeStatus(anyList(), eq("BLOCKED"))).thenAnswer(inv -> new ArrayList<>(inv.<List<UUID>>getArgument(0)));
+
+        BulkStatusResponse resp = bulkStatusService.changeStatus(new BulkStatusRequest("BLOCKED", ids));
+
+        assertEquals(ids, resp.getChanged());
+        assertTrue(resp.getNotFound().isEmpty());
+        verify(cardService, times(2)).changeStatus(anyList(), eq("BLOCKED"));
+        verify(cardRepo, never()).findExistingIds(any());
+    }
+
+    @Test
+    void changeStatus_shouldReportUnknownIds_butNotCardsAlreadyInStatus() {
+        UUID changed = UUID.randomUUID(), alreadyBlocked = UUID.randomUUID(), unknown = UUID.randomUUID();
+        when(cardService.changeStatus(List.of(changed, alreadyBlocked, unknown), "BLOCKED")).thenReturn(List.of(changed));
+        when(cardRepo.findExistingIds(any())).thenAnswer(inv -> {
+            Collection<UUID> rest = inv.getArgument(0);
+            assertEquals(List.of(alreadyBlocked, unknown), new ArrayList<>(rest));
+            return List.of(alreadyBlocked);
+        });
+
+        // Duplicates are applied once
+        BulkStatusResponse resp = bulkStatusService.changeStatus(
+                new BulkStatusRequest("BLOCKED", List.of(changed, alreadyBlocked, unknown, changed)));
+
+        assertEquals(List.of(changed), resp.getChanged());
+        assertEquals(List.of(unknown), resp.getNotFound());
+        assertEquals(1, resp.getChangedCount());
+    }
+
+    @Test
+    void changeStatus_shouldRepeatFilterChunks_untilAShortOne() {
+        BulkStatusRequest req = new BulkStatusRequest();
+        req.setStatus("ACTIVE");
+        req.setNamePrefix("Mallory");
+        List<UUID> full = IntStream.range(0, BulkStatusService.CHUNK_SIZE).mapToObj(i -> UUID.randomUUID()).toList();
+        List<UUID> last = List.of(UUID.randomUUID());
+        when(cardService.changeStatusMatching("Mallory", null, null, "ACTIVE", BulkStatusService.CHUNK_SIZE))
+                .thenReturn(full, last);
+
+        BulkStatusResponse resp = bulkStatusService.changeStatus(req);
+
+        assertEquals(BulkStatusService.CHUNK_SIZE + 1, resp.getChangedCount());
+        verify(cardService, times(2)).changeStatusMatching(any(), any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void changeStatus_shouldRejectInvalidRequests() {
+        assertThrows(InvalidBulkRequestException.class,
+                () -> bulkStatusService.changeStatus(new BulkStatusRequest("DELETED", List.of(UUID.randomUUID()))));
+        assertThrows(InvalidBulkRequestException.class,
+                () -> bulkStatusService.changeStatus(new BulkStatusRequest("BLOCKED", List.of())));
+
+        BulkStatusRequest both = new BulkStatusRequest("BLOCKED", List.of(UUID.randomUUID()));
+        both.setNamePrefix("A");
+        assertThrows(InvalidBulkRequestException.class, () -> bulkStatusService.changeStatus(both));
+        verifyNoInteractions(cardService);
+    }
+}
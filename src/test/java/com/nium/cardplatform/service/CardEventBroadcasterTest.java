@@ -0,0 +1,57 @@
+package com.nium.cardplatform.service;
+
+import com.nium.cardplatform.config.CardEventStreamProperties;
+import com.nium.cardplatform.dto.CardEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardEventBroadcasterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CardEventBroadcaster broadcaster =
+            new CardEventBroadcaster(new CardEventStreamProperties(4, Duration.ofMinutes(1)), meterRegistry);
+
+    @Test
+    void subscribe_shouldTrackSubscribersPerCard() {
+        UUID cardId = UUID.randomUUID();
+
+        SseEmitter first = broadcaster.subscribe(cardId);
+        SseEmitter second = broadcaster.subscribe(cardId);
+
+        assertNotSame(first, second);
+        assertEquals(2.0, meterRegistry.get("card.events.subscribers").gauge().value());
+    }
+
+    @Test
+    void onCardEvent_shouldIgnoreCardsWithoutSubscribers() {
+        broadcaster.onCardEvent(event(UUID.randomUUID()));
+
+        assertEquals(0.0, meterRegistry.counter("card.events.subscribers.dropped").count());
+    }
+
+    @Test
+    void onCardEvent_shouldNotDropSubscriberThatKeepsUp() throws Exception {
+        UUID cardId = UUID.randomUUID();
+        broadcaster.subscribe(cardId);
+
+        for (int i = 0; i < 3; i++) {
+            broadcaster.onCardEvent(event(cardId));
+            Thread.sleep(20);
+        }
+
+        assertEquals(0.0, meterRegistry.counter("card.events.subscribers.dropped").count());
+        assertEquals(1.0, meterRegistry.get("card.events.subscribers").gauge().value());
+    }
+
+    private CardEvent event(UUID cardId) {
+        return new CardEvent("SPEND", cardId, BigDecimal.ONE, BigDecimal.TEN, "ACTIVE", LocalDateTime.now());
+    }
+}
@@ -1,30 +1,59 @@
 package com.nium.cardplatform.service;
 
+import com.nium.cardplatform.config.LockingProperties;
+import com.nium.cardplatform.config.RecentTransactionsProperties;
 import com.nium.cardplatform.dto.*;
 import com.nium.cardplatform.exception.*;
+import com.nium.cardplatform.jooq.tables.records.CardBalanceSlotRecord;
 import com.nium.cardplatform.jooq.tables.records.CardRecord;
 import com.nium.cardplatform.jooq.tables.records.TransactionRecord;
+import com.nium.cardplatform.repository.BalanceSlotRepository;
 import com.nium.cardplatform.repository.CardRepository;
+import com.nium.cardplatform.repository.CardTransactions;
 import com.nium.cardplatform.repository.TransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.jooq.DSLContext;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 class CardServiceTest {
 
+    private static final long VELOCITY_RECORDED_AT = 42L;
+
     private CardRepository cardRepo;
     private TransactionRepository txRepo;
     private DSLContext dsl;
     private RateLimiterService rateLimiter;
+    private CardEventPublisher events;
+    private SimpleMeterRegistry meterRegistry;
+    private RecentTransactionCache recentTransactions;
+    private BalanceSlotRepository slotRepo;
+    private BalanceSlotService balanceSlots;
+    private PlatformTransactionManager transactionManager;
     private CardService cardService;
 
     @BeforeEach
@@ -33,7 +62,31 @@ class CardServiceTest {
         txRepo = mock(TransactionRepository.class);
         dsl = mock(DSLContext.class);
         rateLimiter = mock(RateLimiterService.class);
-        cardService = new CardService(cardRepo, txRepo, dsl, rateLimiter);
+        when(rateLimiter.allowSpendAmount(any(), anyLong())).thenReturn(OptionalLong.of(VELOCITY_RECORDED_AT));
+        events = mock(CardEventPublisher.class);
+        meterRegistry = new SimpleMeterRegistry();
+        recentTransactions = new RecentTransactionCache(new RecentTransactionsProperties(10, 1_000), meterRegistry);
+        slotRepo = mock(BalanceSlotRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        balanceSlots = new BalanceSlotService(slotRepo, cardRepo, transactionManager, meterRegistry);
+        cardService = new CardService(cardRepo, txRepo, dsl, rateLimiter, events, recentTransactions,
+                new LockingProperties(LockingProperties.Mode.OPTIMISTIC, Set.of()), balanceSlots, transactionManager, meterRegistry);
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    // Ends a transaction started with initSynchronization the way the transaction manager would
+    private static void completeTransaction(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        for (TransactionSynchronization synchronization : synchronizations) {
+            if (status == TransactionSynchronization.STATUS_COMMITTED) synchronization.afterCommit();
+            synchronization.afterCompletion(status);
+        }
     }
 
     @Test
@@ -50,14 +103,16 @@ class CardServiceTest {
         verify(cardRepo).create(cardCaptor.capture());
         CardRecord savedCard = cardCaptor.getValue();
         assertEquals("John Doe", savedCard.getCardholderName());
-        assertEquals(BigDecimal.valueOf(100), savedCard.getBalance());
+        assertEquals(10_000L, savedCard.getBalance());
         assertEquals("ACTIVE", savedCard.getStatus());
 
         verify(txRepo).create(txCaptor.capture());
         TransactionRecord savedTx = txCaptor.getValue();
         assertEquals("TOPUP", savedTx.getType());
-        assertEquals(BigDecimal.valueOf(100), savedTx.getAmount());
+        assertEquals(10_000L, savedTx.getAmount());
         assertEquals(savedCard.getId(), savedTx.getCardId());
+        assertEquals(1L, savedCard.getTxCount());
+        assertEquals(savedTx.getCreatedAt(), savedCard.getLastTxAt());
     }
 
     @Test
@@ -75,24 +130,24 @@ class CardServiceTest {
     @Test
     void spend_shouldSucceed_whenValidRequest() {
         UUID cardId = UUID.randomUUID();
-        CardRecord card = new CardRecord(cardId, "Holder", BigDecimal.valueOf(100), "ACTIVE", 0, LocalDateTime.now());
+        CardRecord card = new CardRecord(cardId, "Holder", 10_000L, "ACTIVE", 0, LocalDateTime.now(), 0L, null, 0);
 
-        when(cardRepo.findById(cardId)).thenReturn(card);
+        when(cardRepo.findBalanceById(cardId)).thenReturn(card);
         when(rateLimiter.allowSpend(cardId)).thenReturn(true);
-        when(cardRepo.updateBalanceAndVersion(eq(cardId), any(), eq(0))).thenReturn(1);
+        when(cardRepo.updateBalanceAndVersion(eq(cardId), anyLong(), eq(0), any())).thenReturn(1);
 
         SpendRequest req = new SpendRequest();
         req.setAmount(BigDecimal.valueOf(30));
         cardService.spend(cardId, req);
 
         verify(txRepo).create(any(TransactionRecord.class));
-        verify(cardRepo).updateBalanceAndVersion(cardId, BigDecimal.valueOf(70), 0);
+        verify(cardRepo).updateBalanceAndVersion(eq(cardId), eq(7_000L), eq(0), any());
     }
 
     @Test
     void spend_shouldThrow_whenCardNotFound() {
         UUID cardId = UUID.randomUUID();
-        when(cardRepo.findById(cardId)).thenReturn(null);
+        when(cardRepo.findBalanceById(cardId)).thenReturn(null);
 
         SpendRequest req = new SpendRequest();
         req.setAmount(BigDecimal.valueOf(10));
@@ -103,8 +158,8 @@ class CardServiceTest {
     @Test
     void spend_shouldThrow_whenCardInactive() {
         UUID cardId = UUID.randomUUID();
-        CardRecord card = new CardRecord(cardId, "Holder", BigDecimal.valueOf(100), "BLOCKED", 0, LocalDateTime.now());
-        when(cardRepo.findById(cardId)).thenReturn(card);
+        CardRecord card = new CardRecord(cardId, "Holder", 10_000L, "BLOCKED", 0, LocalDateTime.now(), 0L, null, 0);
+        when(cardRepo.findBalanceById(cardId)).thenReturn(card);
 
         SpendRequest req = new SpendRequest();
         req.setAmount(BigDecimal.valueOf(10));
@@ -115,8 +170,8 @@ class CardServiceTest {
     @Test
     void spend_shouldThrow_whenInsufficientBalance() {
         UUID cardId = UUID.randomUUID();
-        CardRecord card = new CardRecord(cardId, "Holder", BigDecimal.valueOf(10), "ACTIVE", 0, LocalDateTime.now());
-        when(cardRepo.findById(cardId)).thenReturn(card);
+        CardRecord card = new CardRecord(cardId, "Holder", 1_000L, "ACTIVE", 0, LocalDateTime.now(), 0L, null, 0);
+        when(cardRepo.findBalanceById(cardId)).thenReturn(card);
         when(rateLimiter.allowSpend(cardId)).thenReturn(true);
 
         SpendRequest req = new SpendRequest();
@@ -128,25 +183,25 @@ class CardServiceTest {
     @Test
     void topup_shouldIncreaseBalanceAndCreateTransaction_whenValidRequest() {
         UUID cardId = UUID.randomUUID();
-        CardRecord card = new CardRecord(cardId, "User", BigDecimal.valueOf(50), "ACTIVE", 1, LocalDateTime.now());
+        CardRecord card = new CardRecord(cardId, "User", 5_000L, "ACTIVE", 1, LocalDateTime.now(), 0L, null, 0);
         TopupRequest req = new TopupRequest();
         req.setAmount(BigDecimal.valueOf(25));
-        when(cardRepo.findById(cardId)).thenReturn(card);
-        when(cardRepo.updateBalanceAndVersion(cardId, BigDecimal.valueOf(75), 1)).thenReturn(1);
+        when(cardRepo.findBalanceById(cardId)).thenReturn(card);
+        when(cardRepo.updateBalanceAndVersion(eq(cardId), eq(7_500L), eq(1), any())).thenReturn(1);
 
         cardService.topup(cardId, req);
 
-        verify(cardRepo).updateBalanceAndVersion(cardId, BigDecimal.valueOf(75), 1);
+        verify(cardRepo).updateBalanceAndVersion(eq(cardId), eq(7_500L), eq(1), any());
         verify(txRepo).create(any(TransactionRecord.class));
     }
 
     @Test
     void topup_shouldThrowException_whenAmountInvalid() {
         UUID cardId = UUID.randomUUID();
-        CardRecord card = new CardRecord(cardId, "User", BigDecimal.valueOf(50), "ACTIVE", 1, LocalDateTime.now());
+        CardRecord card = new CardRecord(cardId, "User", 5_000L, "ACTIVE", 1, LocalDateTime.now(), 0L, null, 0);
         TopupRequest req = new TopupRequest();
         req.setAmount(BigDecimal.valueOf(0));
-        when(cardRepo.findById(cardId)).thenReturn(card);
+        when(cardRepo.findBalanceById(cardId)).thenReturn(card);
 
         assertThrows(InvalidTransactionAmountException.class, () -> cardService.topup(cardId, req));
     }
@@ -156,7 +211,7 @@ class CardServiceTest {
         UUID cardId = UUID.randomUUID();
         TopupRequest req = new TopupRequest();
         req.setAmount(BigDecimal.valueOf(10));
-        when(cardRepo.findById(cardId)).thenReturn(null);
+        when(cardRepo.findBalanceById(cardId)).thenReturn(null);
 
         assertThrows(CardNotFoundException.class, () -> cardService.topup(cardId, req));
     }
@@ -164,10 +219,10 @@ class CardServiceTest {
     @Test
     void topup_shouldThrowException_whenCardInactive() {
         UUID cardId = UUID.randomUUID();
-        CardRecord card = new CardRecord(cardId, "User", BigDecimal.valueOf(50), "BLOCKED", 1, LocalDateTime.now());
+        CardRecord card = new CardRecord(cardId, "User", 5_000L, "BLOCKED", 1, LocalDateTime.now(), 0L, null, 0);
         TopupRequest req = new TopupRequest();
         req.setAmount(BigDecimal.valueOf(10));
-        when(cardRepo.findById(cardId)).thenReturn(card);
+        when(cardRepo.findBalanceById(cardId)).thenReturn(card);
 
         assertThrows(CardBlockedException.class, () -> cardService.topup(cardId, req));
     }
@@ -175,11 +230,11 @@ class CardServiceTest {
     @Test
     void topup_shouldThrowException_whenConcurrentModificationDetected() {
         UUID cardId = UUID.randomUUID();
-        CardRecord card = new CardRecord(cardId, "User", BigDecimal.valueOf(50), "ACTIVE", 1, LocalDateTime.now());
+        CardRecord card = new CardRecord(cardId, "User", 5_000L, "ACTIVE", 1, LocalDateTime.now(), 0L, null, 0);
         TopupRequest req = new TopupRequest();
         req.setAmount(BigDecimal.valueOf(10));
-        when(cardRepo.findById(cardId)).thenReturn(card);
-        when(cardRepo.updateBalanceAndVersion(cardId, BigDecimal.valueOf(60), 1)).thenReturn(0);
+        when(cardRepo.findBalanceById(cardId)).thenReturn(card);
+        when(cardRepo.updateBalanceAndVersion(eq(cardId), eq(6_000L), eq(1), any())).thenReturn(0);
 
         assertThrows(ConcurrentModificationException.class, () -> cardService.topup(cardId, req));
     }
@@ -187,7 +242,7 @@ class CardServiceTest {
     @Test
     void getCard_shouldReturnCard_whenExists() {
         UUID cardId = UUID.randomUUID();
-        CardRecord card = new CardRecord(cardId, "User", BigDecimal.valueOf(100), "ACTIVE", 1, LocalDateTime.now());
+        CardRecord card = new CardRecord(cardId, "User", 10_000L, "ACTIVE", 1, LocalDateTime.now(), 0L, null, 0);
         when(cardRepo.findById(cardId)).thenReturn(card);
 
         CardResponse resp = cardService.getCard(cardId);
@@ -196,6 +251,55 @@ class CardServiceTest {
         assertEquals("User", resp.getCardholderName());
     }
 
+    @Test
+    void getCard_shouldCoalesceConcurrentReadsOfSameCard() throws Exception {
+        UUID cardId = UUID.randomUUID();
+        CardRecord card = new CardRecord(cardId, "User", 10_000L, "ACTIVE", 1, LocalDateTime.now(), 0L, null, 0);
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoad = new CountDownLatch(1);
+        when(cardRepo.findById(cardId)).thenAnswer(inv -> {
+            loadStarted.countDown();
+            releaseLoad.await(5, TimeUnit.SECONDS);
+            return card;
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        Future<CardResponse> leader = executor.submit(() -> cardService.getCard(cardId));
+        assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+        List<Future<CardResponse>> followers = List.of(
+                executor.submit(() -> cardService.getCard(cardId)),
+                executor.submit(() -> cardService.getCard(cardId)),
+                executor.submit(() -> cardService.getCard(cardId)));
+        // Let the followers reach the in-flight load before it completes
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.counter("card.reads.coalesced").count() < 3 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        releaseLoad.countDown();
+
+        assertEquals(cardId, leader.get().getId());
+        for (Future<CardResponse> f : followers) {
+            assertEquals(cardId, f.get().getId());
+        }
+        executor.shutdown();
+
+        verify(cardRepo, times(1)).findById(cardId);
+        assertEquals(3.0, meterRegistry.counter("card.reads.coalesced").count());
+        assertEquals(1.0, meterRegistry.counter("card.reads.loads").count());
+    }
+
+    @Test
+    void getCard_shouldLoadAgain_onceInFlightLoadCompleted() {
+        UUID cardId = UUID.randomUUID();
+        CardRecord card = new CardRecord(cardId, "User", 10_000L, "ACTIVE", 1, LocalDateTime.now(), 0L, null, 0);
+        when(cardRepo.findById(cardId)).thenReturn(card);
+
+        cardService.getCard(cardId);
+        cardService.getCard(cardId);
+
+        verify(cardRepo, times(2)).findById(cardId);
+    }
+
     @Test
     void getCard_shouldThrowException_whenCardNotFound() {
         UUID cardId = UUID.randomUUID();
@@ -207,23 +311,89 @@ class CardServiceTest {
     @Test
     void getTransactions_shouldReturnTransactions_whenExists() {
         UUID cardId = UUID.randomUUID();
-        CardRecord card = new CardRecord(cardId, "User", BigDecimal.valueOf(100), "ACTIVE", 1, LocalDateTime.now());
-        TransactionRecord tx = new TransactionRecord(UUID.randomUUID(), cardId, "SPEND", BigDecimal.valueOf(10), LocalDateTime.now());
-        when(cardRepo.findById(cardId)).thenReturn(card);
-        when(txRepo.findByCardId(cardId, 10, 0)).thenReturn(List.of(tx));
+        TransactionRecord tx = new TransactionRecord(UUID.randomUUID(), cardId, "SPEND", 1_000L, LocalDateTime.now());
+        when(txRepo.findPageWithTotals(cardId, 10, 0)).thenReturn(new CardTransactions(1, tx.getCreatedAt(), List.of(tx)));
 
         List<TransactionResponse> resp = cardService.getTransactions(cardId, 10, 0);
 
         assertEquals(1, resp.size());
         assertEquals("SPEND", resp.get(0).getType());
+        verifyNoInteractions(cardRepo);
     }
 
     @Test
-    void getTransactions_shouldReturnEmptyList_whenNullReturned() {
+    void getTransactionPage_shouldReportMaintainedTotals() {
         UUID cardId = UUID.randomUUID();
-        CardRecord card = new CardRecord(cardId, "User", BigDecimal.valueOf(100), "ACTIVE", 1, LocalDateTime.now());
-        when(cardRepo.findById(cardId)).thenReturn(card);
-        when(txRepo.findByCardId(cardId, 10, 0)).thenReturn(null);
+        LocalDateTime lastTxAt = LocalDateTime.now();
+        when(txRepo.findPageWithTotals(cardId, 10, 0)).thenReturn(new CardTransactions(7, lastTxAt, List.of(
+                new TransactionRecord(UUID.randomUUID(), cardId, "SPEND", 1_000L, lastTxAt),
+                new TransactionRecord(UUID.randomUUID(), cardId, "TOPUP", 2_000L, lastTxAt.minusMinutes(1)))));
+
+        TransactionPage page = cardService.getTransactionPage(cardId, 2, 0);
+
+        assertEquals(2, page.items().size());
+        assertEquals(7, page.totalCount());
+        assertEquals(lastTxAt, page.lastTransactionAt());
+        verify(txRepo, never()).countByCardId(any());
+    }
+
+    @Test
+    void getTransactionPage_shouldServeFirstPageFromRecentTransactionsAfterSpend() {
+        UUID cardId = UUID.randomUUID();
+        when(cardRepo.findBalanceById(cardId)).thenReturn(new CardRecord(cardId, "User", 10_000L, "ACTIVE", 0, LocalDateTime.now(), 0L, null, 0));
+        when(cardRepo.updateBalanceAndVersion(eq(cardId), anyLong(), eq(0), any())).thenReturn(1);
+        when(rateLimiter.allowSpend(cardId)).thenReturn(true);
+        cardService.spend(cardId, new SpendRequest(new BigDecimal("12.34")));
+
+        LocalDateTime lastTxAt = LocalDateTime.now();
+        when(txRepo.findTotals(cardId)).thenReturn(new CardTransactions(1, lastTxAt, List.of()));
+        when(txRepo.findPageWithTotals(eq(cardId), anyInt(), anyInt())).thenReturn(new CardTransactions(1, lastTxAt, List.of()));
+        TransactionPage page = cardService.getTransactionPage(cardId, 10, 0);
+
+        assertEquals(1, page.items().size());
+        assertEquals(new BigDecimal("12.34"), page.items().get(0).getAmount());
+        assertEquals(1, page.totalCount());
+        verify(txRepo, never()).findPageWithTotals(any(), anyInt(), anyInt());
+
+        // Later pages, and first pages larger than the ring, still go to the database
+        cardService.getTransactionPage(cardId, 10, 10);
+        cardService.getTransactionPage(cardId, 50, 0);
+        verify(txRepo).findPageWithTotals(cardId, 10, 10);
+        verify(txRepo).findPageWithTotals(cardId, 50, 0);
+        verify(txRepo, times(1)).findTotals(cardId);
+    }
+
+    @Test
+    void getTransactionPage_shouldRejectInvalidLimitAndOffset() {
+        UUID cardId = UUID.randomUUID();
+        assertThrows(InvalidSearchRequestException.class, () -> cardService.getTransactionPage(cardId, 0, 0));
+        assertThrows(InvalidSearchRequestException.class, () -> cardService.getTransactionPage(cardId, -1, 0));
+        assertThrows(InvalidSearchRequestException.class, () -> cardService.getTransactionPage(cardId, 201, 0));
+        assertThrows(InvalidSearchRequestException.class, () -> cardService.getTransactionPage(cardId, 10, -1));
+        verifyNoInteractions(txRepo);
+    }
+
+    @Test
+    void getTransactionPage_shouldQueryPage_whenRingIsStale() {
+        UUID cardId = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now();
+        TransactionRecord older = new TransactionRecord(UUID.randomUUID(), cardId, "TOPUP", 500L, now.minusMinutes(1));
+        TransactionRecord newer = new TransactionRecord(UUID.randomUUID(), cardId, "SPEND", 100L, now);
+        recentTransactions.append(cardId, 1, older);
+        // Another instance wrote a transaction the ring did not see
+        when(txRepo.findTotals(cardId)).thenReturn(new CardTransactions(2, now, List.of()));
+        when(txRepo.findPageWithTotals(cardId, 10, 0)).thenReturn(new CardTransactions(2, now, List.of(newer, older)));
+
+        TransactionPage page = cardService.getTransactionPage(cardId, 10, 0);
+
+        assertEquals(List.of("SPEND", "TOPUP"), page.items().stream().map(TransactionResponse::getType).toList());
+        assertEquals(List.of(newer, older), recentTransactions.firstPage(cardId, 2, 10));
+    }
+
+    @Test
+    void getTransactions_shouldReturnEmptyList_whenCardHasNoTransactions() {
+        UUID cardId = UUID.randomUUID();
+        when(txRepo.findPageWithTotals(cardId, 10, 0)).thenReturn(new CardTransactions(0, null, List.of()));
 
         List<TransactionResponse> resp = cardService.getTransactions(cardId, 10, 0);
 
@@ -234,37 +404,41 @@ class CardServiceTest {
     @Test
     void getTransactions_shouldThrowException_whenCardNotFound() {
         UUID cardId = UUID.randomUUID();
-        when(cardRepo.findById(cardId)).thenReturn(null);
+        when(txRepo.findPageWithTotals(any(), anyInt(), anyInt())).thenReturn(null);
 
         assertThrows(CardNotFoundException.class, () -> cardService.getTransactions(cardId, 10, 0));
+        assertThrows(CardNotFoundException.class, () -> cardService.getTransactions(cardId, 10, 20));
     }
 
     @Test
     void blockCard_shouldUpdateStatus_whenActive() {
         UUID cardId = UUID.randomUUID();
-        CardRecord card = new CardRecord(cardId, "User", BigDecimal.valueOf(100), "ACTIVE", 1, LocalDateTime.now());
-        when(cardRepo.findById(cardId)).thenReturn(card);
+        CardRecord blocked = new CardRecord(cardId, "User", 10_000L, "BLOCKED", 1, LocalDateTime.now(), 0L, null, 0);
+        when(cardRepo.transitionStatus(cardId, "BLOCKED")).thenReturn(blocked);
 
         cardService.blockCard(cardId);
 
-        verify(cardRepo).updateStatus(cardId, "BLOCKED");
+        verify(cardRepo).transitionStatus(cardId, "BLOCKED");
+        verify(cardRepo, never()).findById(any());
+        verify(cardRepo, never()).existsById(any());
     }
 
     @Test
     void blockCard_shouldDoNothing_whenAlreadyBlocked() {
         UUID cardId = UUID.randomUUID();
-        CardRecord card = new CardRecord(cardId, "User", BigDecimal.valueOf(100), "BLOCKED", 1, LocalDateTime.now());
-        when(cardRepo.findById(cardId)).thenReturn(card);
+        when(cardRepo.transitionStatus(cardId, "BLOCKED")).thenReturn(null);
+        when(cardRepo.existsById(cardId)).thenReturn(true);
 
         cardService.blockCard(cardId);
 
-        verify(cardRepo, never()).updateStatus(any(), any());
+        verify(events, never()).publish(any());
     }
 
     @Test
     void blockCard_shouldThrowException_whenCardNotFound() {
         UUID cardId = UUID.randomUUID();
-        when(cardRepo.findById(cardId)).thenReturn(null);
+        when(cardRepo.transitionStatus(cardId, "BLOCKED")).thenReturn(null);
+        when(cardRepo.existsById(cardId)).thenReturn(false);
 
         assertThrows(CardNotFoundException.class, () -> cardService.blockCard(cardId));
     }
@@ -272,33 +446,56 @@ class CardServiceTest {
     @Test
     void unblockCard_shouldUpdateStatus_whenBlocked() {
         UUID cardId = UUID.randomUUID();
-        CardRecord card = new CardRecord(cardId, "User", BigDecimal.valueOf(100), "BLOCKED", 1, LocalDateTime.now());
-        when(cardRepo.findById(cardId)).thenReturn(card);
+        CardRecord active = new CardRecord(cardId, "User", 10_000L, "ACTIVE", 1, LocalDateTime.now(), 0L, null, 0);
+        when(cardRepo.transitionStatus(cardId, "ACTIVE")).thenReturn(active);
 
         cardService.unblockCard(cardId);
 
-        verify(cardRepo).updateStatus(cardId, "ACTIVE");
+        verify(cardRepo).transitionStatus(cardId, "ACTIVE");
+        verify(cardRepo, never()).findById(any());
     }
 
     @Test
     void unblockCard_shouldDoNothing_whenAlreadyActive() {
         UUID cardId = UUID.randomUUID();
-        CardRecord card = new CardRecord(cardId, "User", BigDecimal.valueOf(100), "ACTIVE", 1, LocalDateTime.now());
-        when(cardRepo.findById(cardId)).thenReturn(card);
+        when(cardRepo.transitionStatus(cardId, "ACTIVE")).thenReturn(null);
+        when(cardRepo.existsById(cardId)).thenReturn(true);
 
         cardService.unblockCard(cardId);
 
-        verify(cardRepo, never()).updateStatus(any(), any());
+        verify(events, never()).publish(any());
     }
 
     @Test
     void unblockCard_shouldThrowException_whenCardNotFound() {
         UUID cardId = UUID.randomUUID();
-        when(cardRepo.findById(cardId)).thenReturn(null);
+        when(cardRepo.transitionStatus(cardId, "ACTIVE")).thenReturn(null);
+        when(cardRepo.existsById(cardId)).thenReturn(false);
 
         assertThrows(CardNotFoundException.class, () -> cardService.unblockCard(cardId));
     }
 
+    @Test
+    void changeStatus_shouldPublishOneEventPerChangedCard_inOneBatch() {
+        UUID a = UUID.randomUUID(), b = UUID.randomUUID(), unchanged = UUID.randomUUID();
+        CardRecord changedA = new CardRecord();
+        changedA.setId(a);
+        changedA.setBalance(100L);
+        CardRecord changedB = new CardRecord();
+        changedB.setId(b);
+        changedB.setBalance(1_000L);
+        when(cardRepo.transitionStatus(List.of(a, b, unchanged), "BLOCKED")).thenReturn(List.of(changedA, changedB));
+
+        List<UUID> changed = cardService.changeStatus(List.of(a, b, unchanged), "BLOCKED");
+
+        assertEquals(List.of(a, b), changed);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<CardEvent>> captor = ArgumentCaptor.forClass(List.class);
+        verify(events).publishAll(captor.capture());
+        assertEquals(List.of("CARD_BLOCKED", "CARD_BLOCKED"), captor.getValue().stream().map(CardEvent::getType).toList());
+        assertEquals(new BigDecimal("10.00"), captor.getValue().get(1).getBalance());
+    }
+
     // --- Create Card: Edge cases for cardholder name ---
     @Test
     void createCard_shouldCreateWithEmptyName_ifAllowed() {
@@ -325,10 +522,10 @@ class CardServiceTest {
     @Test
     void spend_shouldThrow_whenAmountIsNull() {
         UUID cardId = UUID.randomUUID();
-        CardRecord card = new CardRecord(cardId, "User", BigDecimal.TEN, "ACTIVE", 1, LocalDateTime.now());
+        CardRecord card = new CardRecord(cardId, "User", 1_000L, "ACTIVE", 1, LocalDateTime.now(), 0L, null, 0);
         SpendRequest req = new SpendRequest();
         req.setAmount(null);
-        when(cardRepo.findById(cardId)).thenReturn(card);
+        when(cardRepo.findBalanceById(cardId)).thenReturn(card);
 
         assertThrows(InvalidTransactionAmountException.class, () -> cardService.spend(cardId, req));
     }
@@ -336,12 +533,12 @@ class CardServiceTest {
     @Test
     void spend_shouldThrow_whenAmountIsZeroOrNegative() {
         UUID cardId = UUID.randomUUID();
-        CardRecord card = new CardRecord(cardId, "User", BigDecimal.TEN, "ACTIVE", 1, LocalDateTime.now());
+        CardRecord card = new CardRecord(cardId, "User", 1_000L, "ACTIVE", 1, LocalDateTime.now(), 0L, null, 0);
         SpendRequest reqZero = new SpendRequest();
         reqZero.setAmount(BigDecimal.ZERO);
         SpendRequest reqNegative = new SpendRequest();
         reqNegative.setAmount(BigDecimal.valueOf(-5));
-        when(cardRepo.findById(cardId)).thenReturn(card);
+        when(cardRepo.findBalanceById(cardId)).thenReturn(card);
 
         assertThrows(InvalidTransactionAmountException.class, () -> cardService.spend(cardId, reqZero));
         assertThrows(InvalidTransactionAmountException.class, () -> cardService.spend(cardId, reqNegative));
@@ -351,10 +548,10 @@ class CardServiceTest {
     @Test
     void topup_shouldThrow_whenAmountIsNull() {
         UUID cardId = UUID.randomUUID();
-        CardRecord card = new CardRecord(cardId, "User", BigDecimal.TEN, "ACTIVE", 1, LocalDateTime.now());
+        CardRecord card = new CardRecord(cardId, "User", 1_000L, "ACTIVE", 1, LocalDateTime.now(), 0L, null, 0);
         TopupRequest req = new TopupRequest();
         req.setAmount(null);
-        when(cardRepo.findById(cardId)).thenReturn(card);
+        when(cardRepo.findBalanceById(cardId)).thenReturn(card);
 
         assertThrows(InvalidTransactionAmountException.class, () -> cardService.topup(cardId, req));
     }
@@ -363,12 +560,308 @@ class CardServiceTest {
     @Test
     void spend_shouldThrow_whenRateLimitExceeded() {
         UUID cardId = UUID.randomUUID();
-        CardRecord card = new CardRecord(cardId, "User", BigDecimal.valueOf(100), "ACTIVE", 0, LocalDateTime.now());
+        CardRecord card = new CardRecord(cardId, "User", 10_000L, "ACTIVE", 0, LocalDateTime.now(), 0L, null, 0);
         SpendRequest req = new SpendRequest();
         req.setAmount(BigDecimal.valueOf(10));
-        when(cardRepo.findById(cardId)).thenReturn(card);
+        when(cardRepo.findBalanceById(cardId)).thenReturn(card);
         when(rateLimiter.allowSpend(cardId)).thenReturn(false);
 
         assertThrows(RateLimitExceededException.class, () -> cardService.spend(cardId, req));
     }
+
+    @Test
+    void spend_shouldThrow_whenVelocityLimitExceeded() {
+        UUID cardId = UUID.randomUUID();
+        CardRecord card = new CardRecord(cardId, "User", 10_000L, "ACTIVE", 0, LocalDateTime.now(), 0L, null, 0);
+        SpendRequest req = new SpendRequest();
+        req.setAmount(BigDecimal.valueOf(10));
+        when(cardRepo.findBalanceById(cardId)).thenReturn(card);
+        when(rateLimiter.allowSpend(cardId)).thenReturn(true);
+        when(rateLimiter.allowSpendAmount(cardId, 1_000L)).thenReturn(OptionalLong.empty());
+
+        assertThrows(RateLimitExceededException.class, () -> cardService.spend(cardId, req));
+        verify(cardRepo, never()).updateBalanceAndVersion(any(), anyLong(), anyInt(), any());
+    }
+
+    @Test
+    void spend_shouldReleaseVelocityAmount_whenConcurrentModificationDetected() {
+        UUID cardId = UUID.randomUUID();
+        CardRecord card = new CardRecord(cardId, "User", 10_000L, "ACTIVE", 0, LocalDateTime.now(), 0L, null, 0);
+        SpendRequest req = new SpendRequest();
+        req.setAmount(BigDecimal.valueOf(10));
+        when(cardRepo.findBalanceById(cardId)).thenReturn(card);
+        when(rateLimiter.allowSpend(cardId)).thenReturn(true);
+        when(cardRepo.updateBalanceAndVersion(eq(cardId), eq(9_000L), eq(0), any())).thenReturn(0);
+
+        TransactionSynchronizationManager.initSynchronization();
+        assertThrows(ConcurrentModificationException.class, () -> cardService.spend(cardId, req));
+        completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+        verify(rateLimiter).releaseSpendAmount(cardId, 1_000L, VELOCITY_RECORDED_AT);
+    }
+
+    @Test
+    void spend_shouldReleaseVelocityAmount_whenFailingAfterTheBalanceUpdate() {
+        UUID cardId = UUID.randomUUID();
+        when(cardRepo.findBalanceById(cardId)).thenReturn(new CardRecord(cardId, "User", 10_000L, "ACTIVE", 0, LocalDateTime.now(), 0L, null, 0));
+        when(rateLimiter.allowSpend(cardId)).thenReturn(true);
+        when(cardRepo.updateBalanceAndVersion(eq(cardId), eq(9_000L), eq(0), any())).thenReturn(1);
+        doThrow(new DataAccessResourceFailureException("connection lost")).when(txRepo).create(any());
+
+        TransactionSynchronizationManager.initSynchronization();
+        assertThrows(DataAccessResourceFailureException.class, () -> cardService.spend(cardId, new SpendRequest(BigDecimal.TEN)));
+        verify(rateLimiter, never()).releaseSpendAmount(any(), anyLong(), anyLong());
+        completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+        verify(rateLimiter).releaseSpendAmount(cardId, 1_000L, VELOCITY_RECORDED_AT);
+    }
+
+    @Test
+    void spend_shouldKeepVelocityAmount_whenCommitted() {
+        UUID cardId = UUID.randomUUID();
+        when(cardRepo.findBalanceById(cardId)).thenReturn(new CardRecord(cardId, "User", 10_000L, "ACTIVE", 0, LocalDateTime.now(), 0L, null, 0));
+        when(rateLimiter.allowSpend(cardId)).thenReturn(true);
+        when(cardRepo.updateBalanceAndVersion(eq(cardId), eq(9_000L), eq(0), any())).thenReturn(1);
+
+        TransactionSynchronizationManager.initSynchronization();
+        cardService.spend(cardId, new SpendRequest(BigDecimal.TEN));
+        completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+        verify(rateLimiter, never()).releaseSpendAmount(any(), anyLong(), anyLong());
+    }
+
+    @Test
+    void spend_shouldPublishSpendEvent_withBalanceAfterChange() {
+        UUID cardId = UUID.randomUUID();
+        CardRecord card = new CardRecord(cardId, "Holder", 10_000L, "ACTIVE", 0, LocalDateTime.now(), 0L, null, 0);
+        when(cardRepo.findBalanceById(cardId)).thenReturn(card);
+        when(rateLimiter.allowSpend(cardId)).thenReturn(true);
+        when(cardRepo.updateBalanceAndVersion(eq(cardId), eq(7_000L), eq(0), any())).thenReturn(1);
+
+        cardService.spend(cardId, new SpendRequest(BigDecimal.valueOf(30)));
+
+        ArgumentCaptor<CardEvent> captor = ArgumentCaptor.forClass(CardEvent.class);
+        verify(events).publish(captor.capture());
+        assertEquals("SPEND", captor.getValue().getType());
+        assertEquals(cardId, captor.getValue().getCardId());
+        assertEquals(new BigDecimal("30.00"), captor.getValue().getAmount());
+        assertEquals(new BigDecimal("70.00"), captor.getValue().getBalance());
+    }
+
+    @Test
+    void spend_shouldNotPublishEvent_whenRejected() {
+        UUID cardId = UUID.randomUUID();
+        CardRecord card = new CardRecord(cardId, "Holder", 1_000L, "ACTIVE", 0, LocalDateTime.now(), 0L, null, 0);
+        when(cardRepo.findBalanceById(cardId)).thenReturn(card);
+        when(rateLimiter.allowSpend(cardId)).thenReturn(true);
+
+        assertThrows(InsufficientBalanceException.class, () -> cardService.spend(cardId, new SpendRequest(BigDecimal.valueOf(20))));
+        verify(events, never()).publish(any());
+    }
+
+    @Test
+    void blockCard_shouldPublishBlockedEvent() {
+        UUID cardId = UUID.randomUUID();
+        CardRecord card = new CardRecord(cardId, "User", 10_000L, "BLOCKED", 1, LocalDateTime.now(), 0L, null, 0);
+        when(cardRepo.transitionStatus(cardId, "BLOCKED")).thenReturn(card);
+
+        cardService.blockCard(cardId);
+
+        ArgumentCaptor<CardEvent> captor = ArgumentCaptor.forClass(CardEvent.class);
+        verify(events).publish(captor.capture());
+        assertEquals("CARD_BLOCKED", captor.getValue().getType());
+        assertEquals("BLOCKED", captor.getValue().getStatus());
+    }
+
+    @Test
+    void searchCards_shouldReturnCursor_whenMoreResultsExist() {
+        LocalDateTime now = LocalDateTime.now();
+        CardRecord newest = new CardRecord(UUID.randomUUID(), "Alice", 1_000L, "ACTIVE", 0, now, 0L, null, 0);
+        CardRecord older = new CardRecord(UUID.randomUUID(), "Alina", 100L, "ACTIVE", 0, now.minusMinutes(1), 0L, null, 0);
+        CardRecord oldest = new CardRecord(UUID.randomUUID(), "Alix", 100L, "ACTIVE", 0, now.minusMinutes(2), 0L, null, 0);
+        when(cardRepo.search("ACTIVE", "Ali", null, null, null, null, 3)).thenReturn(List.of(newest, older, oldest));
+
+        CardPageResponse page = cardService.searchCards("ACTIVE", "Ali", null, null, 2, null);
+
+        assertEquals(2, page.getItems().size());
+        assertEquals(older.getId(), page.getItems().get(1).getId());
+        assertNotNull(page.getNextCursor());
+
+        // The cursor resumes after the last returned card
+        when(cardRepo.search("ACTIVE", "Ali", null, null, older.getCreatedAt(), older.getId(), 3)).thenReturn(List.of(oldest));
+        CardPageResponse next = cardService.searchCards("ACTIVE", "Ali", null, null, 2, page.getNextCursor());
+        assertEquals(List.of(oldest.getId()), next.getItems().stream().map(CardResponse::getId).toList());
+        assertNull(next.getNextCursor());
+    }
+
+    @Test
+    void searchCards_shouldShowShardedCardTotals_fromOneQueryForThePage() {
+        LocalDateTime now = LocalDateTime.now();
+        CardRecord plain = new CardRecord(UUID.randomUUID(), "Bob", 1_000L, "ACTIVE", 0, now, 1L, now, 0);
+        CardRecord sharded = new CardRecord(UUID.randomUUID(), "Bea", 0L, "ACTIVE", 0, now.minusMinutes(1), 1L, now, 2);
+        CardRecord alsoSharded = new CardRecord(UUID.randomUUID(), "Ben", 0L, "ACTIVE", 0, now.minusMinutes(2), 0L, null, 4);
+        when(cardRepo.search(null, "B", null, null, null, null, 4)).thenReturn(List.of(plain, sharded, alsoSharded));
+        when(slotRepo.findTotals(List.of(sharded.getId(), alsoSharded.getId()))).thenReturn(Map.of(
+                sharded.getId(), new CardBalanceSlotRecord(sharded.getId(), null, 7_500L, 3L, now),
+                alsoSharded.getId(), new CardBalanceSlotRecord(alsoSharded.getId(), null, 2_000L, 1L, now)));
+
+        CardPageResponse page = cardService.searchCards(null, "B", null, null, 3, null);
+
+        assertEquals(List.of(new BigDecimal("10.00"), new BigDecimal("75.00"), new BigDecimal("20.00")),
+                page.getItems().stream().map(CardResponse::getBalance).toList());
+        verify(slotRepo, times(1)).findTotals(any());
+        verify(slotRepo, never()).findByCardId(any());
+    }
+
+    @Test
+    void searchCards_shouldRejectInvalidInput() {
+        assertThrows(InvalidSearchRequestException.class, () -> cardService.searchCards(null, null, null, null, 0, null));
+        assertThrows(InvalidSearchRequestException.class, () -> cardService.searchCards(null, null, null, null, 201, null));
+        assertThrows(InvalidSearchRequestException.class, () -> cardService.searchCards("DELETED", null, null, null, 10, null));
+        assertThrows(InvalidSearchRequestException.class, () -> cardService.searchCards(null, null, null, null, 10, "not-a-cursor"));
+        LocalDateTime t = LocalDateTime.now();
+        assertThrows(InvalidSearchRequestException.class, () -> cardService.searchCards(null, null, t, t, 10, null));
+        verifyNoInteractions(cardRepo);
+    }
+
+    @Test
+    void spendAndTopup_shouldRejectSubCentAmounts() {
+        UUID cardId = UUID.randomUUID();
+        CardRecord card = new CardRecord(cardId, "User", 10_000L, "ACTIVE", 0, LocalDateTime.now(), 0L, null, 0);
+        when(cardRepo.findBalanceById(cardId)).thenReturn(card);
+        when(rateLimiter.allowSpend(cardId)).thenReturn(true);
+
+        assertThrows(InvalidTransactionAmountException.class, () -> cardService.spend(cardId, new SpendRequest(new BigDecimal("1.005"))));
+        assertThrows(InvalidTransactionAmountException.class, () -> cardService.topup(cardId, new TopupRequest(new BigDecimal("0.001"))));
+        verify(cardRepo, never()).updateBalanceAndVersion(any(), anyLong(), anyInt(), any());
+    }
+
+    @Test
+    void spend_shouldWorkInMinorUnits() {
+        UUID cardId = UUID.randomUUID();
+        CardRecord card = new CardRecord(cardId, "User", 1_001L, "ACTIVE", 4, LocalDateTime.now(), 0L, null, 0);
+        when(cardRepo.findBalanceById(cardId)).thenReturn(card);
+        when(rateLimiter.allowSpend(cardId)).thenReturn(true);
+        when(cardRepo.updateBalanceAndVersion(eq(cardId), eq(2L), eq(4), any())).thenReturn(1);
+
+        cardService.spend(cardId, new SpendRequest(new BigDecimal("9.99")));
+
+        verify(rateLimiter).allowSpendAmount(cardId, 999L);
+        ArgumentCaptor<TransactionRecord> txCaptor = ArgumentCaptor.forClass(TransactionRecord.class);
+        verify(txRepo).create(txCaptor.capture());
+        assertEquals(999L, txCaptor.getValue().getAmount());
+    }
+
+    @Test
+    void declinedSpend_shouldNotCaptureStackTrace() {
+        UUID cardId = UUID.randomUUID();
+        CardRecord card = new CardRecord(cardId, "User", 0L, "ACTIVE", 0, LocalDateTime.now(), 0L, null, 0);
+        when(cardRepo.findBalanceById(cardId)).thenReturn(card);
+        when(rateLimiter.allowSpend(cardId)).thenReturn(true);
+
+        InsufficientBalanceException ex = assertThrows(InsufficientBalanceException.class,
+                () -> cardService.spend(cardId, new SpendRequest(BigDecimal.ONE)));
+        assertEquals(0, ex.getStackTrace().length);
+        assertEquals("Insufficient balance for card: " + cardId, ex.getMessage());
+    }
+
+    @Test
+    void spend_shouldLockHotCardRowInsteadOfRiskingConflict() {
+        UUID hotCard = UUID.randomUUID();
+        UUID otherCard = UUID.randomUUID();
+        CardService service = new CardService(cardRepo, txRepo, dsl, rateLimiter, events, recentTransactions,
+                new LockingProperties(LockingProperties.Mode.OPTIMISTIC, Set.of(hotCard)), balanceSlots, transactionManager, meterRegistry);
+        when(rateLimiter.allowSpend(any())).thenReturn(true);
+        when(cardRepo.findBalanceByIdForUpdate(hotCard)).thenReturn(new CardRecord(hotCard, "Hot", 10_000L, "ACTIVE", 3, LocalDateTime.now(), 3L, null, 0));
+        when(cardRepo.findBalanceById(otherCard)).thenReturn(new CardRecord(otherCard, "Other", 10_000L, "ACTIVE", 0, LocalDateTime.now(), 0L, null, 0));
+        when(cardRepo.updateBalanceAndVersion(any(), anyLong(), anyInt(), any())).thenReturn(1);
+
+        service.spend(hotCard, new SpendRequest(BigDecimal.TEN));
+        service.topup(otherCard, new TopupRequest(BigDecimal.TEN));
+
+        verify(cardRepo, never()).findBalanceById(hotCard);
+        verify(cardRepo).updateBalanceAndVersion(eq(hotCard), eq(9_000L), eq(3), any());
+        verify(cardRepo, never()).findBalanceByIdForUpdate(otherCard);
+    }
+
+    @Test
+    void spend_shouldReportLockTimeoutAsConflict_whenPessimistic() {
+        UUID cardId = UUID.randomUUID();
+        CardService service = new CardService(cardRepo, txRepo, dsl, rateLimiter, events, recentTransactions,
+                new LockingProperties(LockingProperties.Mode.PESSIMISTIC, Set.of()), balanceSlots, transactionManager, meterRegistry);
+        when(cardRepo.findBalanceByIdForUpdate(cardId)).thenThrow(new CannotAcquireLockException("lock timeout"));
+
+        ConcurrentModificationException ex = assertThrows(ConcurrentModificationException.class,
+                () -> service.spend(cardId, new SpendRequest(BigDecimal.TEN)));
+        assertEquals("Card is busy, try again.", ex.getMessage());
+        verify(cardRepo, never()).updateBalanceAndVersion(any(), anyLong(), anyInt(), any());
+    }
+
+    @Test
+    void spendAndTopup_onShardedCard_shouldWriteSlotsAndNeverTheCardRow() {
+        UUID cardId = UUID.randomUUID();
+        when(rateLimiter.allowSpend(cardId)).thenReturn(true);
+        when(cardRepo.findById(cardId)).thenAnswer(inv -> new CardRecord(cardId, "Hot", 0L, "ACTIVE", 5, LocalDateTime.now(), 1L, null, 2));
+        when(cardRepo.findBalanceById(cardId)).thenAnswer(inv -> new CardRecord(cardId, "Hot", 0L, "ACTIVE", 5, LocalDateTime.now(), 1L, null, 2));
+        when(slotRepo.findByCardId(cardId)).thenReturn(List.of(
+                new CardBalanceSlotRecord(cardId, 0, 4_000L, 0L, null),
+                new CardBalanceSlotRecord(cardId, 1, 6_000L, 0L, null)));
+        when(slotRepo.debit(eq(cardId), anyInt(), anyLong(), any())).thenReturn(0L);
+        when(slotRepo.credit(eq(cardId), anyInt(), anyLong(), any())).thenReturn(1);
+        // What the slots hold after each write, a concurrent top-up of 5.00 having committed before the spend's
+        when(slotRepo.findTotalBalance(cardId)).thenReturn(5_500L, 6_500L);
+
+        assertEquals(new BigDecimal("100.00"), cardService.getCard(cardId).getBalance());
+        cardService.spend(cardId, new SpendRequest(new BigDecimal("50")));
+        cardService.topup(cardId, new TopupRequest(new BigDecimal("10")));
+
+        verify(slotRepo).debit(eq(cardId), eq(1), eq(5_000L), any()); // only slot 1 covers it
+        verify(slotRepo).credit(eq(cardId), eq(0), eq(1_000L), any()); // the poorer slot
+        verify(cardRepo, never()).updateBalanceAndVersion(any(), anyLong(), anyInt(), any());
+        ArgumentCaptor<CardEvent> eventCaptor = ArgumentCaptor.forClass(CardEvent.class);
+        verify(events, atLeastOnce()).publish(eventCaptor.capture());
+        assertEquals(List.of(new BigDecimal("55.00"), new BigDecimal("65.00")),
+                eventCaptor.getAllValues().stream().map(CardEvent::getBalance).toList());
+    }
+
+    @Test
+    void transfer_shouldLockCardsInIdOrderAndWriteBothLegsInOneBatch() {
+        UUID low = new UUID(0, 1);
+        UUID high = new UUID(0, 2);
+        when(rateLimiter.allowSpend(any())).thenReturn(true);
+        when(cardRepo.findBalanceByIdForUpdate(low)).thenReturn(new CardRecord(low, "Low", 5_000L, "ACTIVE", 2, LocalDateTime.now(), 2L, null, 0));
+        when(cardRepo.findBalanceByIdForUpdate(high)).thenReturn(new CardRecord(high, "High", 1_000L, "ACTIVE", 7, LocalDateTime.now(), 4L, null, 0));
+        when(cardRepo.updateBalanceAndVersion(any(), anyLong(), anyInt(), any())).thenReturn(1);
+
+        // From the higher id: the lower one is still locked first
+        cardService.transfer(high, new TransferRequest(low, new BigDecimal("4.50")));
+
+        var order = inOrder(cardRepo);
+        order.verify(cardRepo).findBalanceByIdForUpdate(low);
+        order.verify(cardRepo).findBalanceByIdForUpdate(high);
+        verify(cardRepo).updateBalanceAndVersion(eq(high), eq(550L), eq(7), any());
+        verify(cardRepo).updateBalanceAndVersion(eq(low), eq(5_450L), eq(2), any());
+        verify(rateLimiter).allowSpendAmount(high, 450L);
+
+        ArgumentCaptor<List<TransactionRecord>> txCaptor = ArgumentCaptor.captor();
+        verify(txRepo).createAll(txCaptor.capture());
+        List<TransactionRecord> legs = txCaptor.getValue();
+        assertEquals(List.of("TRANSFER_OUT", "TRANSFER_IN"), legs.stream().map(TransactionRecord::getType).toList());
+        assertEquals(List.of(high, low), legs.stream().map(TransactionRecord::getCardId).toList());
+        assertEquals(1L, meterRegistry.get("card.transfers").tag("outcome", "OK").timer().count());
+        assertEquals(List.of(legs.get(0)), recentTransactions.firstPage(high, 5, 1));
+    }
+
+    @Test
+    void transfer_shouldRejectSameCardAndInsufficientBalance_withoutWriting() {
+        UUID from = UUID.randomUUID();
+        UUID to = UUID.randomUUID();
+        when(rateLimiter.allowSpend(any())).thenReturn(true);
+        when(cardRepo.findBalanceByIdForUpdate(from)).thenReturn(new CardRecord(from, "From", 1_000L, "ACTIVE", 0, LocalDateTime.now(), 0L, null, 0));
+        when(cardRepo.findBalanceByIdForUpdate(to)).thenReturn(new CardRecord(to, "To", 0L, "ACTIVE", 0, LocalDateTime.now(), 0L, null, 0));
+
+        assertThrows(InvalidTransferException.class, () -> cardService.transfer(from, new TransferRequest(from, BigDecimal.ONE)));
+        assertThrows(InsufficientBalanceException.class, () -> cardService.transfer(from, new TransferRequest(to, new BigDecimal("10.01"))));
+
+        verify(cardRepo, never()).updateBalanceAndVersion(any(), anyLong(), anyInt(), any());
+        verify(txRepo, never()).createAll(any());
+        assertEquals(1L, meterRegistry.get("card.transfers").tag("outcome", "InsufficientBalanceException").timer().count());
+    }
 }
@@ -1,9 +1,20 @@
 package com.nium.cardplatform.service;
 
+import com.nium.cardplatform.config.RateLimitProperties.Strategy;
+import com.nium.cardplatform.config.RateLimitProperties.VelocityRule;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
 import java.util.UUID;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -54,4 +65,170 @@ class RateLimiterServiceTest {
         assertFalse(rateLimiter.allowSpend(cardA));
         assertFalse(rateLimiter.allowSpend(cardB));
     }
+
+    @Test
+    void allowSpendAmount_enforcesRollingSumPerWindow() {
+        AtomicLong now = new AtomicLong(1_000_000L);
+        RateLimiterService limiter = new RateLimiterService(1000L,
+                List.of(new VelocityRule(Duration.ofMinutes(1), new BigDecimal("100.00"))), now::get);
+
+        assertTrue(limiter.allowSpendAmount(cardId, 6_000L).isPresent());
+        assertTrue(limiter.allowSpendAmount(cardId, 4_000L).isPresent());
+        assertFalse(limiter.allowSpendAmount(cardId, 1L).isPresent(), "Limit of 100.00 reached");
+
+        // Still inside the minute
+        now.addAndGet(30_000L);
+        assertFalse(limiter.allowSpendAmount(cardId, 100L).isPresent());
+
+        // Whole window (plus one bucket) has passed
+        now.addAndGet(32_000L);
+        assertTrue(limiter.allowSpendAmount(cardId, 10_000L).isPresent());
+    }
+
+    @Test
+    void allowSpendAmount_rejectedAmountIsNotRecorded() {
+        AtomicLong now = new AtomicLong(0L);
+        RateLimiterService limiter = new RateLimiterService(1000L,
+                List.of(new VelocityRule(Duration.ofMinutes(1), new BigDecimal("50.00")),
+                        new VelocityRule(Duration.ofHours(1), new BigDecimal("80.00"))), now::get);
+
+        assertTrue(limiter.allowSpendAmount(cardId, 5_000L).isPresent());
+        now.addAndGet(Duration.ofMinutes(2).toMillis());
+        // Minute window is clear again, but the hourly rule would be exceeded
+        assertFalse(limiter.allowSpendAmount(cardId, 4_000L).isPresent());
+        // The rejected 40.00 was not added to the minute window
+        assertTrue(limiter.allowSpendAmount(cardId, 3_000L).isPresent());
+    }
+
+    @Test
+    void releaseSpendAmount_givesBackUnspentAmount() {
+        AtomicLong now = new AtomicLong(0L);
+        RateLimiterService limiter = new RateLimiterService(1000L,
+                List.of(new VelocityRule(Duration.ofMinutes(1), new BigDecimal("10.00"))), now::get);
+
+        long recordedAt = limiter.allowSpendAmount(cardId, 1_000L).orElseThrow();
+        limiter.releaseSpendAmount(cardId, 1_000L, recordedAt);
+        assertTrue(limiter.allowSpendAmount(cardId, 1_000L).isPresent());
+    }
+
+    @Test
+    void releaseSpendAmount_takesAmountFromTheBucketItWasRecordedIn() {
+        AtomicLong now = new AtomicLong(0L);
+        RateLimiterService limiter = new RateLimiterService(1000L,
+                List.of(new VelocityRule(Duration.ofMinutes(1), new BigDecimal("100.00"))), now::get);
+
+        long failedAt = limiter.allowSpendAmount(cardId, 6_000L).orElseThrow();
+        now.set(30_000L);
+        assertTrue(limiter.allowSpendAmount(cardId, 4_000L).isPresent());
+        // The 60.00 from the start of the window did not go through
+        limiter.releaseSpendAmount(cardId, 6_000L, failedAt);
+        assertTrue(limiter.allowSpendAmount(cardId, 6_000L).isPresent());
+
+        // Once the start of the window expires the 40.00 recorded mid-window still counts
+        now.set(62_000L);
+        assertFalse(limiter.allowSpendAmount(cardId, 1L).isPresent());
+        now.set(92_000L);
+        assertTrue(limiter.allowSpendAmount(cardId, 10_000L).isPresent());
+    }
+
+    @Test
+    void releaseSpendAmount_ignoresAmountWhoseBucketExpired() {
+        AtomicLong now = new AtomicLong(0L);
+        RateLimiterService limiter = new RateLimiterService(1000L,
+                List.of(new VelocityRule(Duration.ofMinutes(1), new BigDecimal("100.00"))), now::get);
+
+        long expiredAt = limiter.allowSpendAmount(cardId, 5_000L).orElseThrow();
+        now.set(62_000L);
+        assertTrue(limiter.allowSpendAmount(cardId, 10_000L).isPresent());
+        // Already out of the window: releasing it must not give back any of the newer 100.00
+        limiter.releaseSpendAmount(cardId, 5_000L, expiredAt);
+        assertFalse(limiter.allowSpendAmount(cardId, 1L).isPresent());
+    }
+
+    @Test
+    void evictIdleVelocityWindows_dropsOnlyCardsWhoseWindowsDrained() {
+        AtomicLong now = new AtomicLong(0L);
+        RateLimiterService limiter = new RateLimiterService(1000L, List.of(
+                new VelocityRule(Duration.ofMinutes(1), new BigDecimal("10.00")),
+                new VelocityRule(Duration.ofHours(1), new BigDecimal("15.00"))), now::get);
+        UUID idle = UUID.randomUUID();
+        UUID released = UUID.randomUUID();
+        assertTrue(limiter.allowSpendAmount(idle, 1_000L).isPresent());
+        limiter.releaseSpendAmount(released, 1_000L, limiter.allowSpendAmount(released, 1_000L).orElseThrow());
+
+        // Drained in the minute window but not yet in the hour window
+        now.set(Duration.ofMinutes(2).toMillis());
+        assertTrue(limiter.allowSpendAmount(cardId, 1_000L).isPresent());
+        limiter.evictIdleVelocityWindows();
+        assertEquals(2, limiter.trackedVelocityCards());
+
+        now.set(Duration.ofHours(2).toMillis());
+        limiter.evictIdleVelocityWindows();
+        assertEquals(0, limiter.trackedVelocityCards());
+
+        // Evicted cards start over with empty windows
+        assertTrue(limiter.allowSpendAmount(idle, 1_000L).isPresent());
+        assertFalse(limiter.allowSpendAmount(idle, 9_500L).isPresent());
+        assertEquals(1, limiter.trackedVelocityCards());
+    }
+
+    @Test
+    void allowSpendAmount_alwaysAllowsWithoutRules() {
+        assertTrue(rateLimiter.allowSpendAmount(cardId, 100_000_000L).isPresent());
+    }
+
+    @Test
+    void gcra_allowsBurstOfFiveThenOnePerEmissionInterval() {
+        AtomicLong now = new AtomicLong(0L);
+        RateLimiterService limiter = new RateLimiterService(Strategy.GCRA, 60_000L, now::get);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.allowSpend(cardId), "Spend " + (i + 1) + " should be allowed");
+        }
+        assertFalse(limiter.allowSpend(cardId), "6th spend should be blocked");
+
+        // One emission interval (60s / 5) frees exactly one slot
+        now.addAndGet(12_000L);
+        assertTrue(limiter.allowSpend(cardId));
+        assertFalse(limiter.allowSpend(cardId));
+
+        // A full window of inactivity restores the whole burst
+        now.addAndGet(60_000L);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.allowSpend(cardId));
+        }
+        assertFalse(limiter.allowSpend(cardId));
+    }
+
+    @Test
+    void gcra_isIsolatedPerCard() {
+        AtomicLong now = new AtomicLong(0L);
+        RateLimiterService limiter = new RateLimiterService(Strategy.GCRA, 60_000L, now::get);
+        UUID cardA = UUID.randomUUID();
+        UUID cardB = UUID.randomUUID();
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.allowSpend(cardA));
+        }
+        assertFalse(limiter.allowSpend(cardA));
+        assertTrue(limiter.allowSpend(cardB));
+    }
+
+    @Test
+    void gcra_neverAllowsMoreThanFiveUnderConcurrency() throws Exception {
+        RateLimiterService limiter = new RateLimiterService(Strategy.GCRA, 60_000L, () -> 0L);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        AtomicInteger allowed = new AtomicInteger();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            tasks.add(() -> {
+                if (limiter.allowSpend(cardId)) allowed.incrementAndGet();
+                return null;
+            });
+        }
+        executor.invokeAll(tasks);
+        executor.shutdown();
+
+        assertEquals(5, allowed.get());
+    }
 }
@@ -0,0 +1,145 @@
+package com.nium.cardplatform.service;
+
+import com.nium.cardplatform.config.RecentTransactionsProperties;
+import com.nium.cardplatform.jooq.tables.records.TransactionRecord;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecentTransactionCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UUID cardId = UUID.randomUUID();
+
+    private RecentTransactionCache cache(int ringSize, int maxTransactions) {
+        return new RecentTransactionCache(new RecentTransactionsProperties(ringSize, maxTransactions), meterRegistry);
+    }
+
+    private TransactionRecord tx(UUID card, long amount) {
+        return new TransactionRecord(UUID.randomUUID(), card, "SPEND", amount, LocalDateTime.now());
+    }
+
+    @Test
+    void appendedTransactions_shouldBeServedNewestFirstWhileTxCountMatches() {
+        RecentTransactionCache cache = cache(3, 100);
+        List<TransactionRecord> txs = new ArrayList<>();
+        for (int i = 1; i <= 4; i++) {
+            TransactionRecord tx = tx(cardId, i);
+            txs.add(tx);
+            cache.append(cardId, i, tx);
+        }
+
+        assertEquals(List.of(txs.get(3), txs.get(2)), cache.firstPage(cardId, 4, 2));
+        assertEquals(List.of(txs.get(3), txs.get(2), txs.get(1)), cache.firstPage(cardId, 4, 3));
+        assertEquals(3, cache.cachedTransactions(), "the oldest entry was overwritten");
+
+        assertNull(cache.firstPage(cardId, 5, 2), "a transaction the ring has not seen");
+        assertNull(cache.firstPage(cardId, 4, 4), "larger than the ring");
+        assertEquals(2.0, meterRegistry.get("transactions.recent.requests").tag("result", "hit").counter().count());
+        assertEquals(1.0, meterRegistry.get("transactions.recent.requests").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    void missedUpdate_shouldRestartRingSoItOnlyServesWhatItHolds() {
+        RecentTransactionCache cache = cache(5, 100);
+        cache.append(cardId, 1, tx(cardId, 1));
+        TransactionRecord third = tx(cardId, 3);
+        cache.append(cardId, 3, third); // commit #2 was never appended
+
+        assertEquals(List.of(third), cache.firstPage(cardId, 3, 1));
+        assertNull(cache.firstPage(cardId, 3, 2), "cannot know the second newest");
+
+        cache.append(cardId, 2, tx(cardId, 2)); // late, older news
+        assertEquals(List.of(third), cache.firstPage(cardId, 3, 1));
+    }
+
+    @Test
+    void fill_shouldSeedCompleteWindowsOnlyAndNotDuplicateRacingCommits() {
+        RecentTransactionCache cache = cache(3, 100);
+        TransactionRecord first = tx(cardId, 1);
+        TransactionRecord second = tx(cardId, 2);
+
+        cache.fill(cardId, 3, List.of(second, first)); // short of min(3, ring size)
+        assertEquals(0, cache.cachedCards());
+
+        cache.fill(cardId, 2, List.of(second, first));
+        assertEquals(List.of(second, first), cache.firstPage(cardId, 2, 3), "the whole history fits in the ring");
+
+        // A page read just after a concurrent commit: the card said 2, the query already saw the new row
+        UUID racingCard = UUID.randomUUID();
+        TransactionRecord older = tx(racingCard, 1);
+        TransactionRecord racing = tx(racingCard, 2);
+        cache.fill(racingCard, 1, List.of(racing));
+        cache.append(racingCard, 2, racing);
+
+        assertEquals(List.of(racing), cache.firstPage(racingCard, 2, 1));
+        assertNull(cache.firstPage(racingCard, 2, 2), "older was never seen, and racing is not counted twice");
+        assertEquals(3, cache.cachedTransactions());
+    }
+
+    @Test
+    void overBudget_shouldEvictLeastRecentlyUsedCards() {
+        RecentTransactionCache cache = cache(2, 4);
+        UUID cold = UUID.randomUUID();
+        UUID warm = UUID.randomUUID();
+        UUID hot = UUID.randomUUID();
+        cache.append(cold, 1, tx(cold, 1));
+        cache.append(cold, 2, tx(cold, 2));
+        cache.append(warm, 1, tx(warm, 1));
+        cache.append(warm, 2, tx(warm, 2));
+        assertNotNull(cache.firstPage(cold, 2, 1)); // cold becomes the most recently used
+
+        cache.append(hot, 1, tx(hot, 1));
+
+        assertNull(cache.firstPage(warm, 2, 1));
+        assertNotNull(cache.firstPage(cold, 2, 2));
+        assertNotNull(cache.firstPage(hot, 1, 1));
+        assertEquals(3, cache.cachedTransactions());
+        assertEquals(2, cache.cachedCards());
+    }
+
+    @Test
+    void concurrentAppends_shouldKeepTheBudgetAndCountWhatTheRingsHold() throws Exception {
+        RecentTransactionCache cache = cache(4, 300);
+        List<UUID> cards = new ArrayList<>();
+        for (int i = 0; i < 400; i++) cards.add(UUID.randomUUID());
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            List<UUID> owned = cards.subList(t * 50, (t + 1) * 50);
+            tasks.add(() -> {
+                for (int n = 1; n <= 10; n++) {
+                    for (UUID card : owned) {
+                        cache.append(card, n, tx(card, n));
+                        cache.firstPage(card, n, 1);
+                    }
+                }
+                return null;
+            });
+        }
+        for (Future<Void> done : executor.invokeAll(tasks)) done.get();
+        executor.shutdown();
+
+        int held = 0;
+        for (UUID card : cards) {
+            for (int limit = 4; limit >= 1; limit--) {
+                if (cache.firstPage(card, 10, limit) != null) {
+                    held += limit;
+                    break;
+                }
+            }
+        }
+        assertTrue(cache.cachedTransactions() <= 300, "over budget: " + cache.cachedTransactions());
+        assertEquals(held, cache.cachedTransactions());
+    }
+}
@@ -0,0 +1,135 @@
+package com.nium.cardplatform.service;
+
+import com.nium.cardplatform.config.ReconciliationProperties;
+import com.nium.cardplatform.dto.ReconciliationMismatch;
+import com.nium.cardplatform.dto.ReconciliationReport;
+import com.nium.cardplatform.repository.ReconciliationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.jooq.DSLContext;
+import org.jooq.Record2;
+import org.jooq.Result;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static com.nium.cardplatform.jooq.tables.Card.CARD;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ReconciliationServiceTest {
+
+    private static final DSLContext RECORDS = DSL.using(SQLDialect.H2);
+
+    private ReconciliationRepository repo;
+    private SimpleMeterRegistry meterRegistry;
+    private ReconciliationService service;
+
+    // Card id -> balance and card id -> net of transactions, as the mocked repository sees them
+    private final TreeMap<UUID, Long> balances = new TreeMap<>();
+    private final Map<UUID, Long> nets = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        repo = mock(ReconciliationRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        // Pages of 5 split into leaves of at most 2 cards
+        service = new ReconciliationService(repo, new ReconciliationProperties("-", 5, 2, 2, 2, 3), meterRegistry);
+
+        when(repo.fetchBalances(any(), anyInt())).thenAnswer(inv -> {
+            UUID after = inv.getArgument(0);
+            int limit = inv.getArgument(1);
+            Result<Record2<UUID, Long>> page = RECORDS.newResult(CARD.ID, CARD.BALANCE);
+            (after == null ? balances : balances.tailMap(after, false)).entrySet().stream()
+                    .limit(limit)
+                    .forEach(e -> page.add(RECORDS.newRecord(CARD.ID, CARD.BALANCE).values(e.getKey(), e.getValue())));
+            return page;
+        });
+        when(repo.sumNetByCardRange(any(), any())).thenAnswer(inv -> {
+            UUID from = inv.getArgument(0);
+            UUID to = inv.getArgument(1);
+            return nets.entrySet().stream()
+                    .filter(e -> e.getKey().compareTo(from) >= 0 && e.getKey().compareTo(to) <= 0)
+                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void reconcile_shouldCheckEveryCard_whenLedgerMatches() {
+        for (int i = 0; i < 23; i++) {
+            card(i * 100L, i * 100L);
+        }
+        card(0L, null); // no transactions at all
+
+        ReconciliationReport report = service.reconcile();
+
+        assertEquals(24, report.getCardsChecked());
+        assertEquals(0, report.getMismatchCount());
+        assertTrue(report.getMismatches().isEmpty());
+        verify(repo, times(5)).fetchBalances(any(), eq(5));
+        verify(repo, never()).fetchBalanceAndNet(any());
+        assertEquals(24.0, meterRegistry.counter("reconciliation.cards.checked").count());
+    }
+
+    @Test
+    void reconcile_shouldReportMismatch_onlyWhenConsistentRecheckAgrees() {
+        card(1_000L, 1_000L);
+        UUID broken = card(1_200L, 1_000L);
+        UUID inFlight = card(1_500L, 1_000L); // balance updated between the two reads
+        when(repo.fetchBalanceAndNet(broken)).thenReturn(balanceAndNet(1_200L, 1_000L));
+        when(repo.fetchBalanceAndNet(inFlight)).thenReturn(balanceAndNet(1_500L, 1_500L));
+
+        ReconciliationReport report = service.reconcile();
+
+        assertEquals(3, report.getCardsChecked());
+        assertEquals(1, report.getMismatchCount());
+        ReconciliationMismatch mismatch = report.getMismatches().get(0);
+        assertEquals(broken, mismatch.getCardId());
+        assertEquals(0, mismatch.getBalance().compareTo(BigDecimal.valueOf(12)));
+        assertEquals(0, mismatch.getLedgerNet().compareTo(BigDecimal.TEN));
+    }
+
+    @Test
+    void reconcile_shouldCapReportedMismatches_butCountAll() {
+        for (int i = 0; i < 7; i++) {
+            UUID id = card(100L, 0L);
+            when(repo.fetchBalanceAndNet(id)).thenReturn(balanceAndNet(100L, 0L));
+        }
+
+        ReconciliationReport report = service.reconcile();
+
+        assertEquals(7, report.getMismatchCount());
+        assertEquals(3, report.getMismatches().size());
+        assertEquals(7.0, meterRegistry.counter("reconciliation.mismatches").count());
+    }
+
+    @Test
+    void reconcile_shouldFail_whenChunkVerificationFails() {
+        card(100L, 100L);
+        doThrow(new IllegalStateException("connection lost")).when(repo).sumNetByCardRange(any(), any());
+
+        assertThrows(IllegalStateException.class, () -> service.reconcile());
+    }
+
+    private UUID card(long balance, Long net) {
+        UUID id = UUID.randomUUID();
+        balances.put(id, balance);
+        if (net != null) nets.put(id, net);
+        return id;
+    }
+
+    private static Record2<Long, Long> balanceAndNet(long balance, long net) {
+        return RECORDS.newRecord(CARD.BALANCE, CARD.BALANCE.as("net")).values(balance, net);
+    }
+}
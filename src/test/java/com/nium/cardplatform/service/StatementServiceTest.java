@@ -0,0 +1,167 @@
+package com.nium.cardplatform.service;
+
+import com.nium.cardplatform.config.StatementProperties;
+import com.nium.cardplatform.dto.StatementRunReport;
+import com.nium.cardplatform.exception.InvalidStatementPeriodException;
+import com.nium.cardplatform.repository.StatementRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.jooq.Cursor;
+import org.jooq.DSLContext;
+import org.jooq.Record1;
+import org.jooq.Record4;
+import org.jooq.Result;
+import org.jooq.SQLDialect;
+import org.jooq.exception.DataAccessException;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+
+import static com.nium.cardplatform.jooq.tables.Card.CARD;
+import static com.nium.cardplatform.jooq.tables.Transaction.TRANSACTION;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class StatementServiceTest {
+
+    private static final DSLContext RECORDS = DSL.using(SQLDialect.H2);
+    private static final LocalDate FROM = LocalDate.of(2025, 7, 1);
+    private static final LocalDate TO = LocalDate.of(2025, 7, 31);
+
+    @TempDir
+    Path tempDir;
+
+    private StatementRepository repo;
+    private SimpleMeterRegistry meterRegistry;
+    private StatementService service;
+
+    private final TreeSet<UUID> cards = new TreeSet<>();
+    private final List<Cursor<Record4<UUID, LocalDateTime, String, Long>>> cursors = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void setUp() {
+        repo = mock(StatementRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        // Pages of 2 cards
+        service = new StatementService(repo, new StatementProperties("-", tempDir, 2, 2, 100, 1024), meterRegistry);
+
+        when(repo.fetchCardIds(any(), any(), anyInt())).thenAnswer(inv -> {
+            UUID after = inv.getArgument(0);
+            int limit = inv.getArgument(2);
+            Result<Record1<UUID>> page = RECORDS.newResult(CARD.ID);
+            (after == null ? cards : cards.tailSet(after, false)).stream()
+                    .limit(limit)
+                    .forEach(id -> page.add(RECORDS.newRecord(CARD.ID).values(id)));
+            return page;
+        });
+        when(repo.streamTransactions(any(), any(), any(), anyInt())).thenAnswer(inv -> cursor(List.of()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void generate_shouldWriteCompressedStatementPerCard_withRunningBalance() throws IOException {
+        UUID active = card();
+        UUID idle = card();
+        UUID empty = card();
+        UUID spend = UUID.randomUUID();
+        UUID transferIn = UUID.randomUUID();
+        when(repo.sumNetBefore(eq(active), any())).thenReturn(10_000L);
+        when(repo.sumNetBefore(eq(idle), any())).thenReturn(2_550L);
+        doAnswer(inv -> cursor(List.of(
+                tx(spend, LocalDateTime.of(2025, 7, 3, 12, 30, 5), "SPEND", 2_500L),
+                tx(transferIn, LocalDateTime.of(2025, 7, 20, 8, 0), "TRANSFER_IN", 1_000L))))
+                .when(repo).streamTransactions(eq(active), eq(FROM.atStartOfDay()), eq(LocalDate.of(2025, 8, 1).atStartOfDay()), eq(100));
+
+        StatementRunReport report = service.generate(FROM, TO);
+
+        assertEquals(3, report.getCardsWritten());
+        assertEquals(2, report.getTransactionsWritten());
+        Path dir = tempDir.resolve("2025-07-01_2025-07-31");
+        assertEquals(dir.toString(), report.getDirectory());
+        assertEquals(List.of(
+                "transaction_id,created_at,type,amount,balance",
+                ",2025-07-01T00:00:00,OPENING_BALANCE,,100.00",
+                spend + ",2025-07-03T12:30:05,SPEND,25.00,75.00",
+                transferIn + ",2025-07-20T08:00:00,TRANSFER_IN,10.00,85.00",
+                ",2025-08-01T00:00:00,CLOSING_BALANCE,,85.00"), read(dir.resolve(active + ".csv.gz")));
+        assertEquals(List.of(
+                "transaction_id,created_at,type,amount,balance",
+                ",2025-07-01T00:00:00,OPENING_BALANCE,,25.50",
+                ",2025-08-01T00:00:00,CLOSING_BALANCE,,25.50"), read(dir.resolve(idle + ".csv.gz")));
+        assertTrue(Files.exists(dir.resolve(empty + ".csv.gz")));
+        try (var files = Files.list(dir)) {
+            assertEquals(3, files.count());
+        }
+
+        long bytes = 0;
+        for (UUID id : cards) bytes += Files.size(dir.resolve(id + ".csv.gz"));
+        assertEquals(bytes, report.getBytesWritten());
+        verify(repo, times(2)).fetchCardIds(any(), eq(LocalDate.of(2025, 8, 1).atStartOfDay()), eq(2));
+        assertEquals(3, cursors.size());
+        for (Cursor<?> cursor : cursors) verify(cursor).close();
+        assertEquals(3.0, meterRegistry.counter("statements.cards").count());
+        assertEquals(2.0, meterRegistry.counter("statements.transactions").count());
+    }
+
+    @Test
+    void generate_shouldFailAndLeaveNoFile_whenStreamingACardFails() {
+        UUID broken = card();
+        when(repo.streamTransactions(eq(broken), any(), any(), anyInt()))
+                .thenThrow(new DataAccessException("connection lost"));
+
+        assertThrows(IllegalStateException.class, () -> service.generate(FROM, TO));
+
+        Path dir = tempDir.resolve("2025-07-01_2025-07-31");
+        assertFalse(Files.exists(dir.resolve(broken + ".csv.gz")));
+        assertFalse(Files.exists(dir.resolve(broken + ".csv.gz.part")));
+    }
+
+    @Test
+    void generate_shouldReject_whenPeriodEndsBeforeItStarts() {
+        assertThrows(InvalidStatementPeriodException.class, () -> service.generate(TO, FROM));
+        verify(repo, never()).fetchCardIds(any(), any(), anyInt());
+    }
+
+    private UUID card() {
+        UUID id = UUID.randomUUID();
+        cards.add(id);
+        return id;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Cursor<Record4<UUID, LocalDateTime, String, Long>> cursor(List<Record4<UUID, LocalDateTime, String, Long>> rows) {
+        Cursor<Record4<UUID, LocalDateTime, String, Long>> cursor = mock(Cursor.class);
+        when(cursor.iterator()).thenReturn(rows.iterator());
+        cursors.add(cursor);
+        return cursor;
+    }
+
+    private static Record4<UUID, LocalDateTime, String, Long> tx(UUID id, LocalDateTime at, String type, long amount) {
+        return RECORDS.newRecord(TRANSACTION.ID, TRANSACTION.CREATED_AT, TRANSACTION.TYPE, TRANSACTION.AMOUNT)
+                .values(id, at, type, amount);
+    }
+
+    private static List<String> read(Path file) throws IOException {
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            return in.lines().toList();
+        }
+    }
+}
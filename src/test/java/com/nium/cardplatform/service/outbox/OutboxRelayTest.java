@@ -0,0 +1,80 @@
+package com.nium.cardplatform.service.outbox;
+
+import com.nium.cardplatform.config.OutboxProperties;
+import com.nium.cardplatform.jooq.tables.records.OutboxEventRecord;
+import com.nium.cardplatform.repository.OutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class OutboxRelayTest {
+
+    private OutboxRepository outboxRepo;
+    private OutboxSink sink;
+    private SimpleMeterRegistry meterRegistry;
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        outboxRepo = mock(OutboxRepository.class);
+        sink = mock(OutboxSink.class);
+        meterRegistry = new SimpleMeterRegistry();
+        OutboxProperties props = new OutboxProperties(OutboxProperties.Sink.FILE, Duration.ofMillis(500), 2, 10,
+                Path.of("unused"), null);
+        relay = new OutboxRelay(outboxRepo, sink, props, meterRegistry);
+    }
+
+    @Test
+    void drain_shouldPublishInBatchesAndDeleteDelivered() throws Exception {
+        OutboxEventRecord e1 = event(1L), e2 = event(2L), e3 = event(3L);
+        when(outboxRepo.fetchBatch(2)).thenReturn(List.of(e1, e2), List.of(e3));
+
+        int delivered = relay.drain();
+
+        assertEquals(3, delivered);
+        verify(sink).publish(List.of(e1, e2));
+        verify(sink).publish(List.of(e3));
+        verify(outboxRepo).deleteByIds(List.of(1L, 2L));
+        verify(outboxRepo).deleteByIds(List.of(3L));
+        assertEquals(3.0, meterRegistry.counter("outbox.events.published").count());
+    }
+
+    @Test
+    void drain_shouldKeepEvents_whenSinkFails() throws Exception {
+        OutboxEventRecord e1 = event(1L);
+        when(outboxRepo.fetchBatch(2)).thenReturn(List.of(e1));
+        doThrow(new IOException("disk full")).when(sink).publish(anyList());
+        when(outboxRepo.countPending()).thenReturn(1);
+        when(outboxRepo.oldestPendingCreatedAt()).thenReturn(LocalDateTime.now().minusSeconds(30));
+
+        int delivered = relay.drain();
+
+        assertEquals(0, delivered);
+        verify(outboxRepo, never()).deleteByIds(any());
+        assertEquals(1.0, meterRegistry.counter("outbox.publish.failures").count());
+        assertEquals(1.0, meterRegistry.get("outbox.events.pending").gauge().value());
+        assertTrue(meterRegistry.get("outbox.lag.seconds").gauge().value() >= 29.0);
+    }
+
+    private OutboxEventRecord event(long id) {
+        OutboxEventRecord record = new OutboxEventRecord();
+        record.setId(id);
+        record.setCardId(UUID.randomUUID());
+        record.setEventType("SPEND");
+        record.setPayload("{}");
+        record.setCreatedAt(LocalDateTime.now());
+        return record;
+    }
+}
@@ -0,0 +1,11 @@
+package com.nium.cardplatform.stress;
+
+import org.springframework.test.context.TestPropertySource;
+
+// Version-checked updates: writers never wait, a lost race is a 409
+@TestPropertySource(properties = {
+        "cardplatform.locking.mode=optimistic",
+        "spring.datasource.url=jdbc:h2:mem:stress-optimistic;DB_CLOSE_DELAY=-1"
+})
+class OptimisticSpendContentionStressTest extends SpendContentionStressScenario {
+}
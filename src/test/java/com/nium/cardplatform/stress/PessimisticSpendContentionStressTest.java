@@ -0,0 +1,11 @@
+package com.nium.cardplatform.stress;
+
+import org.springframework.test.context.TestPropertySource;
+
+// SELECT ... FOR UPDATE: writers of a hot card queue on its row lock instead of failing
+@TestPropertySource(properties = {
+        "cardplatform.locking.mode=pessimistic",
+        "spring.datasource.url=jdbc:h2:mem:stress-pessimistic;DB_CLOSE_DELAY=-1"
+})
+class PessimisticSpendContentionStressTest extends SpendContentionStressScenario {
+}
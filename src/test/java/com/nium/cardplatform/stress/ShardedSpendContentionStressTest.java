@@ -0,0 +1,27 @@
+package com.nium.cardplatform.stress;
+
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+import java.util.UUID;
+
+// Optimistic locking with every card's balance split into balance slots: writers of a hot card
+// only meet when they pick the same slot
+@TestPropertySource(properties = {
+        "cardplatform.locking.mode=optimistic",
+        "spring.datasource.url=jdbc:h2:mem:stress-sharded;DB_CLOSE_DELAY=-1"
+})
+class ShardedSpendContentionStressTest extends SpendContentionStressScenario {
+
+    private static final int SLOTS = Integer.getInteger("stress.slots", 8);
+
+    @Override
+    protected void prepare(List<UUID> cards) {
+        cards.forEach(card -> cardService.setBalanceSlots(card, SLOTS));
+    }
+
+    @Override
+    protected String describe() {
+        return super.describe() + " slots=" + SLOTS;
+    }
+}
@@ -0,0 +1,291 @@
+package com.nium.cardplatform.stress;
+
+import com.nium.cardplatform.config.LockingProperties;
+import com.nium.cardplatform.config.RateLimitProperties;
+import com.nium.cardplatform.dto.CardResponse;
+import com.nium.cardplatform.dto.CreateCardRequest;
+import com.nium.cardplatform.dto.ReconciliationReport;
+import com.nium.cardplatform.dto.SpendRequest;
+import com.nium.cardplatform.dto.TopupRequest;
+import com.nium.cardplatform.exception.ConcurrentModificationException;
+import com.nium.cardplatform.exception.DomainRejectionException;
+import com.nium.cardplatform.service.CardService;
+import com.nium.cardplatform.service.Money;
+import com.nium.cardplatform.service.RateLimiterService;
+import com.nium.cardplatform.service.ReconciliationService;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.jooq.DSLContext;
+import org.jooq.Record2;
+import org.jooq.Record3;
+import org.jooq.impl.SQLDataType;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import static com.nium.cardplatform.jooq.tables.Card.CARD;
+import static com.nium.cardplatform.jooq.tables.CardBalanceSlot.CARD_BALANCE_SLOT;
+import static com.nium.cardplatform.jooq.tables.Transaction.TRANSACTION;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.jooq.impl.DSL.count;
+import static org.jooq.impl.DSL.sum;
+
+// Drives CardService from many threads against a Zipf-skewed set of cards and reports throughput,
+// write latency, conflict rate and invariant violations; one subclass per locking mode plus one with
+// sharded balances, so a run compares them side by side. Not part of the default build:
+//   mvn -Pstress test [-Dstress.threads=16] [-Dstress.cards=200] [-Dstress.seconds=5]
+//                     [-Dstress.zipf=0,0.8,1.2] [-Dstress.mix=spend:70,topup:20,read:10] [-Dstress.slots=8]
+// Conflicts are counted, not retried, so the rate is what callers would see as 409s.
+@Tag("stress")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {"cardplatform.snapshot.enabled=false", "cardplatform.wal.enabled=false"})
+@Import(SpendContentionStressScenario.NoRateLimits.class)
+abstract class SpendContentionStressScenario {
+
+    enum Op { SPEND, TOPUP, READ }
+
+    private static final int THREADS = Integer.getInteger("stress.threads", 16);
+    private static final int CARDS = Integer.getInteger("stress.cards", 200);
+    private static final int SECONDS = Integer.getInteger("stress.seconds", 5);
+    private static final long INITIAL_BALANCE = 1_000_00L;
+    private static final long MAX_AMOUNT = 20_00L;
+
+    // Relayed events and statements go to files of this run instead of the application's data/ directory
+    @TempDir
+    static Path workDir;
+
+    @DynamicPropertySource
+    static void isolatedFiles(DynamicPropertyRegistry registry) {
+        registry.add("cardplatform.outbox.file", () -> workDir.resolve("card-events.jsonl").toString());
+        registry.add("cardplatform.statements.directory", () -> workDir.resolve("statements").toString());
+    }
+
+    @Autowired
+    CardService cardService;
+
+    @Autowired
+    ReconciliationService reconciliationService;
+
+    @Autowired
+    DSLContext dsl;
+
+    @Autowired
+    LockingProperties locking;
+
+    // Per-card count and velocity limits would reject almost every spend on a hot card. A plain subclass
+    // rather than a Mockito mock, which would record every one of the millions of invocations.
+    @TestConfiguration(proxyBeanMethods = false)
+    static class NoRateLimits {
+        @Bean
+        @Primary
+        RateLimiterService unlimitedRateLimiter() {
+            return new RateLimiterService(new RateLimitProperties(RateLimitProperties.Strategy.GCRA, List.of())) {
+                @Override
+                public boolean allowSpend(UUID cardId) {
+                    return true;
+                }
+            };
+        }
+    }
+
+    static Stream<Double> zipfExponents() {
+        return Arrays.stream(System.getProperty("stress.zipf", "0,0.8,1.2").split(","))
+                .map(String::trim)
+                .map(Double::valueOf);
+    }
+
+    @ParameterizedTest(name = "zipf={0}")
+    @MethodSource("zipfExponents")
+    void concurrentMutations_shouldKeepInvariantsUnderSkew(double zipfExponent) throws Exception {
+        Map<Op, Integer> mix = parseMix(System.getProperty("stress.mix", "spend:70,topup:20,read:10"));
+        List<UUID> cards = createCards();
+        prepare(cards);
+        AtomicLong[] expected = new AtomicLong[CARDS];
+        for (int i = 0; i < CARDS; i++) expected[i] = new AtomicLong(INITIAL_BALANCE);
+        ZipfSampler sampler = new ZipfSampler(CARDS, zipfExponent);
+
+        Map<Op, LongAdder> succeeded = counters();
+        LongAdder conflicts = new LongAdder();
+        LongAdder declined = new LongAdder();
+        LongAdder errors = new LongAdder();
+        Timer writeLatency = Timer.builder("stress.write")
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .register(new SimpleMeterRegistry());
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SECONDS);
+        long started = System.nanoTime();
+        ExecutorService workers = Executors.newFixedThreadPool(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            workers.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    int card = sampler.next();
+                    Op op = pick(mix, random.nextInt(100));
+                    long amount = 1 + random.nextLong(MAX_AMOUNT);
+                    long opStarted = System.nanoTime();
+                    try {
+                        switch (op) {
+                            case SPEND -> {
+                                cardService.spend(cards.get(card), new SpendRequest(Money.fromMinor(amount)));
+                                expected[card].addAndGet(-amount);
+                            }
+                            case TOPUP -> {
+                                TopupRequest req = new TopupRequest();
+                                req.setAmount(Money.fromMinor(amount));
+                                cardService.topup(cards.get(card), req);
+                                expected[card].addAndGet(amount);
+                            }
+                            case READ -> cardService.getTransactionPage(cards.get(card), 10, 0);
+                        }
+                        succeeded.get(op).increment();
+                        if (op != Op.READ) writeLatency.record(System.nanoTime() - opStarted, TimeUnit.NANOSECONDS);
+                    } catch (ConcurrentModificationException e) {
+                        conflicts.increment();
+                    } catch (DomainRejectionException e) {
+                        declined.increment();
+                    } catch (RuntimeException e) {
+                        errors.increment();
+                    }
+                }
+            });
+        }
+        workers.shutdown();
+        assertThat(workers.awaitTermination(SECONDS + 60L, TimeUnit.SECONDS)).isTrue();
+        double elapsedSeconds = (System.nanoTime() - started) / 1e9;
+
+        List<String> violations = checkInvariants(cards, expected);
+        ReconciliationReport ledger = reconciliationService.reconcile();
+
+        long writes = succeeded.get(Op.SPEND).sum() + succeeded.get(Op.TOPUP).sum();
+        long attemptedWrites = writes + conflicts.sum() + declined.sum();
+        long total = attemptedWrites + succeeded.get(Op.READ).sum() + errors.sum();
+        Map<Double, Double> percentiles = new HashMap<>();
+        for (ValueAtPercentile p : writeLatency.takeSnapshot().percentileValues()) {
+            percentiles.put(p.percentile(), p.value(TimeUnit.MILLISECONDS));
+        }
+        System.out.printf(
+                "[stress] %s zipf=%.2f (hottest card %.1f%% of ops) threads=%d cards=%d mix=%s%n"
+                        + "[stress]   ops=%d in %.1fs -> %.0f ops/s, committed writes %.0f/s%n"
+                        + "[stress]   committed write latency p50=%.1fms p99=%.1fms p99.9=%.1fms%n"
+                        + "[stress]   conflicts=%d (%.2f%% of write attempts) declined=%d errors=%d%n"
+                        + "[stress]   invariant violations=%d ledger mismatches=%d%n",
+                describe(), zipfExponent, sampler.hottestShare() * 100, THREADS, CARDS, mix,
+                total, elapsedSeconds, total / elapsedSeconds, writes / elapsedSeconds,
+                percentiles.get(0.5), percentiles.get(0.99), percentiles.get(0.999),
+                conflicts.sum(), attemptedWrites == 0 ? 0 : 100.0 * conflicts.sum() / attemptedWrites, declined.sum(), errors.sum(),
+                violations.size(), ledger.getMismatchCount());
+        violations.stream().limit(10).forEach(v -> System.out.println("[stress]   " + v));
+
+        assertThat(errors.sum()).isZero();
+        assertThat(violations).isEmpty();
+        assertThat(ledger.getMismatchCount()).isZero();
+    }
+
+    // Runs once the cards exist, before the load starts
+    protected void prepare(List<UUID> cards) {
+    }
+
+    protected String describe() {
+        return "locking=" + locking.mode();
+    }
+
+    private List<UUID> createCards() {
+        List<UUID> cards = new ArrayList<>(CARDS);
+        for (int i = 0; i < CARDS; i++) {
+            CreateCardRequest req = new CreateCardRequest();
+            req.setCardholderName("Stress " + i);
+            req.setInitialBalance(Money.fromMinor(INITIAL_BALANCE));
+            CardResponse card = cardService.createCard(req);
+            cards.add(card.getId());
+        }
+        return cards;
+    }
+
+    // balance matches the committed operations, never goes negative, and tx_count matches the ledger rows
+    // (slots of sharded cards included)
+    private List<String> checkInvariants(List<UUID> cards, AtomicLong[] expected) {
+        Map<UUID, Record2<Long, Long>> slotTotals = dsl.select(CARD_BALANCE_SLOT.CARD_ID,
+                        sum(CARD_BALANCE_SLOT.BALANCE).cast(SQLDataType.BIGINT), sum(CARD_BALANCE_SLOT.TX_COUNT).cast(SQLDataType.BIGINT))
+                .from(CARD_BALANCE_SLOT)
+                .where(CARD_BALANCE_SLOT.CARD_ID.in(cards))
+                .groupBy(CARD_BALANCE_SLOT.CARD_ID)
+                .fetchMap(CARD_BALANCE_SLOT.CARD_ID, r -> r.into(r.field2(), r.field3()));
+        Map<UUID, Integer> rowsByCard = dsl.select(TRANSACTION.CARD_ID, count())
+                .from(TRANSACTION)
+                .where(TRANSACTION.CARD_ID.in(cards))
+                .groupBy(TRANSACTION.CARD_ID)
+                .fetchMap(TRANSACTION.CARD_ID, count());
+        List<String> violations = new ArrayList<>();
+        for (Record3<UUID, Long, Long> row : dsl.select(CARD.ID, CARD.BALANCE, CARD.TX_COUNT)
+                .from(CARD)
+                .where(CARD.ID.in(cards))
+                .fetch()) {
+            int index = cards.indexOf(row.value1());
+            Record2<Long, Long> slots = slotTotals.get(row.value1());
+            long balance = row.value2() + (slots == null ? 0 : slots.value1());
+            long txCount = row.value3() + (slots == null ? 0 : slots.value2());
+            if (balance != expected[index].get()) {
+                violations.add(row.value1() + ": balance " + balance + " but committed operations give " + expected[index].get());
+            }
+            if (balance < 0) {
+                violations.add(row.value1() + ": negative balance " + balance);
+            }
+            int rows = rowsByCard.getOrDefault(row.value1(), 0);
+            if (txCount != rows) {
+                violations.add(row.value1() + ": tx_count " + txCount + " but " + rows + " transactions");
+            }
+        }
+        return violations;
+    }
+
+    private static Map<Op, Integer> parseMix(String spec) {
+        Map<Op, Integer> mix = new EnumMap<>(Op.class);
+        for (String part : spec.split(",")) {
+            String[] kv = part.trim().split(":");
+            mix.put(Op.valueOf(kv[0].trim().toUpperCase()), Integer.valueOf(kv[1].trim()));
+        }
+        int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+        if (total != 100) throw new IllegalArgumentException("stress.mix must add up to 100: " + spec);
+        return mix;
+    }
+
+    private static Op pick(Map<Op, Integer> mix, int roll) {
+        for (Map.Entry<Op, Integer> e : mix.entrySet()) {
+            roll -= e.getValue();
+            if (roll < 0) return e.getKey();
+        }
+        throw new IllegalStateException();
+    }
+
+    private static Map<Op, LongAdder> counters() {
+        Map<Op, LongAdder> counters = new EnumMap<>(Op.class);
+        for (Op op : Op.values()) counters.put(op, new LongAdder());
+        return counters;
+    }
+}
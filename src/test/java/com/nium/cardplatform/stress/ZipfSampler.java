@@ -0,0 +1,30 @@
+package com.nium.cardplatform.stress;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Ranks 0..n-1 with P(rank k) proportional to 1 / (k + 1)^exponent; exponent 0 is uniform
+final class ZipfSampler {
+
+    private final double[] cumulative;
+
+    ZipfSampler(int n, double exponent) {
+        cumulative = new double[n];
+        double sum = 0;
+        for (int k = 0; k < n; k++) {
+            sum += 1.0 / Math.pow(k + 1, exponent);
+            cumulative[k] = sum;
+        }
+        for (int k = 0; k < n; k++) cumulative[k] /= sum;
+    }
+
+    int next() {
+        int i = Arrays.binarySearch(cumulative, ThreadLocalRandom.current().nextDouble());
+        return Math.min(i >= 0 ? i : -i - 1, cumulative.length - 1);
+    }
+
+    // Share of draws expected to land on the hottest rank
+    double hottestShare() {
+        return cumulative[0];
+    }
+}
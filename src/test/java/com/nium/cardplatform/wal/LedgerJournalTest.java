@@ -0,0 +1,157 @@
+package com.nium.cardplatform.wal;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.nium.cardplatform.jooq.tables.records.CardRecord;
+import com.nium.cardplatform.jooq.tables.records.OutboxEventRecord;
+import com.nium.cardplatform.repository.OutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.jooq.DSLContext;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.TransactionAwareDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static com.nium.cardplatform.jooq.tables.Card.CARD;
+import static com.nium.cardplatform.jooq.tables.OutboxEvent.OUTBOX_EVENT;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LedgerJournalTest {
+
+    @TempDir
+    Path dir;
+
+    private final EmbeddedDatabase db = new EmbeddedDatabaseBuilder()
+            .setType(EmbeddedDatabaseType.H2)
+            .generateUniqueName(true)
+            .addScript("db/schema.sql")
+            .build();
+    private final DSLContext dsl = DSL.using(new TransactionAwareDataSourceProxy(db), SQLDialect.H2);
+    private final TransactionTemplate tx = new TransactionTemplate(new DataSourceTransactionManager(db));
+    // As Spring Boot configures it: dates as ISO strings
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    @AfterEach
+    void shutdown() {
+        db.shutdown();
+    }
+
+    @Test
+    void commit_shouldNotBeVisible_untilItsEntryIsDurable() throws Exception {
+        CountDownLatch syncing = new CountDownLatch(1);
+        CountDownLatch diskDone = new CountDownLatch(1);
+        WriteAheadLog slowDisk = new WriteAheadLog(dir, new SimpleMeterRegistry()) {
+            @Override
+            public void awaitDurable(long position) {
+                syncing.countDown();
+                try {
+                    assertTrue(diskDone.await(10, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                super.awaitDurable(position);
+            }
+        };
+        LedgerJournal journal = new LedgerJournal(dsl, objectMapper, slowDisk);
+        UUID cardId = UUID.randomUUID();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<?> committed = executor.submit(() -> tx.executeWithoutResult(status -> {
+            dsl.insertInto(CARD).set(new CardRecord(cardId, "Durable", 1_000L, "ACTIVE", 0, LocalDateTime.now(), 0L, null, 0)).execute();
+            journal.cardChanged(cardId);
+        }));
+        assertTrue(syncing.await(10, TimeUnit.SECONDS));
+
+        assertFalse(dsl.fetchExists(CARD, CARD.ID.eq(cardId)), "visible while its entry is still being synced");
+
+        diskDone.countDown();
+        committed.get(10, TimeUnit.SECONDS);
+        executor.shutdown();
+        assertTrue(dsl.fetchExists(CARD, CARD.ID.eq(cardId)));
+        slowDisk.close();
+        try (WriteAheadLog reopened = new WriteAheadLog(dir, new SimpleMeterRegistry())) {
+            int[] entries = new int[1];
+            reopened.read(payload -> entries[0]++);
+            assertEquals(1, entries[0]);
+        }
+    }
+
+    @Test
+    void compact_shouldKeepCurrentRowsOnly_andReplayThemAfterRestart() throws Exception {
+        WriteAheadLog wal = new WriteAheadLog(dir, new SimpleMeterRegistry());
+        LedgerJournal journal = new LedgerJournal(dsl, objectMapper, wal);
+        OutboxRepository outbox = new OutboxRepository(dsl, journal);
+        UUID cardId = UUID.randomUUID();
+        tx.executeWithoutResult(status -> {
+            dsl.insertInto(CARD).set(new CardRecord(cardId, "Compacted", 0L, "ACTIVE", 0, LocalDateTime.now(), 0L, null, 0)).execute();
+            journal.cardChanged(cardId);
+        });
+        for (int i = 1; i <= 50; i++) {
+            long balance = i;
+            tx.executeWithoutResult(status -> {
+                dsl.update(CARD).set(CARD.BALANCE, balance).where(CARD.ID.eq(cardId)).execute();
+                journal.cardChanged(cardId);
+                outbox.append(cardId, "TOPUP", "{}", LocalDateTime.now());
+            });
+        }
+        // Every event delivered: after compaction no row carries the highest id handed out
+        List<Long> delivered = outbox.fetchBatch(100).stream().map(OutboxEventRecord::getId).toList();
+        outbox.deleteByIds(delivered);
+        long before = wal.size();
+
+        journal.compact();
+
+        assertTrue(wal.size() < before / 10, "log not compacted: " + wal.size() + " of " + before + " bytes");
+        try (Stream<Path> segments = Files.list(dir)) {
+            assertEquals(1, segments.count());
+        }
+        wal.close();
+
+        EmbeddedDatabase restarted = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("db/schema.sql")
+                .build();
+        try (WriteAheadLog reopened = new WriteAheadLog(dir, new SimpleMeterRegistry())) {
+            DSLContext restartedDsl = DSL.using(restarted, SQLDialect.H2);
+            new LedgerJournal(restartedDsl, objectMapper, reopened).afterSingletonsInstantiated();
+
+            assertEquals(50L, restartedDsl.fetchOne(CARD, CARD.ID.eq(cardId)).getBalance());
+            assertEquals(0, restartedDsl.fetchCount(OUTBOX_EVENT));
+            Long next = restartedDsl.insertInto(OUTBOX_EVENT)
+                    .set(OUTBOX_EVENT.CARD_ID, cardId)
+                    .set(OUTBOX_EVENT.EVENT_TYPE, "TOPUP")
+                    .set(OUTBOX_EVENT.PAYLOAD, "{}")
+                    .set(OUTBOX_EVENT.CREATED_AT, LocalDateTime.now())
+                    .returning(OUTBOX_EVENT.ID)
+                    .fetchOne(OUTBOX_EVENT.ID);
+            assertTrue(next > Collections.max(delivered), "outbox id " + next + " reused");
+        } finally {
+            restarted.shutdown();
+        }
+    }
+}